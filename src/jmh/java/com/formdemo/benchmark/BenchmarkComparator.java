@@ -0,0 +1,134 @@
+package com.formdemo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对比两次 JMH 结果（-rf json 输出）：按基准方法 + 参数匹配，输出吞吐量和每次操作分配字节数的变化。
+ * 吞吐量下降或分配增加超过阈值时视为退化，以非零状态退出，可用于发布前检查。
+ * 分配另有绝对容差 ALLOC_TOLERANCE_BYTES：原本不分配（0 B/op）的基准开始分配时同样视为退化。
+ * 用法：BenchmarkComparator &lt;baseline.json&gt; &lt;result.json&gt; [阈值，默认0.10]
+ */
+public final class BenchmarkComparator {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+    // 小于一个最小对象（16字节）的增量视为测量噪声，多分配一个对象即超过
+    private static final double ALLOC_TOLERANCE_BYTES = 8;
+
+    private BenchmarkComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkComparator <baseline.json> <result.json> [threshold]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[0]);
+        if (!baselineFile.isFile()) {
+            System.err.println("Baseline not found: " + baselineFile
+                + "（先运行基准测试，再把 target/jmh-result.json 复制为基线）");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Result> baseline = read(objectMapper.readTree(baselineFile));
+        Map<String, Result> current = read(objectMapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %8s %12s %12s %8s%n",
+                          "Benchmark", "Base ops", "Current ops", "Change", "Base B/op", "Current B/op", "Change");
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-70s %14s %14.1f%n", entry.getKey(), "-", now.score);
+                continue;
+            }
+            double scoreChange = change(base.score, now.score);
+            boolean regressed = scoreChange < -threshold || allocRegressed(base.allocBytes, now.allocBytes, threshold);
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %14.1f %14.1f %7.1f%% %12.1f %12.1f %8s%s%n",
+                              entry.getKey(), base.score, now.score, scoreChange * 100,
+                              base.allocBytes, now.allocBytes, allocChange(base.allocBytes, now.allocBytes),
+                              regressed ? "  REGRESSION" : "");
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-70s (not run)%n", missing);
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%% (allocation: and more than %.0f B/op)%n",
+                              regressions, threshold * 100, ALLOC_TOLERANCE_BYTES);
+            System.exit(1);
+        }
+        System.out.printf("No regressions beyond %.0f%%%n", threshold * 100);
+    }
+
+    /**
+     * 基准方法（含参数）-> 吞吐量及每次操作分配的字节数（未开启 -prof gc 时为 NaN）
+     */
+    private static Map<String, Result> read(JsonNode results) {
+        Map<String, Result> byName = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringBuilder name = new StringBuilder(result.path("benchmark").asText());
+            JsonNode params = result.path("params");
+            Iterator<Map.Entry<String, JsonNode>> it = params.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> param = it.next();
+                name.append(name.indexOf(":") < 0 ? ":" : ",").append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            double allocBytes = Double.NaN;
+            Iterator<Map.Entry<String, JsonNode>> secondary = result.path("secondaryMetrics").fields();
+            while (secondary.hasNext()) {
+                Map.Entry<String, JsonNode> metric = secondary.next();
+                // 旧版本 JMH 的指标名带有"·"前缀
+                if (metric.getKey().endsWith(ALLOC_METRIC)) {
+                    allocBytes = metric.getValue().path("score").asDouble();
+                }
+            }
+            byName.put(name.toString(), new Result(result.path("primaryMetric").path("score").asDouble(), allocBytes));
+        }
+        return byName;
+    }
+
+    /**
+     * 分配增量同时超过相对阈值和绝对容差；基线为 0 B/op 时只看绝对容差
+     */
+    private static boolean allocRegressed(double base, double now, double threshold) {
+        if (Double.isNaN(base) || Double.isNaN(now)) {
+            return false;
+        }
+        return now - base > Math.max(base * threshold, ALLOC_TOLERANCE_BYTES);
+    }
+
+    /**
+     * 分配的变化：基线接近 0 B/op 时百分比没有意义，显示绝对增量
+     */
+    private static String allocChange(double base, double now) {
+        if (!Double.isNaN(base) && !Double.isNaN(now) && base < ALLOC_TOLERANCE_BYTES) {
+            return String.format("%+.0fB", now - base);
+        }
+        return String.format("%.1f%%", change(base, now) * 100);
+    }
+
+    private static double change(double base, double now) {
+        if (Double.isNaN(base) || Double.isNaN(now) || base == 0) {
+            return 0;
+        }
+        return (now - base) / base;
+    }
+
+    private record Result(double score, double allocBytes) {
+    }
+}
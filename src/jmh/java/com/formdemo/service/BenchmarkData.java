@@ -0,0 +1,63 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import com.formdemo.model.FormSchema;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试的输入数据
+ * 小表单使用真实的订酒店模板（8个字段），大表单为各类字段混合的40个字段，
+ * 都驻留为共享结构，与会话中的表单结构一致。
+ */
+final class BenchmarkData {
+
+    static final String SMALL = "small";
+    static final String LARGE = "large";
+
+    private static final String[] TYPES = {"text", "date", "number", "select", "email", "tel", "textarea", "日期"};
+
+    private BenchmarkData() {
+    }
+
+    static IntentClassifier intentClassifier() {
+        return new IntentClassifier(new BusinessKeywordMatcher(new DefaultResourceLoader(),
+                                                               "classpath:business-keywords.json"));
+    }
+
+    /**
+     * @param size small（订酒店模板）或 large（40个字段）
+     */
+    static List<FormField> fields(String size) {
+        if (SMALL.equals(size)) {
+            FormTemplateRegistry registry = new FormTemplateRegistry(new DefaultResourceLoader(),
+                "classpath:form-templates.json", new FormGeneratorService());
+            return registry.find("HOTEL").getFields();
+        }
+        List<FormField> fields = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String type = TYPES[i % TYPES.length];
+            List<String> options = "select".equals(type) ? List.of("选项A", "选项B", "选项C", "选项D") : null;
+            fields.add(new FormField("field" + i, "字段" + i, type, i % 5 == 0 ? "默认值" + i : "",
+                                     options, i % 2 == 0, "请输入字段" + i));
+        }
+        return FormSchema.intern(fields).getFields();
+    }
+
+    /**
+     * 会话中已填写的字段值：约一半的字段有值
+     */
+    static Map<String, Object> values(List<FormField> fields) {
+        Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < fields.size(); i += 2) {
+            FormField field = fields.get(i);
+            values.put(field.getName(), field.getOptions() != null && !field.getOptions().isEmpty()
+                ? field.getOptions().get(0) : "值" + i);
+        }
+        return values;
+    }
+}
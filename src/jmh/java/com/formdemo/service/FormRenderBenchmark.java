@@ -0,0 +1,52 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 表单HTML渲染（create_form 和下发完整表单的 fill_form 每次都会执行）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormRenderBenchmark {
+
+    @Param({BenchmarkData.SMALL, BenchmarkData.LARGE})
+    public String size;
+
+    private FormGeneratorService formGeneratorService;
+    private List<FormField> fields;
+    private Map<String, Object> values;
+
+    @Setup
+    public void setUp() {
+        formGeneratorService = new FormGeneratorService();
+        fields = BenchmarkData.fields(size);
+        values = BenchmarkData.values(fields);
+    }
+
+    /**
+     * 渲染计划已缓存时的渲染（会话内的常见情况）
+     */
+    @Benchmark
+    public String generateFormHtmlFromFields() {
+        return formGeneratorService.generateFormHtmlFromFields(fields, values);
+    }
+}
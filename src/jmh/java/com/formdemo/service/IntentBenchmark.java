@@ -0,0 +1,56 @@
+package com.formdemo.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每条消息都会执行的本地文本处理：业务意图判定（ChatService.isValidBusinessIntent 委托给
+ * IntentClassifier.isBusinessIntent）和姓名提取
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntentBenchmark {
+
+    @Param({"business", "chat", "long"})
+    public String message;
+
+    private IntentClassifier intentClassifier;
+    private UserInfoService userInfoService;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        intentClassifier = BenchmarkData.intentClassifier();
+        userInfoService = new UserInfoService();
+        text = switch (message) {
+            case "business" -> "我叫张三，下周一要去杭州出差，帮我订酒店";
+            case "chat" -> "你好，今天天气怎么样";
+            default -> "我叫李四，来自上海，".repeat(10) + "想了解一下公司的差旅报销流程，顺便帮我定机票";
+        };
+    }
+
+    @Benchmark
+    public boolean isValidBusinessIntent() {
+        return intentClassifier.isBusinessIntent(text);
+    }
+
+    @Benchmark
+    public String extractName() {
+        return userInfoService.extractName(text);
+    }
+}
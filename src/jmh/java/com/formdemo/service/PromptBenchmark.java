@@ -0,0 +1,88 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.formdemo.model.FormField;
+import com.formdemo.model.LLMIntentResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LLM调用前后的本地处理：表单上下文编码、字段类型规范化，以及清理 markdown 代码块后反序列化意图JSON
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBenchmark {
+
+    private static final String[] TYPES = {"text", "日期", "datetime", "电话", "email", "数字", "下拉", "unknown"};
+
+    @Param({BenchmarkData.SMALL, BenchmarkData.LARGE})
+    public String size;
+
+    private LocalIntentService localIntentService;
+    private List<FormField> fields;
+    private Map<String, Object> values;
+    private String fillResponse;
+    private String createResponse;
+
+    @Setup
+    public void setUp() {
+        // 只使用不依赖LLM的本地方法，路由、缓存和限流都不需要
+        localIntentService = new LocalIntentService(null, null, null, null, null, 3, 400);
+        fields = BenchmarkData.fields(size);
+        values = BenchmarkData.values(fields);
+
+        StringBuilder updates = new StringBuilder();
+        StringBuilder formFields = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            FormField field = fields.get(i);
+            String separator = i == 0 ? "" : ",";
+            updates.append(separator).append('"').append(field.getName()).append("\":\"值").append(i).append('"');
+            formFields.append(separator).append("{\"name\":\"").append(field.getName())
+                .append("\",\"label\":\"").append(field.getLabel())
+                .append("\",\"type\":\"").append(field.getType())
+                .append("\",\"defaultValue\":\"\",\"required\":true,\"placeholder\":\"请输入\"}");
+        }
+        fillResponse = "```json\n{\"intent\":\"fill_form\",\"form_fields\":[],\"field_updates\":{" + updates + "}}\n```";
+        createResponse = "```json\n{\"intent\":\"create_form\",\"form_fields\":[" + formFields + "],\"field_updates\":{}}\n```";
+    }
+
+    @Benchmark
+    public String buildFormContext() {
+        return localIntentService.buildFormContext(fields, values, "把目的地填成杭州，入住日期改为明天");
+    }
+
+    @Benchmark
+    public void normalizeFieldType(Blackhole blackhole) {
+        for (String type : TYPES) {
+            blackhole.consume(FormContextEncoder.normalizeType(type));
+        }
+    }
+
+    @Benchmark
+    public LLMIntentResponse parseFillFormResponse() throws JsonProcessingException {
+        return localIntentService.parseIntentResponse(fillResponse);
+    }
+
+    @Benchmark
+    public LLMIntentResponse parseCreateFormResponse() throws JsonProcessingException {
+        return localIntentService.parseIntentResponse(createResponse);
+    }
+}
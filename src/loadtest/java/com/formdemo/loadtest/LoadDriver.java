@@ -0,0 +1,259 @@
+package com.formdemo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.formdemo.service.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测驱动：每个虚拟用户在虚拟线程上循环进行多轮对话（创建表单 -> 本地解析的填写 -> 需要LLM的填写 -> 闲聊），
+ * 每轮带上客户端当前的表单版本以走增量更新，直到压测时间结束。
+ * 按对话轮次类型统计延迟分布（p50/p95/p99）、吞吐量，以及HTTP错误、降级回复（需要用户澄清）和意图不符的比例。
+ */
+public class LoadDriver {
+
+    /**
+     * 对话轮次：消息、期望的意图及轮次类型（本地处理还是需要LLM，用于分组统计）
+     */
+    record Turn(String message, String expectedIntent, String kind) {
+    }
+
+    static final List<List<Turn>> CONVERSATIONS = List.of(
+        List.of(new Turn("我要订酒店，去杭州", "create_form", "create+extract"),
+                new Turn("入住日期改为10月20日", "fill_form", "fill-local"),
+                new Turn("人数2", "fill_form", "fill-local"),
+                new Turn("日期改成明天", "fill_form", "fill-llm"),
+                new Turn("谢谢", "chat", "chat-llm")),
+        List.of(new Turn("我要请假", "create_form", "create"),
+                new Turn("类型选年假", "fill_form", "fill-local"),
+                new Turn("天数3", "fill_form", "fill-local"),
+                new Turn("开始日期改为10月20日", "fill_form", "fill-local"),
+                new Turn("家里有点事", "fill_form", "fill-llm")),
+        List.of(new Turn("帮我定机票", "create_form", "create"),
+                new Turn("目的地填成北京", "fill_form", "fill-local"),
+                new Turn("出发日期改为11月1日", "fill_form", "fill-local"),
+                new Turn("还有两个同事一起", "fill_form", "fill-llm"))
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final URI messageUri;
+    private final int users;
+    private final long durationMillis;
+    private final long thinkMillis;
+
+    private final Map<String, Stats> statsByKind = new ConcurrentHashMap<>();
+    private final Stats total = new Stats();
+    private final LongAdder conversations = new LongAdder();
+
+    /**
+     * @param baseUrl 应用地址，如 http://127.0.0.1:8080
+     * @param users 并发的虚拟用户数
+     * @param thinkMillis 每轮之间的思考时间（实际在 0 ~ 2 倍之间随机）
+     */
+    public LoadDriver(String baseUrl, int users, long durationMillis, long thinkMillis) {
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        this.messageUri = URI.create(baseUrl.replaceAll("/+$", "") + "/api/chat/message");
+        this.users = users;
+        this.durationMillis = durationMillis;
+        this.thinkMillis = thinkMillis;
+    }
+
+    /**
+     * 运行压测，返回实际运行时间（毫秒）
+     */
+    public long run() throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                int user = i;
+                running.add(executor.submit(() -> runUser(user, deadline)));
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    System.err.println("Virtual user failed: " + e);
+                }
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private void runUser(int user, long deadline) {
+        int next = user;
+        while (System.nanoTime() < deadline) {
+            List<Turn> conversation = CONVERSATIONS.get(next++ % CONVERSATIONS.size());
+            String sessionId = "loadtest-" + user + "-" + UUID.randomUUID();
+            Long formVersion = null;
+            for (Turn turn : conversation) {
+                if (System.nanoTime() >= deadline) {
+                    return;
+                }
+                formVersion = send(turn, sessionId, formVersion);
+                think();
+            }
+            conversations.increment();
+        }
+    }
+
+    /**
+     * 发送一轮消息并记录结果，返回响应中的表单版本（失败时保留原版本）
+     */
+    private Long send(Turn turn, String sessionId, Long formVersion) {
+        Stats stats = statsByKind.computeIfAbsent(turn.kind(), k -> new Stats());
+        long start = System.nanoTime();
+        try {
+            ObjectNode body = objectMapper.createObjectNode();
+            body.put("message", turn.message());
+            body.put("sessionId", sessionId);
+            if (formVersion != null) {
+                body.put("formVersion", formVersion);
+            }
+            HttpRequest request = HttpRequest.newBuilder(messageUri)
+                .timeout(Duration.ofSeconds(130))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            long nanos = System.nanoTime() - start;
+            if (response.statusCode() != 200) {
+                stats.record(nanos, Outcome.HTTP_ERROR);
+                total.record(nanos, Outcome.HTTP_ERROR);
+                return formVersion;
+            }
+            JsonNode chat = objectMapper.readTree(response.body());
+            Outcome outcome;
+            if (chat.path("needsClarification").asBoolean(false)) {
+                outcome = Outcome.DEGRADED;
+            } else if (!turn.expectedIntent().equals(chat.path("intentType").asText())) {
+                outcome = Outcome.UNEXPECTED_INTENT;
+            } else {
+                outcome = Outcome.OK;
+            }
+            stats.record(nanos, outcome);
+            total.record(nanos, outcome);
+            JsonNode version = chat.get("formVersion");
+            return version != null && version.isNumber() ? version.asLong() : formVersion;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return formVersion;
+        } catch (Exception e) {
+            long nanos = System.nanoTime() - start;
+            stats.record(nanos, Outcome.TRANSPORT_ERROR);
+            total.record(nanos, Outcome.TRANSPORT_ERROR);
+            return formVersion;
+        }
+    }
+
+    private void think() {
+        if (thinkMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(thinkMillis * 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 失败（HTTP错误、连接错误）占全部请求的比例
+     */
+    public double errorRate() {
+        long requests = total.latency.getCount();
+        return requests == 0 ? 0.0 : (double) (total.httpErrors.sum() + total.transportErrors.sum()) / requests;
+    }
+
+    /**
+     * 降级回复（LLM调用失败等原因需要用户澄清，HTTP状态仍为200）占全部请求的比例
+     */
+    public double degradedRate() {
+        long requests = total.latency.getCount();
+        return requests == 0 ? 0.0 : (double) total.degraded.sum() / requests;
+    }
+
+    /**
+     * 意图与预期不符（如LLM失败后回退为闲聊）占全部请求的比例
+     */
+    public double unexpectedIntentRate() {
+        long requests = total.latency.getCount();
+        return requests == 0 ? 0.0 : (double) total.unexpectedIntent.sum() / requests;
+    }
+
+    /**
+     * 压测报告：总体及各轮次类型的请求数、吞吐量、延迟分位数和错误比例
+     */
+    public Map<String, Object> report(long elapsedMillis) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("users", users);
+        report.put("elapsedSeconds", elapsedMillis / 1000.0);
+        report.put("conversations", conversations.sum());
+        report.put("total", total.snapshot(elapsedMillis));
+        Map<String, Object> byKind = new LinkedHashMap<>();
+        statsByKind.forEach((kind, stats) -> byKind.put(kind, stats.snapshot(elapsedMillis)));
+        report.put("byTurn", byKind);
+        return report;
+    }
+
+    enum Outcome {
+        OK, DEGRADED, UNEXPECTED_INTENT, HTTP_ERROR, TRANSPORT_ERROR
+    }
+
+    private static final class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder degraded = new LongAdder();
+        private final LongAdder unexpectedIntent = new LongAdder();
+        private final LongAdder httpErrors = new LongAdder();
+        private final LongAdder transportErrors = new LongAdder();
+
+        void record(long nanos, Outcome outcome) {
+            latency.recordNanos(nanos);
+            switch (outcome) {
+                case DEGRADED -> degraded.increment();
+                case UNEXPECTED_INTENT -> unexpectedIntent.increment();
+                case HTTP_ERROR -> httpErrors.increment();
+                case TRANSPORT_ERROR -> transportErrors.increment();
+                default -> {
+                }
+            }
+        }
+
+        Map<String, Object> snapshot(long elapsedMillis) {
+            long requests = latency.getCount();
+            Map<String, Object> snapshot = new LinkedHashMap<>(latency.snapshot());
+            snapshot.put("throughputPerSecond", elapsedMillis == 0 ? 0.0 : requests * 1000.0 / elapsedMillis);
+            snapshot.put("errorRate", rate(httpErrors.sum() + transportErrors.sum(), requests));
+            snapshot.put("degradedRate", rate(degraded.sum(), requests));
+            snapshot.put("unexpectedIntentRate", rate(unexpectedIntent.sum(), requests));
+            return snapshot;
+        }
+
+        private static double rate(long count, long requests) {
+            return requests == 0 ? 0.0 : (double) count / requests;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.formdemo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.FormAssistantApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 离线端到端压测入口
+ * 启动模拟的 OpenAI 兼容服务，未指定 loadtest.target 时在同一进程内以随机端口启动应用并把LLM服务商指向模拟服务
+ * （同时放开限流和token额度，测量的是处理流水线本身），然后运行 LoadDriver 并输出JSON报告。
+ * 失败、降级回复或意图不符的比例超过对应阈值时以非零状态退出，可作为发布前检查
+ * （LLM调用失败时应用仍返回200，表现为降级回复或意图不符，需要单独设阈值）。
+ * 命令行参数原样传给应用（如 --assistant.llm.hedge.enabled=false），可覆盖上述默认设置。
+ *
+ * 系统属性：
+ *   loadtest.target          已运行的应用地址；为空时在进程内启动应用。指定时该应用需把LLM地址配置为模拟服务（配合 mock.port）
+ *   loadtest.users           并发虚拟用户数（默认 50）
+ *   loadtest.duration-seconds 压测时长（默认 60）
+ *   loadtest.think-ms        每轮之间的平均思考时间（默认 0）
+ *   loadtest.max-error-rate  允许的失败（HTTP错误、连接错误）比例（默认 0.01）
+ *   loadtest.max-degraded-rate 允许的降级回复比例（默认 0.01）
+ *   loadtest.max-unexpected-intent-rate 允许的意图不符比例（默认 0.01）
+ *   loadtest.report          报告输出文件（默认只打印）
+ *   mock.port                模拟服务端口（默认 0，随机端口）
+ *   mock.latency             模拟LLM延迟分布：fixed:ms、uniform:min:max、lognormal:median:sigma（默认 lognormal:800:0.5）
+ *   mock.error-rate          返回 500 的比例（默认 0）
+ *   mock.quota-rate          返回 429 insufficient_quota 的比例（默认 0）
+ *   mock.responses           预置回复的JSON文件（关键词 -> 意图JSON），默认使用内置的对话回复
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String responsesFile = System.getProperty("mock.responses", "");
+        MockOpenAIServer mock = new MockOpenAIServer(
+            MockOpenAIServer.Latency.parse(System.getProperty("mock.latency", "lognormal:800:0.5")),
+            Double.parseDouble(System.getProperty("mock.error-rate", "0")),
+            Double.parseDouble(System.getProperty("mock.quota-rate", "0")),
+            responsesFile.isBlank() ? null : MockOpenAIServer.loadResponses(new File(responsesFile)));
+        mock.start(Integer.getInteger("mock.port", 0));
+        System.out.println("Mock OpenAI server: " + mock.getUrl());
+
+        ConfigurableApplicationContext app = null;
+        int exitCode = 0;
+        try {
+            String target = System.getProperty("loadtest.target", "");
+            if (target.isBlank()) {
+                app = startApplication(mock.getUrl(), args);
+                target = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+            }
+            System.out.println("Target: " + target);
+
+            LoadDriver driver = new LoadDriver(target,
+                                               Integer.getInteger("loadtest.users", 50),
+                                               Long.getLong("loadtest.duration-seconds", 60) * 1000L,
+                                               Long.getLong("loadtest.think-ms", 0));
+            long elapsed = driver.run();
+
+            Map<String, Object> report = new LinkedHashMap<>(driver.report(elapsed));
+            report.put("mock", mock.getStats());
+            ObjectMapper objectMapper = new ObjectMapper();
+            String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+            System.out.println(json);
+            String reportFile = System.getProperty("loadtest.report", "");
+            if (!reportFile.isBlank()) {
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(reportFile), report);
+            }
+
+            if (exceeds("Error rate", driver.errorRate(), "loadtest.max-error-rate")
+                | exceeds("Degraded rate", driver.degradedRate(), "loadtest.max-degraded-rate")
+                | exceeds("Unexpected intent rate", driver.unexpectedIntentRate(), "loadtest.max-unexpected-intent-rate")) {
+                exitCode = 1;
+            }
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+            mock.stop();
+        }
+        System.exit(exitCode);
+    }
+
+    /**
+     * 比例是否超过系统属性指定的阈值（默认 0.01），超过时输出原因
+     */
+    private static boolean exceeds(String name, double rate, String property) {
+        double max = Double.parseDouble(System.getProperty(property, "0.01"));
+        if (rate <= max) {
+            return false;
+        }
+        System.err.printf("%s %.2f%% exceeds %.2f%% (%s)%n", name, rate * 100, max * 100, property);
+        return true;
+    }
+
+    /**
+     * 在进程内启动应用：随机端口，唯一的LLM服务商为模拟服务，不限流、不限额度，会话不落盘
+     */
+    private static ConfigurableApplicationContext startApplication(String mockUrl, String[] args) {
+        List<String> defaults = List.of(
+            "--server.port=0",
+            "--api-url=" + mockUrl,
+            "--api-key=mock",
+            "--api-model=mock",
+            "--assistant.llm.providers[0].name=mock",
+            "--assistant.llm.providers[0].url=" + mockUrl,
+            "--assistant.llm.providers[0].api-key=mock",
+            "--assistant.llm.providers[0].model=mock",
+            "--assistant.rate-limit.global-per-second=1000000",
+            "--assistant.rate-limit.global-burst=1000000",
+            "--assistant.rate-limit.session-per-minute=1000000",
+            "--assistant.rate-limit.session-burst=1000000",
+            "--assistant.budget.daily-tokens=0",
+            "--assistant.budget.monthly-tokens=0",
+            "--assistant.budget.state-file=",
+            "--assistant.session.persistence.type=none",
+            "--logging.level.com.formdemo=WARN");
+        // 同名属性以命令行参数为准（重复的参数会被 Spring 合并为逗号分隔的值，这里先去重）
+        Map<String, String> appArgs = new LinkedHashMap<>();
+        for (String arg : defaults) {
+            appArgs.put(optionName(arg), arg);
+        }
+        for (String arg : args) {
+            appArgs.put(optionName(arg), arg);
+        }
+        return SpringApplication.run(FormAssistantApplication.class, appArgs.values().toArray(new String[0]));
+    }
+
+    private static String optionName(String arg) {
+        int eq = arg.indexOf('=');
+        return eq > 0 ? arg.substring(0, eq) : arg;
+    }
+}
@@ -0,0 +1,283 @@
+package com.formdemo.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内的 OpenAI 兼容模拟服务（POST /v1/chat/completions），用于离线压测，不消耗真实的API额度
+ * 响应延迟按配置的分布随机生成，可按比例返回服务端错误（500）和额度耗尽错误（429 insufficient_quota）。
+ * 回复内容为预置的意图JSON：字段值提取提示词返回 field_updates，其余按最后一条用户消息中的关键词选择，
+ * 都不匹配时返回 chat。支持 stream=true（SSE 增量输出，最后一个数据块带用量）。
+ */
+public class MockOpenAIServer {
+
+    private static final String EXTRACTION_MARKER = "{\"field_updates\": {字段名: 值}}";
+    private static final String CHAT_RESPONSE = "{\"intent\":\"chat\",\"form_fields\":[],\"field_updates\":{}}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Latency latency;
+    private final double errorRate;
+    private final double quotaRate;
+    private final Map<String, String> cannedResponses;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private HttpServer server;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder streamed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder quotaErrors = new LongAdder();
+
+    /**
+     * @param latency 响应延迟分布
+     * @param errorRate 返回 500 的比例
+     * @param quotaRate 返回 429 insufficient_quota 的比例
+     * @param cannedResponses 用户消息关键词 -> 回复的意图JSON（按顺序匹配），为 null 时使用默认的酒店/请假/机票对话
+     */
+    public MockOpenAIServer(Latency latency, double errorRate, double quotaRate, Map<String, String> cannedResponses) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.quotaRate = quotaRate;
+        this.cannedResponses = cannedResponses != null ? cannedResponses : defaultResponses();
+    }
+
+    /**
+     * 从 JSON 文件读取预置回复（关键词 -> 意图JSON对象）
+     */
+    public static Map<String, String> loadResponses(File file) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, JsonNode> definitions = objectMapper.readValue(file,
+            new TypeReference<LinkedHashMap<String, JsonNode>>() {});
+        Map<String, String> responses = new LinkedHashMap<>();
+        definitions.forEach((keyword, response) -> responses.put(keyword, response.toString()));
+        return responses;
+    }
+
+    /**
+     * 在本机启动
+     * @param port 端口，0 表示随机端口
+     */
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/v1/chat/completions", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        executor.shutdownNow();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.sum());
+        stats.put("streamed", streamed.sum());
+        stats.put("errors", errors.sum());
+        stats.put("quotaErrors", quotaErrors.sum());
+        return stats;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            JsonNode request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = objectMapper.readTree(in);
+            }
+            sleep(latency.nextMillis());
+
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < quotaRate) {
+                quotaErrors.increment();
+                send(exchange, 429, "application/json",
+                     "{\"error\":{\"message\":\"You exceeded your current quota\",\"type\":\"insufficient_quota\",\"code\":\"insufficient_quota\"}}");
+                return;
+            }
+            if (roll < quotaRate + errorRate) {
+                errors.increment();
+                send(exchange, 500, "application/json", "{\"error\":{\"message\":\"mock server error\",\"type\":\"server_error\"}}");
+                return;
+            }
+
+            String content = respond(request.path("messages"));
+            if (request.path("stream").asBoolean(false)) {
+                streamed.increment();
+                stream(exchange, request, content);
+            } else {
+                send(exchange, 200, "application/json", objectMapper.writeValueAsString(completion(request, content)));
+            }
+        }
+    }
+
+    /**
+     * 按提示词选择预置的回复
+     */
+    private String respond(JsonNode messages) {
+        String lastUser = "";
+        boolean extraction = false;
+        for (JsonNode message : messages) {
+            String content = message.path("content").asText("");
+            if (content.contains(EXTRACTION_MARKER)) {
+                extraction = true;
+            }
+            if ("user".equals(message.path("role").asText())) {
+                lastUser = content;
+            }
+        }
+        if (extraction) {
+            return lastUser.contains("杭州") ? "{\"field_updates\":{\"destination\":\"杭州\"}}" : "{\"field_updates\":{}}";
+        }
+        for (Map.Entry<String, String> canned : cannedResponses.entrySet()) {
+            if (lastUser.contains(canned.getKey())) {
+                return canned.getValue();
+            }
+        }
+        return CHAT_RESPONSE;
+    }
+
+    private ObjectNode completion(JsonNode request, String content) {
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("id", "chatcmpl-mock");
+        response.put("object", "chat.completion");
+        response.put("model", request.path("model").asText("mock"));
+        ArrayNode choices = response.putArray("choices");
+        ObjectNode choice = choices.addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        response.set("usage", usage(request, content));
+        return response;
+    }
+
+    private void stream(HttpExchange exchange, JsonNode request, String content) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < content.length(); i += 16) {
+            ObjectNode chunk = objectMapper.createObjectNode();
+            chunk.put("object", "chat.completion.chunk");
+            chunk.putArray("choices").addObject().put("index", 0)
+                .putObject("delta").put("content", content.substring(i, Math.min(content.length(), i + 16)));
+            writeEvent(out, chunk.toString());
+        }
+        ObjectNode last = objectMapper.createObjectNode();
+        last.put("object", "chat.completion.chunk");
+        last.putArray("choices");
+        last.set("usage", usage(request, content));
+        writeEvent(out, last.toString());
+        writeEvent(out, "[DONE]");
+    }
+
+    /**
+     * 粗略的用量：约每4个字符一个token
+     */
+    private ObjectNode usage(JsonNode request, String content) {
+        int promptChars = 0;
+        for (JsonNode message : request.path("messages")) {
+            promptChars += message.path("content").asText("").length();
+        }
+        ObjectNode usage = objectMapper.createObjectNode();
+        usage.put("prompt_tokens", promptChars / 4 + 1);
+        usage.put("completion_tokens", content.length() / 4 + 1);
+        usage.put("total_tokens", promptChars / 4 + content.length() / 4 + 2);
+        return usage;
+    }
+
+    private static void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 默认的预置回复，与 LoadDriver 中需要LLM处理的对话轮次对应
+     */
+    private static Map<String, String> defaultResponses() {
+        Map<String, String> responses = new LinkedHashMap<>();
+        responses.put("日期", "{\"intent\":\"fill_form\",\"form_fields\":[],\"field_updates\":{\"checkInDate\":\"2026-10-21\"}}");
+        responses.put("家里", "{\"intent\":\"fill_form\",\"form_fields\":[],\"field_updates\":{\"reason\":\"家里有事\"}}");
+        responses.put("同事", "{\"intent\":\"fill_form\",\"form_fields\":[],\"field_updates\":{\"passengers\":\"3\"}}");
+        return responses;
+    }
+
+    /**
+     * 响应延迟分布：fixed:毫秒、uniform:最小:最大、lognormal:中位数:sigma
+     */
+    public static final class Latency {
+        private final String kind;
+        private final double a;
+        private final double b;
+
+        private Latency(String kind, double a, double b) {
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+        }
+
+        public static Latency parse(String spec) {
+            String[] parts = spec.trim().split(":");
+            switch (parts[0]) {
+                case "fixed":
+                    return new Latency("fixed", Double.parseDouble(parts[1]), 0);
+                case "uniform":
+                    return new Latency("uniform", Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                case "lognormal":
+                    return new Latency("lognormal", Double.parseDouble(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    throw new IllegalArgumentException("未知的延迟分布: " + spec + "（可用 fixed:ms、uniform:min:max、lognormal:median:sigma）");
+            }
+        }
+
+        long nextMillis() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return switch (kind) {
+                case "uniform" -> (long) (a + random.nextDouble() * (b - a));
+                case "lognormal" -> (long) (a * Math.exp(b * random.nextGaussian()));
+                default -> (long) a;
+            };
+        }
+
+        @Override
+        public String toString() {
+            return kind + ":" + (long) a + ("fixed".equals(kind) ? "" : ":" + b);
+        }
+    }
+}
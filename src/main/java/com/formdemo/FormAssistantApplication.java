@@ -2,8 +2,10 @@ package com.formdemo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class FormAssistantApplication {
     public static void main(String[] args) {
         SpringApplication.run(FormAssistantApplication.class, args);
@@ -0,0 +1,21 @@
+package com.formdemo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * 执行聊天处理（含阻塞的LLM调用）的执行器
+     * 每个任务一个虚拟线程：等待LLM响应时只挂起虚拟线程，不占用平台线程，
+     * 因此同时进行中的会话数量不再受线程池大小限制。
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService chatExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-", 0).factory());
+    }
+}
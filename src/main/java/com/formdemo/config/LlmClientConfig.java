@@ -0,0 +1,110 @@
+package com.formdemo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.service.CircuitBreaker;
+import com.formdemo.service.LlmConcurrencyLimiter;
+import com.formdemo.service.LlmHttpMetrics;
+import com.formdemo.service.LlmProvider;
+import com.formdemo.service.LlmRouter;
+import com.formdemo.service.LlmTokenBudget;
+import com.formdemo.service.LlmUsageStats;
+import com.formdemo.service.OpenAICompatibleClient;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties(LlmProperties.class)
+public class LlmClientConfig {
+
+    @Bean
+    public ConnectionPool llmConnectionPool(@Value("${assistant.llm.http.max-idle-connections:20}") int maxIdleConnections,
+                                            @Value("${assistant.llm.http.keep-alive-seconds:300}") long keepAliveSeconds) {
+        return new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * LLM调用的并发限制（客户端使用同步调用，OkHttp 的 Dispatcher 限制对其不生效）
+     */
+    @Bean
+    public LlmConcurrencyLimiter llmConcurrencyLimiter(@Value("${assistant.llm.http.max-requests:256}") int maxRequests,
+                                                       @Value("${assistant.llm.http.max-requests-per-host:64}") int maxRequestsPerHost) {
+        return new LlmConcurrencyLimiter(maxRequests, maxRequestsPerHost);
+    }
+
+    @Bean
+    public LlmHttpMetrics llmHttpMetrics(ConnectionPool llmConnectionPool, LlmConcurrencyLimiter llmConcurrencyLimiter) {
+        return new LlmHttpMetrics(llmConnectionPool, llmConcurrencyLimiter);
+    }
+
+    @Bean
+    public LlmUsageStats llmUsageStats(LlmTokenBudget llmTokenBudget) {
+        return new LlmUsageStats(llmTokenBudget);
+    }
+
+    /**
+     * 所有LLM调用共享的HTTP客户端：连接池、超时和协议均可在 application.yml 中配置
+     */
+    @Bean
+    public OkHttpClient llmHttpClient(ConnectionPool llmConnectionPool, LlmHttpMetrics llmHttpMetrics,
+                                      @Value("${assistant.llm.http.http2:true}") boolean http2,
+                                      @Value("${assistant.llm.http.connect-timeout-ms:5000}") long connectTimeoutMs,
+                                      @Value("${assistant.llm.http.read-timeout-ms:60000}") long readTimeoutMs,
+                                      @Value("${assistant.llm.http.write-timeout-ms:10000}") long writeTimeoutMs,
+                                      @Value("${assistant.llm.http.call-timeout-ms:120000}") long callTimeoutMs) {
+        return new OkHttpClient.Builder()
+            .connectionPool(llmConnectionPool)
+            .eventListenerFactory(llmHttpMetrics)
+            .protocols(http2 ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+            .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+            .writeTimeout(writeTimeoutMs, TimeUnit.MILLISECONDS)
+            .callTimeout(callTimeoutMs, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * 默认的LLM客户端（未配置多服务商时使用），使用 application.properties 中的 api-url / api-key / api-model
+     */
+    @Bean
+    public OpenAICompatibleClient openAICompatibleClient(@Value("${api-url}") String apiUrl,
+                                                         @Value("${api-key}") String apiKey,
+                                                         @Value("${api-model}") String apiModel,
+                                                         OkHttpClient llmHttpClient, LlmUsageStats llmUsageStats,
+                                                         LlmConcurrencyLimiter llmConcurrencyLimiter) {
+        return new OpenAICompatibleClient(apiUrl, apiKey, apiModel, llmHttpClient, new ObjectMapper(), llmUsageStats,
+                                          llmConcurrencyLimiter);
+    }
+
+    /**
+     * LLM路由：assistant.llm.providers 中的每个服务商各自一个客户端和熔断器，共享同一个HTTP客户端
+     */
+    @Bean
+    public LlmRouter llmRouter(LlmProperties properties, OkHttpClient llmHttpClient,
+                               OpenAICompatibleClient openAICompatibleClient, ExecutorService chatExecutor,
+                               LlmUsageStats llmUsageStats, LlmConcurrencyLimiter llmConcurrencyLimiter) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        LlmProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        List<LlmProvider> providers = new ArrayList<>();
+        for (LlmProperties.Provider provider : properties.getProviders()) {
+            OpenAICompatibleClient client = new OpenAICompatibleClient(provider.getUrl(), provider.getApiKey(),
+                                                                       provider.getModel(), llmHttpClient, objectMapper,
+                                                                       llmUsageStats, llmConcurrencyLimiter);
+            providers.add(new LlmProvider(provider.getName(), client,
+                new CircuitBreaker(breaker.getFailureThreshold(), TimeUnit.SECONDS.toMillis(breaker.getOpenSeconds()))));
+        }
+        LlmProperties.Hedge hedge = properties.getHedge();
+        return new LlmRouter(providers, openAICompatibleClient, chatExecutor,
+            new LlmRouter.HedgePolicy(hedge.isEnabled(), hedge.getMinDelayMs(), hedge.getDefaultDelayMs(),
+                                      hedge.getMinSamples()));
+    }
+}
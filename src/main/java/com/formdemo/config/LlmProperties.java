@@ -0,0 +1,140 @@
+package com.formdemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 多服务商LLM路由配置（assistant.llm.*）
+ */
+@ConfigurationProperties(prefix = "assistant.llm")
+public class LlmProperties {
+
+    private List<Provider> providers = new ArrayList<>();
+    private Hedge hedge = new Hedge();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public List<Provider> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(List<Provider> providers) {
+        this.providers = providers;
+    }
+
+    public Hedge getHedge() {
+        return hedge;
+    }
+
+    public void setHedge(Hedge hedge) {
+        this.hedge = hedge;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public static class Provider {
+        private String name;
+        private String url;
+        private String apiKey;
+        private String model;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getApiKey() {
+            return apiKey;
+        }
+
+        public void setApiKey(String apiKey) {
+            this.apiKey = apiKey;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public void setModel(String model) {
+            this.model = model;
+        }
+    }
+
+    public static class Hedge {
+        private boolean enabled = true;
+        private long minDelayMs = 300;
+        private long defaultDelayMs = 3000;
+        private int minSamples = 20;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMinDelayMs() {
+            return minDelayMs;
+        }
+
+        public void setMinDelayMs(long minDelayMs) {
+            this.minDelayMs = minDelayMs;
+        }
+
+        public long getDefaultDelayMs() {
+            return defaultDelayMs;
+        }
+
+        public void setDefaultDelayMs(long defaultDelayMs) {
+            this.defaultDelayMs = defaultDelayMs;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+    }
+
+    public static class CircuitBreaker {
+        private int failureThreshold = 5;
+        private long openSeconds = 30;
+
+        public int getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(int failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public long getOpenSeconds() {
+            return openSeconds;
+        }
+
+        public void setOpenSeconds(long openSeconds) {
+            this.openSeconds = openSeconds;
+        }
+    }
+}
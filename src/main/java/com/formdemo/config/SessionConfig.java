@@ -0,0 +1,28 @@
+package com.formdemo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.service.FileSessionRepository;
+import com.formdemo.service.NoOpSessionRepository;
+import com.formdemo.service.SessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class SessionConfig {
+
+    /**
+     * 会话持久化存储：none（仅内存，默认）或 file（本地磁盘追加日志）
+     */
+    @Bean
+    public SessionRepository sessionRepository(@Value("${assistant.session.persistence.type:none}") String type,
+                                               @Value("${assistant.session.persistence.directory:data/sessions}") String directory,
+                                               @Value("${assistant.session.persistence.min-compaction-bytes:1048576}") long minCompactionBytes) {
+        if ("file".equalsIgnoreCase(type)) {
+            return new FileSessionRepository(Path.of(directory), minCompactionBytes, new ObjectMapper());
+        }
+        return new NoOpSessionRepository();
+    }
+}
@@ -0,0 +1,82 @@
+package com.formdemo.controller;
+
+import com.formdemo.model.FormSchema;
+import com.formdemo.service.BusinessKeywordMatcher;
+import com.formdemo.service.FormTemplateRegistry;
+import com.formdemo.service.KeywordAutomaton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 管理接口：热加载关键词词典和表单模板
+ * 接口没有鉴权，默认不注册，需要设置 assistant.admin.enabled=true 才会开启。
+ */
+@RestController
+@RequestMapping("/api/admin")
+@ConditionalOnProperty(prefix = "assistant.admin", name = "enabled", havingValue = "true")
+public class AdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+
+    private final BusinessKeywordMatcher keywordMatcher;
+    private final FormTemplateRegistry formTemplateRegistry;
+
+    public AdminController(BusinessKeywordMatcher keywordMatcher, FormTemplateRegistry formTemplateRegistry) {
+        this.keywordMatcher = keywordMatcher;
+        this.formTemplateRegistry = formTemplateRegistry;
+    }
+
+    /**
+     * 重新加载业务关键词词典（无需重启）
+     */
+    @PostMapping("/keywords/reload")
+    public ResponseEntity<Map<String, Object>> reloadKeywords() {
+        return reload(response -> {
+            KeywordAutomaton automaton = keywordMatcher.reload();
+            response.put("categories", automaton.getCategories());
+            response.put("keywordCount", automaton.getKeywordCount());
+        });
+    }
+
+    /**
+     * 重新加载业务表单模板（无需重启）
+     */
+    @PostMapping("/form-templates/reload")
+    public ResponseEntity<Map<String, Object>> reloadFormTemplates() {
+        return reload(response -> {
+            Map<String, FormSchema> templates = formTemplateRegistry.reload();
+            response.put("businessTypes", templates.keySet());
+        });
+    }
+
+    /**
+     * 执行重新加载：文件无法读取或内容不合法（格式错误、类别过多、模板校验失败）时返回 400，
+     * 其他异常返回 500；失败时都保留当前生效的版本
+     */
+    private ResponseEntity<Map<String, Object>> reload(Consumer<Map<String, Object>> action) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            action.accept(response);
+            response.put("success", true);
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            response.clear();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (RuntimeException e) {
+            log.error("Reload failed", e);
+            response.clear();
+            response.put("success", false);
+            response.put("message", "重新加载失败: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+}
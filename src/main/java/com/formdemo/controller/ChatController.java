@@ -2,12 +2,14 @@ package com.formdemo.controller;
 
 import com.formdemo.model.ChatMessage;
 import com.formdemo.model.ChatResponse;
+import com.formdemo.model.ClientFormState;
 import com.formdemo.service.ChatService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/chat")
@@ -21,10 +23,12 @@ public class ChatController {
     }
 
     @PostMapping("/message")
-    public ResponseEntity<ChatResponse> sendMessage(@RequestBody ChatMessage chatMessage) {
+    public CompletableFuture<ResponseEntity<ChatResponse>> sendMessage(@RequestBody ChatMessage chatMessage) {
         String sessionId = chatMessage.getSessionId() != null ? chatMessage.getSessionId() : "default";
-        ChatResponse response = chatService.processMessage(chatMessage.getMessage(), sessionId);
-        return ResponseEntity.ok(response);
+        // 异步返回：请求线程立即释放，LLM调用在虚拟线程上完成
+        return chatService.processMessageAsync(chatMessage.getMessage(), sessionId,
+                                                ClientFormState.of(chatMessage))
+            .thenApply(ResponseEntity::ok);
     }
 
     @PostMapping("/form/submit")
@@ -0,0 +1,82 @@
+package com.formdemo.controller;
+
+import com.formdemo.model.ChatMessage;
+import com.formdemo.model.ChatResponse;
+import com.formdemo.model.ClientFormState;
+import com.formdemo.service.ChatService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 流式聊天接口（Server-Sent Events）
+ * 事件类型：
+ * - token：模型输出的增量文本 {"text": "..."}
+ * - field：一个表单字段生成完毕 {"name": "...", "html": "..."}
+ * - done：最终的 ChatResponse（与 /api/chat/message 的响应一致，fill_form 时可能只含 formPatch，
+ *   schema 模式下为 schemaHash/formSchema/formValues 而不是 formHtml）
+ */
+@RestController
+@RequestMapping("/api/chat")
+@CrossOrigin(origins = "*")
+public class ChatStreamController {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatStreamController.class);
+
+    private final ChatService chatService;
+    private final ExecutorService chatExecutor;
+    private final long timeoutMillis;
+
+    public ChatStreamController(ChatService chatService, ExecutorService chatExecutor,
+                                @Value("${assistant.stream.timeout-ms:120000}") long timeoutMillis) {
+        this.chatService = chatService;
+        this.chatExecutor = chatExecutor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PostMapping(value = "/message/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(@RequestBody ChatMessage chatMessage) {
+        String sessionId = chatMessage.getSessionId() != null ? chatMessage.getSessionId() : "default";
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+
+        chatExecutor.execute(() -> {
+            try {
+                ChatResponse response = chatService.processMessageStreaming(chatMessage.getMessage(), sessionId,
+                    ClientFormState.of(chatMessage),
+                    token -> send(emitter, "token", Map.of("text", token)),
+                    (field, html) -> {
+                        Map<String, Object> data = new LinkedHashMap<>();
+                        data.put("name", field.getName());
+                        data.put("html", html);
+                        send(emitter, "field", data);
+                    });
+                send(emitter, "done", response);
+                emitter.complete();
+            } catch (UncheckedIOException e) {
+                log.debug("SSE client disconnected for session {}", sessionId);
+                emitter.completeWithError(e);
+            } catch (Exception e) {
+                log.error("Streaming chat failed for session {}", sessionId, e);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, String event, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.formdemo.controller;
+
+import com.formdemo.service.FormGeneratorService;
+import com.formdemo.service.FormTemplateRegistry;
+import com.formdemo.service.IntentClassifier;
+import com.formdemo.service.IntentResponseCache;
+import com.formdemo.service.LlmHttpMetrics;
+import com.formdemo.service.LlmUsageStats;
+import com.formdemo.service.LocalIntentService;
+import com.formdemo.service.SessionLocks;
+import com.formdemo.service.SessionStore;
+import com.formdemo.service.SlotFillingParser;
+import com.formdemo.service.UserProfileCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = "*")
+public class StatsController {
+
+    private final IntentResponseCache intentResponseCache;
+    private final IntentClassifier intentClassifier;
+    private final SessionStore sessionStore;
+    private final SessionLocks sessionLocks;
+    private final LocalIntentService localIntentService;
+    private final LlmHttpMetrics llmHttpMetrics;
+    private final LlmUsageStats llmUsageStats;
+    private final FormGeneratorService formGeneratorService;
+    private final FormTemplateRegistry formTemplateRegistry;
+    private final UserProfileCache userProfileCache;
+    private final SlotFillingParser slotFillingParser;
+
+    public StatsController(IntentResponseCache intentResponseCache, IntentClassifier intentClassifier,
+                           SessionStore sessionStore, SessionLocks sessionLocks,
+                           LocalIntentService localIntentService, LlmHttpMetrics llmHttpMetrics,
+                           LlmUsageStats llmUsageStats, FormGeneratorService formGeneratorService,
+                           FormTemplateRegistry formTemplateRegistry, UserProfileCache userProfileCache,
+                           SlotFillingParser slotFillingParser) {
+        this.intentResponseCache = intentResponseCache;
+        this.intentClassifier = intentClassifier;
+        this.sessionStore = sessionStore;
+        this.sessionLocks = sessionLocks;
+        this.localIntentService = localIntentService;
+        this.llmHttpMetrics = llmHttpMetrics;
+        this.llmUsageStats = llmUsageStats;
+        this.formGeneratorService = formGeneratorService;
+        this.formTemplateRegistry = formTemplateRegistry;
+        this.userProfileCache = userProfileCache;
+        this.slotFillingParser = slotFillingParser;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("intentCache", intentResponseCache.getStats());
+        stats.put("intentClassifier", intentClassifier.getStats());
+        stats.put("llm", localIntentService.getStats());
+        stats.put("llmHttp", llmHttpMetrics.getStats());
+        stats.put("llmUsage", llmUsageStats.getStats());
+        stats.put("formRender", formGeneratorService.getStats());
+        stats.put("formTemplates", formTemplateRegistry.getStats());
+        stats.put("userProfiles", userProfileCache.getStats());
+        stats.put("slotFilling", slotFillingParser.getStats());
+        stats.put("sessions", sessionStore.getStats());
+        stats.put("sessionLocks", sessionLocks.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,33 @@
+package com.formdemo.exception;
+
+/**
+ * OpenAI 兼容接口（DeepSeek/Groq/OpenAI/Ollama 等）调用失败
+ */
+public class LlmProviderException extends RuntimeException {
+
+    private final int statusCode;
+    private final boolean quotaExceeded;
+
+    public LlmProviderException(String message, int statusCode, boolean quotaExceeded) {
+        super(message);
+        this.statusCode = statusCode;
+        this.quotaExceeded = quotaExceeded;
+    }
+
+    public LlmProviderException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = -1;
+        this.quotaExceeded = false;
+    }
+
+    /**
+     * HTTP 状态码，网络错误时为 -1
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isQuotaExceeded() {
+        return quotaExceeded;
+    }
+}
@@ -0,0 +1,21 @@
+package com.formdemo.exception;
+
+/**
+ * LLM调用被本地限流或额度控制拒绝（尚未发送到服务商）
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    public RateLimitedException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * 建议的重试等待时间（毫秒）
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -1,8 +1,13 @@
 package com.formdemo.model;
 
+import java.util.List;
+
 public class ChatMessage {
     private String message;
     private String sessionId;
+    private Long formVersion; // 客户端当前展示的表单版本（可选），用于接收增量更新
+    private String responseMode; // 表单返回方式："html"（默认，服务端渲染）或 "schema"（返回字段结构和值，由浏览器渲染）
+    private List<String> cachedSchemaHashes; // schema 模式下浏览器已缓存的表单结构哈希，命中时不再下发结构
 
     public ChatMessage() {
     }
@@ -27,4 +32,28 @@ public class ChatMessage {
     public void setSessionId(String sessionId) {
         this.sessionId = sessionId;
     }
+
+    public Long getFormVersion() {
+        return formVersion;
+    }
+
+    public void setFormVersion(Long formVersion) {
+        this.formVersion = formVersion;
+    }
+
+    public String getResponseMode() {
+        return responseMode;
+    }
+
+    public void setResponseMode(String responseMode) {
+        this.responseMode = responseMode;
+    }
+
+    public List<String> getCachedSchemaHashes() {
+        return cachedSchemaHashes;
+    }
+
+    public void setCachedSchemaHashes(List<String> cachedSchemaHashes) {
+        this.cachedSchemaHashes = cachedSchemaHashes;
+    }
 }
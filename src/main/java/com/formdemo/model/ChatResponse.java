@@ -1,5 +1,10 @@
 package com.formdemo.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.Map;
+
 public class ChatResponse {
     private String responseText;
     private String formHtml; // HTML form if needed
@@ -7,6 +12,16 @@ public class ChatResponse {
     private String formId;
     private boolean needsClarification;
     private String intentType;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long formVersion; // 表单版本号，表单结构或字段值变化时递增
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> formPatch; // 增量模式：只包含变化的字段值（字段名 -> 新值），此时不返回 formHtml
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String schemaHash; // schema 模式：表单结构的内容哈希
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<FormField> formSchema; // schema 模式：表单结构（不含值），浏览器已缓存该哈希时省略
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, String> formValues; // schema 模式：全部字段的当前值
 
     public ChatResponse() {
     }
@@ -68,4 +83,44 @@ public class ChatResponse {
     public void setIntentType(String intentType) {
         this.intentType = intentType;
     }
+
+    public Long getFormVersion() {
+        return formVersion;
+    }
+
+    public void setFormVersion(Long formVersion) {
+        this.formVersion = formVersion;
+    }
+
+    public Map<String, String> getFormPatch() {
+        return formPatch;
+    }
+
+    public void setFormPatch(Map<String, String> formPatch) {
+        this.formPatch = formPatch;
+    }
+
+    public String getSchemaHash() {
+        return schemaHash;
+    }
+
+    public void setSchemaHash(String schemaHash) {
+        this.schemaHash = schemaHash;
+    }
+
+    public List<FormField> getFormSchema() {
+        return formSchema;
+    }
+
+    public void setFormSchema(List<FormField> formSchema) {
+        this.formSchema = formSchema;
+    }
+
+    public Map<String, String> getFormValues() {
+        return formValues;
+    }
+
+    public void setFormValues(Map<String, String> formValues) {
+        this.formValues = formValues;
+    }
 }
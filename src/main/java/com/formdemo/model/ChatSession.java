@@ -0,0 +1,132 @@
+package com.formdemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单个会话的全部状态：最近的对话历史、当前表单结构、表单数据和表单ID
+ * 表单结构是全局共享的不可变 FormSchema，会话自己只保存字段值（formData）。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ChatSession {
+    private String sessionId;
+    private String userName; // 会话开始时从首条消息识别的用户名，用于获取用户资料（可能为空）
+    private ConversationHistory history = new ConversationHistory(); // 最近若干轮对话
+    private FormSchema formSchema = FormSchema.EMPTY; // 当前表单结构（共享、不可变）
+    private Map<String, Object> formData = new HashMap<>(); // 当前表单数据（叠加在结构之上的字段值）
+    private String formId; // 当前表单ID
+    private long formVersion; // 当前表单版本，会话内单调递增（新建表单和字段值变化时递增）
+    private long createdAt;
+    private long lastAccessedAt;
+    @JsonIgnore
+    private long estimatedBytes;
+
+    public ChatSession() {
+    }
+
+    public ChatSession(String sessionId, long createdAt) {
+        this.sessionId = sessionId;
+        this.createdAt = createdAt;
+        this.lastAccessedAt = createdAt;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public ConversationHistory getHistory() {
+        return history;
+    }
+
+    public void setHistory(ConversationHistory history) {
+        this.history = history;
+    }
+
+    @JsonIgnore
+    public FormSchema getFormSchema() {
+        return formSchema;
+    }
+
+    @JsonIgnore
+    public void setFormSchema(FormSchema formSchema) {
+        this.formSchema = formSchema != null ? formSchema : FormSchema.EMPTY;
+    }
+
+    /**
+     * 当前表单字段（只读），持久化时以字段列表形式保存
+     */
+    public List<FormField> getFormFields() {
+        return formSchema.getFields();
+    }
+
+    /**
+     * 设置表单字段：驻留为共享的表单结构（从持久化存储加载时同样会去重）
+     */
+    public void setFormFields(List<FormField> formFields) {
+        this.formSchema = FormSchema.intern(formFields);
+    }
+
+    public Map<String, Object> getFormData() {
+        return formData;
+    }
+
+    public void setFormData(Map<String, Object> formData) {
+        this.formData = formData;
+    }
+
+    public String getFormId() {
+        return formId;
+    }
+
+    public void setFormId(String formId) {
+        this.formId = formId;
+    }
+
+    public long getFormVersion() {
+        return formVersion;
+    }
+
+    public void setFormVersion(long formVersion) {
+        this.formVersion = formVersion;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    public void setLastAccessedAt(long lastAccessedAt) {
+        this.lastAccessedAt = lastAccessedAt;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public void setEstimatedBytes(long estimatedBytes) {
+        this.estimatedBytes = estimatedBytes;
+    }
+}
@@ -0,0 +1,44 @@
+package com.formdemo.model;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * 客户端上报的表单状态：当前展示的表单版本、期望的表单返回方式，以及浏览器中已缓存的表单结构哈希
+ */
+public class ClientFormState {
+
+    public static final String MODE_HTML = "html";
+    public static final String MODE_SCHEMA = "schema";
+
+    public static final ClientFormState NONE = new ClientFormState(null, MODE_HTML, Set.of());
+
+    private final Long formVersion;
+    private final String responseMode;
+    private final Set<String> cachedSchemaHashes;
+
+    public ClientFormState(Long formVersion, String responseMode, Collection<String> cachedSchemaHashes) {
+        this.formVersion = formVersion;
+        this.responseMode = MODE_SCHEMA.equals(responseMode) ? MODE_SCHEMA : MODE_HTML;
+        this.cachedSchemaHashes = cachedSchemaHashes != null ? Set.copyOf(cachedSchemaHashes) : Set.of();
+    }
+
+    public static ClientFormState of(ChatMessage message) {
+        return new ClientFormState(message.getFormVersion(), message.getResponseMode(), message.getCachedSchemaHashes());
+    }
+
+    public Long getFormVersion() {
+        return formVersion;
+    }
+
+    public boolean isSchemaMode() {
+        return MODE_SCHEMA.equals(responseMode);
+    }
+
+    /**
+     * 浏览器是否已缓存该表单结构
+     */
+    public boolean hasCachedSchema(String schemaHash) {
+        return cachedSchemaHashes.contains(schemaHash);
+    }
+}
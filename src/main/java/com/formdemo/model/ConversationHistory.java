@@ -0,0 +1,96 @@
+package com.formdemo.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 有界对话历史（环形缓冲区）
+ * 只保留最近 maxTurns 轮对话，写满后覆盖最早的一轮，内存占用不会随会话变长而增长。
+ * 序列化为按时间顺序排列的对话轮次数组。
+ */
+public class ConversationHistory {
+
+    public static final int DEFAULT_MAX_TURNS = 20;
+
+    private final ConversationTurn[] turns;
+    private int next; // 下一次写入的位置
+    private int size;
+
+    public ConversationHistory() {
+        this(DEFAULT_MAX_TURNS);
+    }
+
+    public ConversationHistory(int maxTurns) {
+        if (maxTurns <= 0) {
+            throw new IllegalArgumentException("maxTurns must be positive: " + maxTurns);
+        }
+        this.turns = new ConversationTurn[maxTurns];
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static ConversationHistory of(List<ConversationTurn> turns) {
+        ConversationHistory history = new ConversationHistory();
+        if (turns != null) {
+            for (ConversationTurn turn : turns) {
+                history.add(turn);
+            }
+        }
+        return history;
+    }
+
+    public void add(String userMessage, String assistantReply) {
+        add(new ConversationTurn(userMessage, assistantReply));
+    }
+
+    public synchronized void add(ConversationTurn turn) {
+        turns[next] = turn;
+        next = (next + 1) % turns.length;
+        if (size < turns.length) {
+            size++;
+        }
+    }
+
+    /**
+     * 最近的 count 轮对话，按时间顺序（旧的在前）
+     */
+    public synchronized List<ConversationTurn> recent(int count) {
+        int n = Math.min(Math.max(count, 0), size);
+        List<ConversationTurn> result = new ArrayList<>(n);
+        int start = next - n + turns.length;
+        for (int i = 0; i < n; i++) {
+            result.add(turns[(start + i) % turns.length]);
+        }
+        return result;
+    }
+
+    /**
+     * 全部保留的对话轮次，按时间顺序
+     */
+    @JsonValue
+    public List<ConversationTurn> getTurns() {
+        return recent(turns.length);
+    }
+
+    /**
+     * 展开为消息列表：用户消息与助手回复交替排列
+     */
+    public synchronized List<String> toMessages() {
+        List<String> messages = new ArrayList<>(size * 2);
+        for (ConversationTurn turn : recent(size)) {
+            messages.add(turn.getUserMessage());
+            messages.add(turn.getAssistantReply());
+        }
+        return messages;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getMaxTurns() {
+        return turns.length;
+    }
+}
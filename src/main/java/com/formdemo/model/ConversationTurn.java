@@ -0,0 +1,36 @@
+package com.formdemo.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * 一轮对话：用户消息及助手回复
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ConversationTurn {
+    private String userMessage;
+    private String assistantReply;
+
+    public ConversationTurn() {
+    }
+
+    public ConversationTurn(String userMessage, String assistantReply) {
+        this.userMessage = userMessage;
+        this.assistantReply = assistantReply;
+    }
+
+    public String getUserMessage() {
+        return userMessage;
+    }
+
+    public void setUserMessage(String userMessage) {
+        this.userMessage = userMessage;
+    }
+
+    public String getAssistantReply() {
+        return assistantReply;
+    }
+
+    public void setAssistantReply(String assistantReply) {
+        this.assistantReply = assistantReply;
+    }
+}
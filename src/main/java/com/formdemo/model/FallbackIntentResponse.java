@@ -0,0 +1,23 @@
+package com.formdemo.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * LLM意图识别失败时回退的 chat 意图，带上回退原因（如 llm_error、parse_error），供指标按结果打标签
+ */
+public class FallbackIntentResponse extends LLMIntentResponse {
+
+    private final String reason;
+
+    public FallbackIntentResponse(String reason) {
+        this.reason = reason;
+        setIntent("chat");
+        setFormFields(new ArrayList<>());
+        setFieldUpdates(new HashMap<>());
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,201 @@
+package com.formdemo.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 不可变、全局共享的表单结构
+ * 字段（名称、标签、类型、初始值、可选项、必填、占位提示）在驻留时复制一次，之后不可修改；
+ * 结构相同的表单（例如成千上万个会话里的同一个酒店模板）共享同一个实例，
+ * 每个会话只在其上叠加一份字段值（ChatSession.formData）。
+ * 驻留池以弱引用持有结构，不再被任何会话使用的结构会被回收。
+ */
+public final class FormSchema {
+
+    public static final FormSchema EMPTY = new FormSchema(List.of(), "");
+
+    private static final Map<String, SchemaRef> POOL = new HashMap<>();
+    private static final ReferenceQueue<FormSchema> RELEASED = new ReferenceQueue<>();
+    private static final LongAdder INTERN_HITS = new LongAdder();
+    private static final LongAdder INTERN_MISSES = new LongAdder();
+
+    private final List<FormField> fields;
+    private final String key;
+
+    private FormSchema(List<FormField> fields, String key) {
+        this.fields = fields;
+        this.key = key;
+    }
+
+    /**
+     * 取得与给定字段结构相同的共享实例；池中没有时复制字段并驻留
+     */
+    public static FormSchema intern(List<FormField> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return EMPTY;
+        }
+        String key = keyOf(fields);
+        synchronized (POOL) {
+            expungeReleased();
+            SchemaRef ref = POOL.get(key);
+            FormSchema schema = ref != null ? ref.get() : null;
+            if (schema != null) {
+                INTERN_HITS.increment();
+                return schema;
+            }
+            List<FormField> frozen = new ArrayList<>(fields.size());
+            for (FormField field : fields) {
+                frozen.add(new FrozenField(field));
+            }
+            schema = new FormSchema(Collections.unmodifiableList(frozen), key);
+            POOL.put(key, new SchemaRef(schema, key));
+            INTERN_MISSES.increment();
+            return schema;
+        }
+    }
+
+    /**
+     * 字段的当前值：会话的字段值中有该字段时使用它，否则为字段的初始值
+     */
+    public static String valueOf(FormField field, Map<String, Object> values) {
+        if (values != null && values.containsKey(field.getName())) {
+            Object value = values.get(field.getName());
+            return value != null ? value.toString() : "";
+        }
+        return field.getDefaultValue();
+    }
+
+    /**
+     * 只读的字段列表；同一结构始终返回同一个列表实例
+     */
+    public List<FormField> getFields() {
+        return fields;
+    }
+
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    public int size() {
+        return fields.size();
+    }
+
+    /**
+     * 驻留池统计：当前驻留的结构数及命中情况
+     */
+    public static Map<String, Object> poolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (POOL) {
+            expungeReleased();
+            stats.put("interned", POOL.size());
+        }
+        stats.put("internHits", INTERN_HITS.sum());
+        stats.put("internMisses", INTERN_MISSES.sum());
+        return stats;
+    }
+
+    private static void expungeReleased() {
+        SchemaRef released;
+        while ((released = (SchemaRef) RELEASED.poll()) != null) {
+            // 同一键可能已被新实例替换，只移除已回收的那一个
+            if (POOL.get(released.key) == released) {
+                POOL.remove(released.key);
+            }
+        }
+    }
+
+    private static String keyOf(List<FormField> fields) {
+        StringBuilder key = new StringBuilder(fields.size() * 64);
+        for (FormField field : fields) {
+            key.append(field.getName()).append('\u0001').append(field.getLabel()).append('\u0001')
+               .append(field.getType()).append('\u0001').append(field.getDefaultValue()).append('\u0001')
+               .append(field.isRequired()).append('\u0001').append(field.getPlaceholder()).append('\u0001');
+            if (field.getOptions() != null) {
+                for (String option : field.getOptions()) {
+                    key.append(option).append('\u0002');
+                }
+            } else {
+                key.append('\u0004');
+            }
+            key.append('\u0003');
+        }
+        return key.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof FormSchema && ((FormSchema) other).key.equals(key));
+    }
+
+    @Override
+    public int hashCode() {
+        return key.hashCode();
+    }
+
+    private static final class SchemaRef extends WeakReference<FormSchema> {
+        private final String key;
+
+        private SchemaRef(FormSchema schema, String key) {
+            super(schema, RELEASED);
+            this.key = key;
+        }
+    }
+
+    /**
+     * 驻留后的字段：内容在构造时复制，所有修改操作都会抛出 UnsupportedOperationException
+     */
+    private static final class FrozenField extends FormField {
+
+        private FrozenField(FormField source) {
+            super(source.getName(), source.getLabel(), source.getType(), source.getDefaultValue(),
+                  source.getOptions() != null ? Collections.unmodifiableList(new ArrayList<>(source.getOptions())) : null,
+                  source.isRequired(), source.getPlaceholder());
+        }
+
+        @Override
+        public void setName(String name) {
+            throw immutable();
+        }
+
+        @Override
+        public void setLabel(String label) {
+            throw immutable();
+        }
+
+        @Override
+        public void setType(String type) {
+            throw immutable();
+        }
+
+        @Override
+        public void setDefaultValue(String defaultValue) {
+            throw immutable();
+        }
+
+        @Override
+        public void setOptions(List<String> options) {
+            throw immutable();
+        }
+
+        @Override
+        public void setRequired(boolean required) {
+            throw immutable();
+        }
+
+        @Override
+        public void setPlaceholder(String placeholder) {
+            throw immutable();
+        }
+
+        private static UnsupportedOperationException immutable() {
+            return new UnsupportedOperationException("共享的表单结构不可修改");
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.formdemo.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
 public class OpenAIRequest {
     private String model;
     private List<Message> messages;
     private double temperature = 0.7;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stream; // true 时以 SSE 流式返回
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("stream_options")
+    private StreamOptions streamOptions; // 流式返回时在最后一个数据块附带 token 用量
 
     public OpenAIRequest() {
     }
@@ -40,6 +48,42 @@ public class OpenAIRequest {
         this.temperature = temperature;
     }
 
+    public Boolean getStream() {
+        return stream;
+    }
+
+    public void setStream(Boolean stream) {
+        this.stream = stream;
+    }
+
+    public StreamOptions getStreamOptions() {
+        return streamOptions;
+    }
+
+    public void setStreamOptions(StreamOptions streamOptions) {
+        this.streamOptions = streamOptions;
+    }
+
+    public static class StreamOptions {
+        @JsonProperty("include_usage")
+        private boolean includeUsage;
+
+        public StreamOptions() {
+        }
+
+        public StreamOptions(boolean includeUsage) {
+            this.includeUsage = includeUsage;
+        }
+
+        public boolean isIncludeUsage() {
+            return includeUsage;
+        }
+
+        public void setIncludeUsage(boolean includeUsage) {
+            this.includeUsage = includeUsage;
+        }
+    }
+
     public static class Message {
         private String role;
         private String content;
@@ -1,6 +1,8 @@
 package com.formdemo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -10,6 +12,7 @@ public class OpenAIResponse {
     private long created;
     private String model;
     private List<Choice> choices;
+    private Usage usage; // token 用量（流式返回时只在最后一个数据块中出现）
 
     public OpenAIResponse() {
     }
@@ -62,6 +65,14 @@ public class OpenAIResponse {
         this.choices = choices;
     }
 
+    public Usage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(Usage usage) {
+        this.usage = usage;
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Choice {
         private int index;
@@ -131,4 +142,100 @@ public class OpenAIResponse {
             this.content = content;
         }
     }
+
+    /**
+     * token 用量，包括服务商提示词缓存命中的 token 数：
+     * OpenAI 为 prompt_tokens_details.cached_tokens，DeepSeek 为 prompt_cache_hit_tokens
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Usage {
+        @JsonProperty("prompt_tokens")
+        private long promptTokens;
+        @JsonProperty("completion_tokens")
+        private long completionTokens;
+        @JsonProperty("total_tokens")
+        private long totalTokens;
+        @JsonProperty("prompt_tokens_details")
+        private PromptTokensDetails promptTokensDetails;
+        @JsonProperty("prompt_cache_hit_tokens")
+        private Long promptCacheHitTokens;
+        @JsonProperty("prompt_cache_miss_tokens")
+        private Long promptCacheMissTokens;
+
+        public Usage() {
+        }
+
+        public long getPromptTokens() {
+            return promptTokens;
+        }
+
+        public void setPromptTokens(long promptTokens) {
+            this.promptTokens = promptTokens;
+        }
+
+        public long getCompletionTokens() {
+            return completionTokens;
+        }
+
+        public void setCompletionTokens(long completionTokens) {
+            this.completionTokens = completionTokens;
+        }
+
+        public long getTotalTokens() {
+            return totalTokens;
+        }
+
+        public void setTotalTokens(long totalTokens) {
+            this.totalTokens = totalTokens;
+        }
+
+        public PromptTokensDetails getPromptTokensDetails() {
+            return promptTokensDetails;
+        }
+
+        public void setPromptTokensDetails(PromptTokensDetails promptTokensDetails) {
+            this.promptTokensDetails = promptTokensDetails;
+        }
+
+        public Long getPromptCacheHitTokens() {
+            return promptCacheHitTokens;
+        }
+
+        public void setPromptCacheHitTokens(Long promptCacheHitTokens) {
+            this.promptCacheHitTokens = promptCacheHitTokens;
+        }
+
+        public Long getPromptCacheMissTokens() {
+            return promptCacheMissTokens;
+        }
+
+        public void setPromptCacheMissTokens(Long promptCacheMissTokens) {
+            this.promptCacheMissTokens = promptCacheMissTokens;
+        }
+
+        /**
+         * 命中服务商提示词缓存的 token 数（兼容 OpenAI 与 DeepSeek 的字段）
+         */
+        @JsonIgnore
+        public long getCachedTokens() {
+            if (promptTokensDetails != null && promptTokensDetails.getCachedTokens() != null) {
+                return promptTokensDetails.getCachedTokens();
+            }
+            return promptCacheHitTokens != null ? promptCacheHitTokens : 0;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class PromptTokensDetails {
+        @JsonProperty("cached_tokens")
+        private Long cachedTokens;
+
+        public Long getCachedTokens() {
+            return cachedTokens;
+        }
+
+        public void setCachedTokens(Long cachedTokens) {
+            this.cachedTokens = cachedTokens;
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 业务意图关键词匹配器
+ * 关键词词典从配置的资源文件（默认 classpath:business-keywords.json）加载并编译为 KeywordAutomaton，
+ * 通过原子引用整体替换，可在运行时重新加载而无需重启，正在进行的匹配不受影响。
+ * 纯ASCII的英文关键词（如 hotel、leave）常出现在与业务无关的英文句子里，另外编译一份不含它们的自动机，
+ * 供本地直接判定意图时使用。
+ */
+@Service
+public class BusinessKeywordMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessKeywordMatcher.class);
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicReference<Dictionary> dictionary = new AtomicReference<>();
+
+    public BusinessKeywordMatcher(ResourceLoader resourceLoader,
+                                  @Value("${assistant.keywords.location:classpath:business-keywords.json}") String location) {
+        this.resourceLoader = resourceLoader;
+        this.location = location;
+        reload();
+    }
+
+    /**
+     * 返回消息中命中的业务类型
+     */
+    public Set<String> match(String message) {
+        return dictionary.get().all().findCategories(message);
+    }
+
+    /**
+     * 返回消息中由含非ASCII字符的关键词（如"订酒店"）命中的业务类型，只命中英文关键词的类型不包括在内
+     */
+    public Set<String> matchConfident(String message) {
+        return dictionary.get().confident().findCategories(message);
+    }
+
+    /**
+     * 从配置的资源文件重新加载词典；加载失败时保留当前词典并抛出异常
+     */
+    public KeywordAutomaton reload() {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            Map<String, List<String>> dictionary = objectMapper.readValue(in, new TypeReference<LinkedHashMap<String, List<String>>>() {});
+            KeywordAutomaton compiled = replace(dictionary);
+            log.info("Loaded business keywords from {}: {} categories, {} keywords",
+                     location, compiled.getCategories().size(), compiled.getKeywordCount());
+            return compiled;
+        } catch (IOException e) {
+            throw new IllegalStateException("加载关键词词典失败: " + location, e);
+        }
+    }
+
+    /**
+     * 编译并原子替换当前词典
+     */
+    public KeywordAutomaton replace(Map<String, List<String>> dictionary) {
+        KeywordAutomaton compiled = KeywordAutomaton.compile(dictionary);
+        Map<String, List<String>> confident = new LinkedHashMap<>();
+        dictionary.forEach((category, keywords) -> confident.put(category, keywords == null ? List.of()
+            : keywords.stream().filter(keyword -> keyword != null && !isAscii(keyword)).toList()));
+        this.dictionary.set(new Dictionary(compiled, KeywordAutomaton.compile(confident)));
+        return compiled;
+    }
+
+    public KeywordAutomaton getAutomaton() {
+        return dictionary.get().all();
+    }
+
+    private static boolean isAscii(String keyword) {
+        return keyword.chars().allMatch(c -> c < 128);
+    }
+
+    /**
+     * 同一版本词典的两份自动机，一起替换
+     */
+    private record Dictionary(KeywordAutomaton all, KeywordAutomaton confident) {
+    }
+}
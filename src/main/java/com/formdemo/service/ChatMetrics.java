@@ -0,0 +1,122 @@
+package com.formdemo.service;
+
+import com.formdemo.exception.LlmProviderException;
+import com.formdemo.exception.OpenAIException;
+import com.formdemo.exception.RateLimitedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天处理流水线的 Micrometer 指标（通过 Actuator 的 /actuator/prometheus 暴露）
+ * chat.message：整轮消息处理耗时，按意图（intent）和结果（outcome）打标签；
+ * chat.stage：各阶段耗时（本地分类、槽位解析、模板、提示词构建、LLM调用、JSON解析、业务校验、渲染、持久化），
+ * 额外按阶段（stage）打标签；chat.fallback：回退为 chat 意图的次数，按原因（reason）打标签。
+ * 标签取值都来自下面的常量和固定的意图名（模型返回的其他意图名归为 other），基数固定，可直接用于延迟SLO面板和告警。
+ */
+@Service
+public class ChatMetrics {
+
+    public static final String STAGE_CLASSIFY = "classify";
+    public static final String STAGE_SLOT_FILLING = "slot_filling";
+    public static final String STAGE_TEMPLATE = "template";
+    public static final String STAGE_PROMPT_BUILD = "prompt_build";
+    public static final String STAGE_LLM_CALL = "llm_call";
+    public static final String STAGE_PARSE = "parse";
+    public static final String STAGE_VALIDATE = "validate";
+    public static final String STAGE_RENDER = "render";
+    public static final String STAGE_PERSIST = "persist";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_CACHED = "cached";
+    public static final String OUTCOME_NOT_CONFIDENT = "not_confident";
+    public static final String OUTCOME_FALLBACK_CHAT = "fallback_chat";
+    public static final String OUTCOME_PARSE_ERROR = "parse_error";
+    public static final String OUTCOME_QUOTA_EXCEEDED = "quota_exceeded";
+    public static final String OUTCOME_RATE_LIMITED = "rate_limited";
+    public static final String OUTCOME_LLM_ERROR = "llm_error";
+    public static final String OUTCOME_ERROR = "error";
+
+    /**
+     * 意图尚未确定（如LLM调用失败）时使用的意图标签
+     */
+    public static final String INTENT_NONE = "none";
+
+    /**
+     * 不属于 chat / create_form / fill_form 的意图（模型输出了未知的意图名）使用的意图标签
+     */
+    public static final String INTENT_OTHER = "other";
+
+    private static final Set<String> KNOWN_INTENTS = Set.of("chat", "create_form", "fill_form");
+
+    private final MeterRegistry registry;
+
+    public ChatMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 记录整轮消息处理耗时
+     */
+    public void recordMessage(String intent, String outcome, long startNanos) {
+        Timer.builder("chat.message")
+            .description("Chat message processing time")
+            .tags("intent", intentTag(intent), "outcome", outcome)
+            .register(registry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录单个阶段的耗时（从 startNanos 到现在）
+     */
+    public void recordStage(String stage, String intent, String outcome, long startNanos) {
+        recordStageNanos(stage, intent, outcome, System.nanoTime() - startNanos);
+    }
+
+    public void recordStageNanos(String stage, String intent, String outcome, long nanos) {
+        Timer.builder("chat.stage")
+            .description("Chat pipeline stage time")
+            .tags("stage", stage, "intent", intentTag(intent), "outcome", outcome)
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次回退为 chat 意图
+     * @param reason 回退原因，如 llm_error、parse_error、invalid_business_intent
+     */
+    public void recordFallback(String reason) {
+        Counter.builder("chat.fallback")
+            .description("Intent recognitions that fell back to chat")
+            .tags("reason", reason)
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * LLM调用异常对应的结果标签
+     */
+    public static String outcomeOf(Throwable error) {
+        if (error instanceof RateLimitedException) {
+            return OUTCOME_RATE_LIMITED;
+        }
+        if (error instanceof OpenAIException) {
+            return ((OpenAIException) error).isQuotaExceeded() ? OUTCOME_QUOTA_EXCEEDED : OUTCOME_LLM_ERROR;
+        }
+        if (error instanceof LlmProviderException) {
+            return ((LlmProviderException) error).isQuotaExceeded() ? OUTCOME_QUOTA_EXCEEDED : OUTCOME_LLM_ERROR;
+        }
+        return OUTCOME_ERROR;
+    }
+
+    static String intentTag(String intent) {
+        if (intent == null || intent.isEmpty()) {
+            return INTENT_NONE;
+        }
+        return KNOWN_INTENTS.contains(intent) ? intent : INTENT_OTHER;
+    }
+}
@@ -1,14 +1,19 @@
 package com.formdemo.service;
 
+import com.formdemo.exception.LlmProviderException;
 import com.formdemo.exception.OpenAIException;
+import com.formdemo.exception.RateLimitedException;
 import com.formdemo.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Service
 public class ChatService {
@@ -17,46 +22,122 @@ public class ChatService {
 
     private final LocalIntentService localIntentService;
     private final FormGeneratorService formGeneratorService;
+    private final IntentClassifier intentClassifier;
+    private final FormTemplateRegistry formTemplateRegistry;
+    private final SlotFillingParser slotFillingParser;
+    private final UserInfoService userInfoService;
+    private final UserProfileCache userProfileCache;
+    private final ChatMetrics chatMetrics;
+    private final ExecutorService chatExecutor;
     
     // 存储每个会话的对话历史和表单状态
-    private final Map<String, List<String>> conversationHistory = new ConcurrentHashMap<>();
-    private final Map<String, List<FormField>> sessionFormFields = new ConcurrentHashMap<>(); // 当前表单字段
-    private final Map<String, Map<String, Object>> sessionFormData = new ConcurrentHashMap<>(); // 当前表单数据
-    private final Map<String, String> sessionFormId = new ConcurrentHashMap<>(); // 当前表单ID
+    private final SessionStore sessionStore;
+    // 同一会话的消息串行处理，避免并发修改会话状态
+    private final SessionLocks sessionLocks;
 
-    public ChatService(LocalIntentService localIntentService, FormGeneratorService formGeneratorService) {
+    public ChatService(LocalIntentService localIntentService, FormGeneratorService formGeneratorService,
+                       IntentClassifier intentClassifier, FormTemplateRegistry formTemplateRegistry,
+                       SlotFillingParser slotFillingParser, UserInfoService userInfoService, UserProfileCache userProfileCache,
+                       ChatMetrics chatMetrics, SessionStore sessionStore, SessionLocks sessionLocks,
+                       ExecutorService chatExecutor) {
         this.localIntentService = localIntentService;
         this.formGeneratorService = formGeneratorService;
+        this.intentClassifier = intentClassifier;
+        this.formTemplateRegistry = formTemplateRegistry;
+        this.slotFillingParser = slotFillingParser;
+        this.userInfoService = userInfoService;
+        this.userProfileCache = userProfileCache;
+        this.chatMetrics = chatMetrics;
+        this.sessionStore = sessionStore;
+        this.sessionLocks = sessionLocks;
+        this.chatExecutor = chatExecutor;
     }
 
     /**
      * 处理用户消息
      */
     public ChatResponse processMessage(String message, String sessionId) {
-        // 初始化会话历史
-        if (!conversationHistory.containsKey(sessionId)) {
-            conversationHistory.put(sessionId, new ArrayList<>());
-        }
+        return processMessage(message, sessionId, ClientFormState.NONE);
+    }
+
+    /**
+     * 处理用户消息
+     * @param clientForm 客户端的表单状态：版本与服务端一致时 fill_form 只返回变化的字段值；
+     *                   schema 模式下返回表单结构和值而不是HTML
+     */
+    public ChatResponse processMessage(String message, String sessionId, ClientFormState clientForm) {
+        return sessionLocks.execute(sessionId, () -> process(message, sessionId, clientForm, null, null));
+    }
+
+    /**
+     * 异步处理用户消息：在虚拟线程上执行，调用方（控制器）不会阻塞等待LLM
+     */
+    public CompletableFuture<ChatResponse> processMessageAsync(String message, String sessionId) {
+        return processMessageAsync(message, sessionId, ClientFormState.NONE);
+    }
+
+    public CompletableFuture<ChatResponse> processMessageAsync(String message, String sessionId, ClientFormState clientForm) {
+        return CompletableFuture.supplyAsync(() -> processMessage(message, sessionId, clientForm), chatExecutor);
+    }
+
+    /**
+     * 以流式方式处理用户消息
+     * @param clientForm 客户端的表单状态
+     * @param onToken 模型输出的增量文本回调
+     * @param onFormField 表单字段生成后的回调（字段及其HTML），在整体结果返回前推送
+     */
+    public ChatResponse processMessageStreaming(String message, String sessionId, ClientFormState clientForm,
+                                                Consumer<String> onToken, BiConsumer<FormField, String> onFormField) {
+        return sessionLocks.execute(sessionId, () -> process(message, sessionId, clientForm, onToken, onFormField));
+    }
+
+    /**
+     * 处理一条消息，调用方必须持有该会话的锁
+     */
+    private ChatResponse process(String message, String sessionId, ClientFormState clientForm,
+                                 Consumer<String> onToken, BiConsumer<FormField, String> onFormField) {
+        long start = System.nanoTime();
+        String outcome = ChatMetrics.OUTCOME_SUCCESS;
         
-        List<String> history = conversationHistory.get(sessionId);
-        history.add(message);
+        // 获取或创建会话
+        ChatSession session = sessionStore.getOrCreate(sessionId);
+        
+        // 会话开始时识别用户；用户资料在后台预取，与意图识别（LLM调用）并行。未识别出用户时不预取、不预填
+        if (session.getHistory().size() == 0 && session.getUserName() == null) {
+            session.setUserName(userInfoService.extractName(message));
+        }
+        CompletableFuture<UserInfo> profile = session.getUserName() != null
+            ? userProfileCache.prefetch(session.getUserName()) : null;
         
         ChatResponse response = new ChatResponse();
         
         try {
-            // 获取当前表单字段
-            List<FormField> currentFormFields = sessionFormFields.getOrDefault(sessionId, new ArrayList<>());
+            // 获取当前表单字段（共享的只读结构）
+            List<FormField> currentFormFields = session.getFormFields();
             
-            // 使用LLM识别意图
-            LLMIntentResponse llmIntent = localIntentService.recognizeIntentWithLLM(message, currentFormFields);
+            // 识别意图（明确的意图在本地判定，其余交给LLM）
+            LLMIntentResponse llmIntent = recognizeIntent(message, sessionId, currentFormFields, session.getFormData(),
+                                                          session.getHistory(), onToken, onFormField);
             
             String intent = llmIntent.getIntent();
+            if (llmIntent instanceof FallbackIntentResponse fallback) {
+                // LLM调用或解析失败，已回退为闲聊
+                outcome = fallback.getReason();
+            }
             
             // 验证意图：如果LLM识别为create_form，但用户消息不包含明确的业务意图，则强制改为chat
-            if ("create_form".equals(intent) && !isValidBusinessIntent(message)) {
-                intent = "chat";
-                llmIntent.setIntent("chat");
-                llmIntent.setFormFields(new ArrayList<>());
+            if ("create_form".equals(intent)) {
+                long validateStart = System.nanoTime();
+                boolean valid = isValidBusinessIntent(message);
+                chatMetrics.recordStage(ChatMetrics.STAGE_VALIDATE, intent,
+                                        valid ? ChatMetrics.OUTCOME_SUCCESS : ChatMetrics.OUTCOME_FALLBACK_CHAT, validateStart);
+                if (!valid) {
+                    chatMetrics.recordFallback("invalid_business_intent");
+                    outcome = ChatMetrics.OUTCOME_FALLBACK_CHAT;
+                    intent = "chat";
+                    llmIntent.setIntent("chat");
+                    llmIntent.setFormFields(new ArrayList<>());
+                }
             }
             
             // 根据意图类型处理
@@ -64,21 +145,28 @@ public class ChatService {
                 // 创建或更新表单
                 List<FormField> newFormFields = llmIntent.getFormFields();
                 if (newFormFields != null && !newFormFields.isEmpty()) {
-                    // 保存表单字段
-                    sessionFormFields.put(sessionId, new ArrayList<>(newFormFields));
-                    sessionFormData.put(sessionId, new HashMap<>());
+                    // 保存表单结构（驻留为共享实例，结构相同的会话共用）
+                    session.setFormSchema(FormSchema.intern(newFormFields));
+                    session.setFormData(initialValues(session.getFormFields(), llmIntent.getFieldUpdates()));
+                    if (profile != null) {
+                        prefillProfile(session.getFormFields(), session.getFormData(), userProfileCache.awaitPrefetched(profile));
+                    }
                     
                     // 生成新的表单ID（创建新表单时）
                     String formId = UUID.randomUUID().toString();
-                    sessionFormId.put(sessionId, formId);
+                    session.setFormId(formId);
+                    // 表单结构变化：版本号递增，始终下发完整HTML
+                    session.setFormVersion(session.getFormVersion() + 1);
                     
-                    // 生成表单HTML
-                    String formHtml = formGeneratorService.generateFormHtmlFromFields(newFormFields, sessionFormData.get(sessionId));
+                    // 生成表单（使用会话中保存的字段列表，后续 fill_form 可复用同一渲染计划）
+                    long renderStart = System.nanoTime();
+                    attachForm(response, session.getFormFields(), session.getFormData(), clientForm);
+                    chatMetrics.recordStage(ChatMetrics.STAGE_RENDER, intent, ChatMetrics.OUTCOME_SUCCESS, renderStart);
                     
                     response.setResponseText("好的，我已经为您创建了表单，请填写以下信息：");
-                    response.setFormHtml(formHtml);
                     response.setHasForm(true);
                     response.setFormId(formId);
+                    response.setFormVersion(session.getFormVersion());
                     response.setIntentType("create_form");
                     response.setNeedsClarification(false);
                 } else {
@@ -92,25 +180,34 @@ public class ChatService {
                 // 填写表单
                 Map<String, Object> fieldUpdates = llmIntent.getFieldUpdates();
                 if (fieldUpdates != null && !fieldUpdates.isEmpty() && !currentFormFields.isEmpty()) {
-                    // 更新表单数据
-                    Map<String, Object> formData = sessionFormData.getOrDefault(sessionId, new HashMap<>());
+                    // 更新表单数据（表单结构不变），值有变化时版本号递增
+                    Map<String, Object> formData = session.getFormData();
+                    long previousVersion = session.getFormVersion();
+                    Map<String, String> changedValues = changedFieldValues(currentFormFields, formData, fieldUpdates);
                     formData.putAll(fieldUpdates);
-                    sessionFormData.put(sessionId, formData);
-                    
-                    // 更新表单字段的默认值
-                    updateFormFieldsWithData(currentFormFields, fieldUpdates);
+                    if (!changedValues.isEmpty()) {
+                        session.setFormVersion(previousVersion + 1);
+                    }
                     
                     // 获取或创建表单ID（填写表单时保留现有ID）
-                    String formId = sessionFormId.getOrDefault(sessionId, UUID.randomUUID().toString());
-                    sessionFormId.put(sessionId, formId);
+                    String formId = session.getFormId() != null ? session.getFormId() : UUID.randomUUID().toString();
+                    session.setFormId(formId);
                     
-                    // 重新生成表单HTML（带更新后的数据）
-                    String formHtml = formGeneratorService.generateFormHtmlFromFields(currentFormFields, formData);
+                    long renderStart = System.nanoTime();
+                    Long clientFormVersion = clientForm.getFormVersion();
+                    if (clientFormVersion != null && clientFormVersion == previousVersion) {
+                        // 客户端持有更新前的版本：只下发变化的字段值
+                        response.setFormPatch(changedValues);
+                    } else {
+                        // 客户端未上报版本或版本已过期：下发完整表单（带更新后的数据）
+                        attachForm(response, currentFormFields, formData, clientForm);
+                    }
+                    chatMetrics.recordStage(ChatMetrics.STAGE_RENDER, intent, ChatMetrics.OUTCOME_SUCCESS, renderStart);
                     
                     response.setResponseText("好的，我已经更新了表单数据。");
-                    response.setFormHtml(formHtml);
                     response.setHasForm(true);
                     response.setFormId(formId);
+                    response.setFormVersion(session.getFormVersion());
                     response.setIntentType("fill_form");
                     response.setNeedsClarification(false);
                 } else if (currentFormFields.isEmpty()) {
@@ -138,38 +235,23 @@ public class ChatService {
                 response.setNeedsClarification(false);
             }
             
-        } catch (OpenAIException e) {
-            log.error("OpenAI API error in ChatService: {}", e.getMessage(), e);
-            // 处理配额不足错误
-            if (e.isQuotaExceeded()) {
-                response.setResponseText("抱歉，OpenAI API 配额已用完，无法继续使用 AI 功能。\n\n" +
-                    "解决方案：\n" +
-                    "1. 请检查您的 OpenAI 账户配额和账单信息\n" +
-                    "2. 访问 OpenAI 平台查看配额详情：https://platform.openai.com/account/billing\n" +
-                    "3. 如果配额已用完，请充值或升级您的账户\n\n" +
-                    "系统将暂时无法识别您的意图，但您仍可以使用其他功能。");
-            } else {
-                String errorMsg = e.getMessage() != null ? e.getMessage() : "未知错误";
-                
-                // 如果是连接错误，完整显示诊断信息（这些信息对用户很有用）
-                if (errorMsg.contains("无法连接到") || errorMsg.contains("Failed to connect") || 
-                    errorMsg.contains("Connection refused") || errorMsg.contains("❌")) {
-                    // 连接错误的诊断信息应该完整显示
-                    response.setResponseText(errorMsg);
-                } else {
-                    // 其他错误简化显示
-                    if (errorMsg.contains("network") || errorMsg.contains("网络")) {
-                        errorMsg = "网络连接错误，请检查您的网络连接";
-                    } else if (errorMsg.length() > 200) {
-                        errorMsg = errorMsg.substring(0, 200) + "...";
-                    }
-                    response.setResponseText("抱歉，调用 AI 服务时发生错误：\n\n" + errorMsg);
-                }
-            }
+        } catch (RateLimitedException e) {
+            outcome = ChatMetrics.OUTCOME_RATE_LIMITED;
+            log.warn("LLM call throttled for session {}: {}", sessionId, e.getMessage());
+            response.setResponseText(e.getMessage());
             response.setHasForm(false);
             response.setIntentType("chat");
             response.setNeedsClarification(true);
+        } catch (OpenAIException e) {
+            outcome = ChatMetrics.outcomeOf(e);
+            log.error("OpenAI API error in ChatService: {}", e.getMessage(), e);
+            applyLlmError(response, e.isQuotaExceeded(), e.getMessage());
+        } catch (LlmProviderException e) {
+            outcome = ChatMetrics.outcomeOf(e);
+            log.error("LLM provider error in ChatService: {}", e.getMessage(), e);
+            applyLlmError(response, e.isQuotaExceeded(), e.getMessage());
         } catch (Exception e) {
+            outcome = ChatMetrics.OUTCOME_ERROR;
             log.error("Unexpected error processing message", e);
             response.setResponseText("抱歉，处理您的请求时发生错误，请稍后再试。");
             response.setHasForm(false);
@@ -177,83 +259,215 @@ public class ChatService {
             response.setNeedsClarification(true);
         }
         
-        history.add(response.getResponseText());
+        long persistStart = System.nanoTime();
+        session.getHistory().add(message, response.getResponseText());
+        sessionStore.update(session);
+        chatMetrics.recordStage(ChatMetrics.STAGE_PERSIST, response.getIntentType(), ChatMetrics.OUTCOME_SUCCESS, persistStart);
+        
+        chatMetrics.recordMessage(response.getIntentType(), outcome, start);
         return response;
     }
 
     /**
-     * 验证是否为有效的业务意图
-     * 只支持：订酒店、定机票、请假、报销发票
+     * 把完整表单放入响应：默认为服务端渲染的HTML；schema 模式下为结构哈希、结构（浏览器未缓存时）和字段值
      */
-    private boolean isValidBusinessIntent(String message) {
-        if (message == null || message.trim().isEmpty()) {
-            return false;
+    private void attachForm(ChatResponse response, List<FormField> fields, Map<String, Object> formData,
+                            ClientFormState clientForm) {
+        if (!clientForm.isSchemaMode()) {
+            response.setFormHtml(formGeneratorService.generateFormHtmlFromFields(fields, formData));
+            return;
         }
-        
-        String normalizedMessage = message.trim();
-        String lowerMessage = normalizedMessage.toLowerCase();
-        
-        // 支持的业务意图关键词
-        String[] hotelKeywords = {"订酒店", "预订酒店", "酒店预订", "定酒店", "订房", "预订房间", "hotel", "book hotel"};
-        String[] flightKeywords = {"定机票", "订机票", "预订机票", "机票预订", "买机票", "购票", "flight", "book flight", "book ticket", "airline"};
-        String[] leaveKeywords = {"请假", "申请请假", "请假申请", "请年假", "请病假", "申请休假", "leave", "apply leave", "vacation"};
-        String[] expenseKeywords = {"报销", "报销发票", "发票报销", "报销申请", "申请报销", "费用报销", "expense", "reimbursement"};
-        
-        // 检查是否包含业务意图关键词
-        for (String keyword : hotelKeywords) {
-            if (normalizedMessage.contains(keyword) || lowerMessage.contains(keyword.toLowerCase())) {
-                return true;
+        FormRenderPlan plan = formGeneratorService.planFor(fields);
+        response.setSchemaHash(plan.getSchemaHash());
+        if (!clientForm.hasCachedSchema(plan.getSchemaHash())) {
+            response.setFormSchema(plan.getSchema());
+        }
+        response.setFormValues(plan.values(fields, formData));
+    }
+
+    /**
+     * 设置LLM调用失败时的响应内容
+     */
+    private void applyLlmError(ChatResponse response, boolean quotaExceeded, String message) {
+        // 处理配额不足错误
+        if (quotaExceeded) {
+            response.setResponseText("抱歉，OpenAI API 配额已用完，无法继续使用 AI 功能。\n\n" +
+                "解决方案：\n" +
+                "1. 请检查您的 OpenAI 账户配额和账单信息\n" +
+                "2. 访问 OpenAI 平台查看配额详情：https://platform.openai.com/account/billing\n" +
+                "3. 如果配额已用完，请充值或升级您的账户\n\n" +
+                "系统将暂时无法识别您的意图，但您仍可以使用其他功能。");
+        } else {
+            String errorMsg = message != null ? message : "未知错误";
+            
+            // 如果是连接错误，完整显示诊断信息（这些信息对用户很有用）
+            if (errorMsg.contains("无法连接到") || errorMsg.contains("Failed to connect") || 
+                errorMsg.contains("Connection refused") || errorMsg.contains("❌")) {
+                // 连接错误的诊断信息应该完整显示
+                response.setResponseText(errorMsg);
+            } else {
+                // 其他错误简化显示
+                if (errorMsg.contains("network") || errorMsg.contains("网络")) {
+                    errorMsg = "网络连接错误，请检查您的网络连接";
+                } else if (errorMsg.length() > 200) {
+                    errorMsg = errorMsg.substring(0, 200) + "...";
+                }
+                response.setResponseText("抱歉，调用 AI 服务时发生错误：\n\n" + errorMsg);
             }
         }
+        response.setHasForm(false);
+        response.setIntentType("chat");
+        response.setNeedsClarification(true);
+    }
+
+    /**
+     * 识别意图：先经过本地规则分类和填写指令解析，只有意图不明确时才调用LLM
+     * 提供流式回调时以流式方式调用LLM
+     */
+    private LLMIntentResponse recognizeIntent(String message, String sessionId, List<FormField> currentFormFields,
+                                              Map<String, Object> formValues, ConversationHistory history,
+                                              Consumer<String> onToken, BiConsumer<FormField, String> onFormField) {
+        long classifyStart = System.nanoTime();
+        IntentClassifier.Classification classification = intentClassifier.classify(message, !currentFormFields.isEmpty());
+        chatMetrics.recordStage(ChatMetrics.STAGE_CLASSIFY, classification.getIntent(),
+                                classification.isResolved() ? ChatMetrics.OUTCOME_SUCCESS : ChatMetrics.OUTCOME_NOT_CONFIDENT,
+                                classifyStart);
         
-        for (String keyword : flightKeywords) {
-            if (normalizedMessage.contains(keyword) || lowerMessage.contains(keyword.toLowerCase())) {
-                return true;
+        if (classification.isResolved()) {
+            if ("chat".equals(classification.getIntent())) {
+                LLMIntentResponse local = new LLMIntentResponse();
+                local.setIntent("chat");
+                local.setFormFields(new ArrayList<>());
+                local.setFieldUpdates(new HashMap<>());
+                return local;
+            }
+            
+            // create_form：有模板时直接使用模板结构，LLM只用于提取消息中提到的字段值
+            long templateStart = System.nanoTime();
+            FormSchema template = formTemplateRegistry.find(classification.getBusinessType());
+            if (template != null) {
+                boolean extract = intentClassifier.mentionsValues(message);
+                LLMIntentResponse local = new LLMIntentResponse();
+                local.setIntent("create_form");
+                local.setFormFields(template.getFields());
+                local.setFieldUpdates(extract
+                    ? localIntentService.extractFieldValues(message, template.getFields(), sessionId)
+                    : new HashMap<>());
+                formTemplateRegistry.recordServed(extract);
+                chatMetrics.recordStage(ChatMetrics.STAGE_TEMPLATE, "create_form", ChatMetrics.OUTCOME_SUCCESS, templateStart);
+                return local;
             }
         }
         
-        for (String keyword : leaveKeywords) {
-            if (normalizedMessage.contains(keyword) || lowerMessage.contains(keyword.toLowerCase())) {
-                return true;
+        // fill_form：简单的填写指令在本地解析出字段值，解析不确定时才交给LLM
+        if (!currentFormFields.isEmpty() && !intentClassifier.isBusinessIntent(message)) {
+            long parseStart = System.nanoTime();
+            Map<String, Object> fieldUpdates = slotFillingParser.parse(message, currentFormFields);
+            chatMetrics.recordStage(ChatMetrics.STAGE_SLOT_FILLING, "fill_form",
+                                    fieldUpdates != null ? ChatMetrics.OUTCOME_SUCCESS : ChatMetrics.OUTCOME_NOT_CONFIDENT,
+                                    parseStart);
+            if (fieldUpdates != null) {
+                LLMIntentResponse local = new LLMIntentResponse();
+                local.setIntent("fill_form");
+                local.setFormFields(new ArrayList<>());
+                local.setFieldUpdates(fieldUpdates);
+                return local;
             }
         }
         
-        for (String keyword : expenseKeywords) {
-            if (normalizedMessage.contains(keyword) || lowerMessage.contains(keyword.toLowerCase())) {
-                return true;
+        LLMIntentResponse llmIntent;
+        if (onToken != null && onFormField != null) {
+            llmIntent = localIntentService.streamIntentWithLLM(message, currentFormFields, formValues, history, sessionId,
+                onToken, field -> onFormField.accept(field, formGeneratorService.generateFieldHtml(field)));
+        } else {
+            llmIntent = localIntentService.recognizeIntentWithLLM(message, currentFormFields, formValues, history, sessionId);
+        }
+        if ("fill_form".equals(llmIntent.getIntent())) {
+            slotFillingParser.recordLlmFill();
+        }
+        return llmIntent;
+    }
+
+    /**
+     * 验证是否为有效的业务意图
+     * 只支持：订酒店、定机票、请假、报销发票
+     */
+    private boolean isValidBusinessIntent(String message) {
+        return intentClassifier.isBusinessIntent(message);
+    }
+
+    /**
+     * 新表单的初始字段值：只保留表单中存在的字段
+     */
+    private Map<String, Object> initialValues(List<FormField> fields, Map<String, Object> values) {
+        Map<String, Object> formData = new HashMap<>();
+        if (values != null && !values.isEmpty()) {
+            for (FormField field : fields) {
+                if (values.containsKey(field.getName())) {
+                    formData.put(field.getName(), values.get(field.getName()));
+                }
             }
         }
-        
-        return false;
+        return formData;
     }
 
     /**
-     * 更新表单字段的默认值
+     * 用用户资料预填新表单的个人信息字段（姓名、电话、邮箱、身份证号、出发地），消息中已提取到的值优先
+     * @param profile 预取的用户资料，未就绪或未知用户时为 null（不预填）
      */
-    private void updateFormFieldsWithData(List<FormField> fields, Map<String, Object> updates) {
+    private void prefillProfile(List<FormField> fields, Map<String, Object> formData, UserInfo profile) {
+        if (profile == null) {
+            return;
+        }
+        for (FormField field : fields) {
+            if (formData.containsKey(field.getName())) {
+                continue;
+            }
+            String value = switch (field.getName()) {
+                case "name" -> profile.getName();
+                case "phone" -> profile.getPhone();
+                case "email" -> profile.getEmail();
+                case "idCard" -> profile.getIdCard();
+                case "departure" -> profile.getDefaultCity();
+                default -> null;
+            };
+            if (value != null && !value.isEmpty()) {
+                formData.put(field.getName(), value);
+            }
+        }
+    }
+
+    /**
+     * 计算本次更新中值发生变化的表单字段（字段名 -> 新值），需在写入表单数据前调用
+     */
+    private Map<String, String> changedFieldValues(List<FormField> fields, Map<String, Object> formData,
+                                                   Map<String, Object> updates) {
+        Map<String, String> changed = new LinkedHashMap<>();
         for (FormField field : fields) {
             if (updates.containsKey(field.getName())) {
                 Object value = updates.get(field.getName());
-                field.setDefaultValue(value != null ? value.toString() : "");
+                String newValue = value != null ? value.toString() : "";
+                if (!newValue.equals(FormSchema.valueOf(field, formData))) {
+                    changed.put(field.getName(), newValue);
+                }
             }
         }
+        return changed;
     }
 
     /**
      * 获取会话历史
      */
     public List<String> getConversationHistory(String sessionId) {
-        return conversationHistory.getOrDefault(sessionId, new ArrayList<>());
+        ChatSession session = sessionStore.get(sessionId);
+        return session != null ? session.getHistory().toMessages() : new ArrayList<>();
     }
 
     /**
      * 清除会话
      */
     public void clearSession(String sessionId) {
-        conversationHistory.remove(sessionId);
-        sessionFormFields.remove(sessionId);
-        sessionFormData.remove(sessionId);
-        sessionFormId.remove(sessionId);
+        sessionLocks.execute(sessionId, () -> sessionStore.remove(sessionId));
     }
 }
 
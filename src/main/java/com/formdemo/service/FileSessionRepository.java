@@ -0,0 +1,399 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.model.ChatSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于本地磁盘的会话存储：追加写日志 + 定期压缩
+ * 每次保存向 sessions.log 追加一行 JSON 记录（PUT/DEL），内存中只保留"会话ID -> 最新记录位置"的索引，
+ * 加载时按位置直接读取对应记录。启动时顺序扫描日志重建索引（只解析记录头，不反序列化会话内容），
+ * 末尾因崩溃写了一半的记录会被截断。当失效记录占比过高或有会话超过保留期时，重写出只含有效记录的新日志。
+ */
+public class FileSessionRepository implements SessionRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSessionRepository.class);
+
+    private static final String LOG_FILE = "sessions.log";
+    private static final String COMPACT_FILE = "sessions.log.compact";
+    private static final String PUT = "PUT";
+    private static final String DEL = "DEL";
+
+    private final Path directory;
+    private final Path logFile;
+    private final long minCompactionBytes;
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+
+    // 文件操作期间可能阻塞，使用 ReentrantLock 而非 synchronized，避免固定虚拟线程的载体线程
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, RecordPointer> index = new HashMap<>();
+    private FileChannel channel;
+    private long liveBytes;
+
+    private long recoveryMillis;
+    private int recoveredSessions;
+    private long truncatedBytes;
+    private long compactions;
+    private long lastCompactionMillis;
+
+    public FileSessionRepository(Path directory, long minCompactionBytes, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.logFile = directory.resolve(LOG_FILE);
+        this.minCompactionBytes = minCompactionBytes;
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    @Override
+    public int recover() {
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+            index.clear();
+            liveBytes = 0;
+
+            long validLength = 0;
+            if (Files.exists(logFile)) {
+                validLength = scanLog();
+                long fileLength = Files.size(logFile);
+                if (validLength < fileLength) {
+                    truncatedBytes = fileLength - validLength;
+                    log.warn("Truncating {} bytes of incomplete session records in {}", truncatedBytes, logFile);
+                }
+            }
+
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.truncate(validLength);
+            channel.position(validLength);
+
+            recoveredSessions = index.size();
+            recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+            log.info("Recovered {} sessions from {} in {} ms", recoveredSessions, logFile, recoveryMillis);
+            return recoveredSessions;
+        } catch (IOException e) {
+            throw new UncheckedIOException("恢复会话存储失败: " + logFile, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void save(ChatSession session) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("op", PUT);
+        record.put("id", session.getSessionId());
+        record.put("ts", session.getLastAccessedAt());
+        record.put("session", session);
+        byte[] bytes = toLine(record);
+
+        lock.lock();
+        try {
+            long offset = append(bytes);
+            RecordPointer previous = index.put(session.getSessionId(),
+                                               new RecordPointer(offset, bytes.length, session.getLastAccessedAt()));
+            liveBytes += bytes.length - (previous != null ? previous.length : 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public ChatSession load(String sessionId) {
+        byte[] bytes;
+        lock.lock();
+        try {
+            RecordPointer pointer = index.get(sessionId);
+            if (pointer == null) {
+                return null;
+            }
+            bytes = read(pointer);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            return objectMapper.treeToValue(objectMapper.readTree(bytes).get("session"), ChatSession.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取会话失败: " + sessionId, e);
+        }
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("op", DEL);
+        record.put("id", sessionId);
+        byte[] bytes = toLine(record);
+
+        lock.lock();
+        try {
+            RecordPointer removed = index.remove(sessionId);
+            if (removed == null) {
+                return;
+            }
+            liveBytes -= removed.length;
+            append(bytes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void maintain(long retainAfterMillis) {
+        lock.lock();
+        try {
+            boolean hasExpired = false;
+            for (RecordPointer pointer : index.values()) {
+                if (pointer.lastAccessedAt < retainAfterMillis) {
+                    hasExpired = true;
+                    break;
+                }
+            }
+            long fileBytes = channel.size();
+            boolean tooMuchGarbage = fileBytes >= minCompactionBytes && liveBytes * 2 < fileBytes;
+            if (hasExpired || tooMuchGarbage) {
+                compact(retainAfterMillis);
+            }
+        } catch (IOException e) {
+            log.error("Session log maintenance failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("type", "file");
+            stats.put("path", logFile.toString());
+            stats.put("storedSessions", index.size());
+            stats.put("fileBytes", channel != null ? channel.size() : 0);
+            stats.put("liveBytes", liveBytes);
+            stats.put("recoveredSessions", recoveredSessions);
+            stats.put("recoveryMillis", recoveryMillis);
+            stats.put("truncatedBytes", truncatedBytes);
+            stats.put("compactions", compactions);
+            stats.put("lastCompactionMillis", lastCompactionMillis);
+            return stats;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close session log {}", logFile, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 顺序扫描日志重建索引，返回最后一条完整记录结束处的偏移量
+     */
+    private long scanLog() throws IOException {
+        long offset = 0;
+        long validLength = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream(4096);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(logFile), 64 * 1024)) {
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                byte[] bytes = line.toByteArray();
+                int length = bytes.length + 1;
+                line.reset();
+                try {
+                    applyRecordHeader(bytes, offset, length);
+                } catch (IOException e) {
+                    log.warn("Skipping corrupt session record at offset {}", offset);
+                }
+                offset += length;
+                validLength = offset;
+            }
+        }
+        return validLength;
+    }
+
+    private void applyRecordHeader(byte[] bytes, long offset, int length) throws IOException {
+        String op = null;
+        String id = null;
+        long ts = 0;
+        try (JsonParser parser = jsonFactory.createParser(bytes)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("not an object");
+            }
+            // 记录头（op/id/ts）总是写在最前面，读到 session 即可停止
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                if ("session".equals(name)) {
+                    break;
+                }
+                parser.nextToken();
+                switch (name) {
+                    case "op" -> op = parser.getText();
+                    case "id" -> id = parser.getText();
+                    case "ts" -> ts = parser.getLongValue();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        if (id == null) {
+            throw new IOException("missing id");
+        }
+
+        RecordPointer previous;
+        if (PUT.equals(op)) {
+            previous = index.put(id, new RecordPointer(offset, length, ts));
+            liveBytes += length;
+        } else {
+            previous = index.remove(id);
+        }
+        if (previous != null) {
+            liveBytes -= previous.length;
+        }
+    }
+
+    /**
+     * 将有效且未过期的记录复制到新文件，然后原子替换旧日志
+     */
+    private void compact(long retainAfterMillis) throws IOException {
+        long start = System.nanoTime();
+        Path compactFile = directory.resolve(COMPACT_FILE);
+        Map<String, RecordPointer> newIndex = new HashMap<>();
+        long newLiveBytes = 0;
+        int expired = 0;
+
+        try (FileChannel out = FileChannel.open(compactFile, StandardOpenOption.CREATE,
+                                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<Map.Entry<String, RecordPointer>> entries = new ArrayList<>(index.entrySet());
+            // 按原始偏移顺序复制，保持顺序读
+            entries.sort((a, b) -> Long.compare(a.getValue().offset, b.getValue().offset));
+            long position = 0;
+            for (Map.Entry<String, RecordPointer> entry : entries) {
+                RecordPointer pointer = entry.getValue();
+                if (pointer.lastAccessedAt < retainAfterMillis) {
+                    expired++;
+                    continue;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(read(pointer));
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                newIndex.put(entry.getKey(), new RecordPointer(position, pointer.length, pointer.lastAccessedAt));
+                position += pointer.length;
+                newLiveBytes += pointer.length;
+            }
+            out.force(true);
+        }
+
+        long oldBytes = channel.size();
+        channel.close();
+        Files.move(compactFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+
+        index.clear();
+        index.putAll(newIndex);
+        liveBytes = newLiveBytes;
+        compactions++;
+        lastCompactionMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Compacted session log {}: {} -> {} bytes, dropped {} expired sessions in {} ms",
+                 logFile, oldBytes, channel.size(), expired, lastCompactionMillis);
+    }
+
+    private long append(byte[] bytes) {
+        try {
+            long offset = channel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            return offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入会话日志失败: " + logFile, e);
+        }
+    }
+
+    private byte[] read(RecordPointer pointer) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(pointer.length);
+            long position = pointer.offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("unexpected end of session log");
+                }
+                position += read;
+            }
+            return buffer.array();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取会话日志失败: " + logFile, e);
+        }
+    }
+
+    private byte[] toLine(Map<String, Object> record) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(record);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (IOException e) {
+            throw new UncheckedIOException("序列化会话失败", e);
+        }
+    }
+
+    /**
+     * 某个会话最新记录在日志中的位置
+     */
+    private static final class RecordPointer {
+        private final long offset;
+        private final int length;
+        private final long lastAccessedAt;
+
+        private RecordPointer(long offset, int length, long lastAccessedAt) {
+            this.offset = offset;
+            this.length = length;
+            this.lastAccessedAt = lastAccessedAt;
+        }
+    }
+}
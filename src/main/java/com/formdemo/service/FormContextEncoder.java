@@ -0,0 +1,200 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.formdemo.model.FormField;
+import com.formdemo.model.FormSchema;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑的表单上下文编码
+ * 使用短键名（n/l/t/v/o/r）、省略空值和占位提示，并且只发送用户消息可能涉及的字段，
+ * 以减少每轮意图识别的输入token数。无法判断涉及哪些字段时发送全部字段。
+ * 键名说明 LEGEND 不随每轮上下文重复发送，而是放在固定的系统提示词中（见 IntentPromptTemplate）。
+ * 字段结构与会话的字段值分开传入，编码时直接读取共享的表单结构，不复制字段。
+ */
+public final class FormContextEncoder {
+
+    static final String LEGEND = "键：n=字段名 l=标签 t=类型 v=当前值 o=可选项 r=必填";
+
+    private static final String[] DATE_HINTS = {"今天", "明天", "后天", "昨天", "周", "星期", "月", "号", "日"};
+
+    /**
+     * 字段类型映射表：将中英文类型名称映射到标准HTML表单字段类型
+     */
+    private static final Map<String, String> FIELD_TYPE_MAP = new HashMap<>();
+    
+    static {
+        FIELD_TYPE_MAP.put("日期", "date");
+        FIELD_TYPE_MAP.put("date", "date");
+        FIELD_TYPE_MAP.put("时间", "datetime-local");
+        FIELD_TYPE_MAP.put("datetime", "datetime-local");
+        FIELD_TYPE_MAP.put("姓名", "text");
+        FIELD_TYPE_MAP.put("name", "text");
+        FIELD_TYPE_MAP.put("名字", "text");
+        FIELD_TYPE_MAP.put("生日", "date");
+        FIELD_TYPE_MAP.put("birthday", "birthday");
+        FIELD_TYPE_MAP.put("性别", "select");
+        FIELD_TYPE_MAP.put("gender", "select");
+        FIELD_TYPE_MAP.put("sex", "select");
+        FIELD_TYPE_MAP.put("邮箱", "email");
+        FIELD_TYPE_MAP.put("email", "email");
+        FIELD_TYPE_MAP.put("电话", "tel");
+        FIELD_TYPE_MAP.put("phone", "tel");
+        FIELD_TYPE_MAP.put("数字", "number");
+        FIELD_TYPE_MAP.put("number", "number");
+        FIELD_TYPE_MAP.put("文本", "text");
+        FIELD_TYPE_MAP.put("text", "text");
+        FIELD_TYPE_MAP.put("多行文本", "textarea");
+        FIELD_TYPE_MAP.put("textarea", "textarea");
+        FIELD_TYPE_MAP.put("密码", "password");
+        FIELD_TYPE_MAP.put("password", "password");
+        FIELD_TYPE_MAP.put("选择", "select");
+        FIELD_TYPE_MAP.put("select", "select");
+        FIELD_TYPE_MAP.put("复选框", "checkbox");
+        FIELD_TYPE_MAP.put("checkbox", "checkbox");
+        FIELD_TYPE_MAP.put("单选", "radio");
+        FIELD_TYPE_MAP.put("radio", "radio");
+    }
+
+    private FormContextEncoder() {
+    }
+
+    /**
+     * 编码表单上下文；表单为空时返回 "[]"
+     * @param values 会话的字段值，没有值的字段使用其初始值
+     */
+    public static String encode(List<FormField> fields, Map<String, Object> values, String userMessage,
+                                ObjectMapper objectMapper) {
+        if (fields == null || fields.isEmpty()) {
+            return "[]";
+        }
+        List<FormField> selected = selectRelevant(fields, values, userMessage);
+
+        ArrayNode array = objectMapper.createArrayNode();
+        for (FormField field : selected) {
+            ObjectNode node = array.addObject();
+            node.put("n", field.getName());
+            putIfPresent(node, "l", field.getLabel());
+            putIfPresent(node, "t", normalizeType(field.getType()));
+            putIfPresent(node, "v", FormSchema.valueOf(field, values));
+            if (field.getOptions() != null && !field.getOptions().isEmpty()) {
+                ArrayNode options = node.putArray("o");
+                field.getOptions().forEach(options::add);
+            }
+            if (field.isRequired()) {
+                node.put("r", 1);
+            }
+        }
+
+        StringBuilder context = new StringBuilder();
+        if (selected.size() < fields.size()) {
+            context.append("（表单共").append(fields.size()).append("个字段，仅列出与本条消息相关的")
+                   .append(selected.size()).append("个）\n");
+        }
+        return context.append(array).toString();
+    }
+
+    /**
+     * 选出消息可能涉及的字段：消息中出现了字段标签（或其中的词）、字段名、可选项或当前值；
+     * 消息含日期用语时包含日期字段。一个都匹配不上时返回全部字段。
+     */
+    static List<FormField> selectRelevant(List<FormField> fields, Map<String, Object> values, String userMessage) {
+        if (userMessage == null || userMessage.isBlank()) {
+            return fields;
+        }
+        String message = userMessage.toLowerCase();
+        boolean mentionsDate = containsAny(message, DATE_HINTS);
+
+        List<FormField> selected = new ArrayList<>();
+        for (FormField field : fields) {
+            if (isReferenced(field, FormSchema.valueOf(field, values), message, mentionsDate)) {
+                selected.add(field);
+            }
+        }
+        return selected.isEmpty() ? fields : selected;
+    }
+
+    private static boolean isReferenced(FormField field, String value, String message, boolean mentionsDate) {
+        if (mentionsDate && normalizeType(field.getType()).startsWith("date")) {
+            return true;
+        }
+        String label = field.getLabel();
+        if (label != null && !label.isEmpty()) {
+            if (message.contains(label.toLowerCase())) {
+                return true;
+            }
+            // 中文标签按相邻两个字匹配，如"入住日期"可由"入住"命中
+            for (int i = 0; i + 2 <= label.length(); i++) {
+                String bigram = label.substring(i, i + 2);
+                if (Character.isIdeographic(bigram.charAt(0)) && Character.isIdeographic(bigram.charAt(1))
+                    && message.contains(bigram)) {
+                    return true;
+                }
+            }
+        }
+        if (field.getName() != null) {
+            for (String part : field.getName().toLowerCase().split("_")) {
+                if (part.length() >= 3 && message.contains(part)) {
+                    return true;
+                }
+            }
+        }
+        if (field.getOptions() != null) {
+            for (String option : field.getOptions()) {
+                if (option != null && !option.isEmpty() && message.contains(option.toLowerCase())) {
+                    return true;
+                }
+            }
+        }
+        return value != null && value.length() >= 2 && message.contains(value.toLowerCase());
+    }
+
+    /**
+     * 规范化字段类型：根据映射表将类型名称转换为标准HTML表单字段类型
+     * @param type 原始类型名称
+     * @return 标准化后的类型名称
+     */
+    static String normalizeType(String type) {
+        if (type == null || type.trim().isEmpty()) {
+            return "text"; // 默认类型
+        }
+        
+        String normalizedType = type.trim();
+        
+        // 先尝试直接匹配（不区分大小写）
+        String mappedType = FIELD_TYPE_MAP.get(normalizedType);
+        if (mappedType != null) {
+            return mappedType;
+        }
+        
+        // 尝试小写匹配
+        mappedType = FIELD_TYPE_MAP.get(normalizedType.toLowerCase());
+        if (mappedType != null) {
+            return mappedType;
+        }
+        
+        // 如果映射表中没有，返回原始类型（可能是已标准化的类型）
+        return normalizedType;
+    }
+
+    private static boolean containsAny(String text, String[] needles) {
+        for (String needle : needles) {
+            if (text.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void putIfPresent(ObjectNode node, String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            node.put(key, value);
+        }
+    }
+}
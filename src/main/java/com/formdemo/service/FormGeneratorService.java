@@ -3,16 +3,45 @@ package com.formdemo.service;
 import com.formdemo.model.FormField;
 import com.formdemo.model.Intent;
 import com.formdemo.model.UserInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * 表单生成服务
+ * 表单HTML按预编译的渲染计划（FormRenderPlan）输出。计划按字段列表的对象身份缓存，
+ * 同一表单在多轮 fill_form 中重复渲染时只替换字段值；字段结构发生变化时重新编译。
+ * 会话的表单结构是驻留共享的（FormSchema），结构相同的所有会话命中同一个计划。
+ * 业务表单的字段模板由 FormTemplateRegistry 管理，这里的硬编码字段只用于旧的 generateFormHtml。
+ */
 @Service
 public class FormGeneratorService {
 
+    private final int planCacheSize;
+
+    // 以字段列表的对象身份为键，按最近访问顺序LRU淘汰
+    private final LinkedHashMap<SchemaRef, FormRenderPlan> plans = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final LongAdder planHits = new LongAdder();
+    private final LongAdder planCompiles = new LongAdder();
+
+    @Autowired
+    public FormGeneratorService(@Value("${assistant.form-render.plan-cache-size:1024}") int planCacheSize) {
+        this.planCacheSize = planCacheSize;
+    }
+
+    FormGeneratorService() {
+        this(1024);
+    }
+
     /**
      * 根据字段列表和表单数据生成表单HTML（用于LLM生成的表单）
      */
@@ -20,72 +49,15 @@ public class FormGeneratorService {
         if (fields == null || fields.isEmpty()) {
             return "";
         }
-        
-        String formId = UUID.randomUUID().toString();
-        
-        // 合并表单数据到字段默认值
-        List<FormField> fieldsWithData = new ArrayList<>();
-        for (FormField field : fields) {
-            FormField fieldCopy = new FormField(
-                field.getName(),
-                field.getLabel(),
-                field.getType(),
-                field.getDefaultValue(),
-                field.getOptions(),
-                field.isRequired(),
-                field.getPlaceholder()
-            );
-            
-            // 如果表单数据中有该字段的值，使用表单数据中的值
-            if (formData != null && formData.containsKey(field.getName())) {
-                Object value = formData.get(field.getName());
-                fieldCopy.setDefaultValue(value != null ? value.toString() : "");
-            }
-            
-            fieldsWithData.add(fieldCopy);
-        }
-        
-        StringBuilder html = new StringBuilder();
-        html.append("<div class=\"form-container\" data-form-id=\"").append(formId).append("\">");
-        html.append("<form id=\"form-").append(formId).append("\" class=\"dynamic-form\">");
-        
-        for (FormField field : fieldsWithData) {
-            html.append(generateFieldHtml(field));
-        }
-        
-        html.append("<div class=\"form-actions\">");
-        html.append("<button type=\"submit\" class=\"btn-submit\">提交</button>");
-        html.append("<button type=\"button\" class=\"btn-reset\" onclick=\"this.form.reset()\">重置</button>");
-        html.append("</div>");
-        html.append("</form>");
-        html.append("</div>");
-        
-        return html.toString();
+        return planFor(fields).render(UUID.randomUUID().toString(), fields, formData);
     }
 
     /**
      * 根据意图生成表单HTML（保留用于向后兼容）
      */
     public String generateFormHtml(String intentType, Intent intent, UserInfo userInfo) {
-        String formId = UUID.randomUUID().toString();
         List<FormField> fields = generateFormFields(intentType, intent, userInfo);
-        
-        StringBuilder html = new StringBuilder();
-        html.append("<div class=\"form-container\" data-form-id=\"").append(formId).append("\">");
-        html.append("<form id=\"form-").append(formId).append("\" class=\"dynamic-form\">");
-        
-        for (FormField field : fields) {
-            html.append(generateFieldHtml(field));
-        }
-        
-        html.append("<div class=\"form-actions\">");
-        html.append("<button type=\"submit\" class=\"btn-submit\">提交</button>");
-        html.append("<button type=\"button\" class=\"btn-reset\" onclick=\"this.form.reset()\">重置</button>");
-        html.append("</div>");
-        html.append("</form>");
-        html.append("</div>");
-        
-        return html.toString();
+        return FormRenderPlan.compile(fields).render(UUID.randomUUID().toString(), fields, null);
     }
 
     /**
@@ -183,61 +155,74 @@ public class FormGeneratorService {
     /**
      * 生成单个字段的HTML
      */
-    private String generateFieldHtml(FormField field) {
-        StringBuilder html = new StringBuilder();
-        html.append("<div class=\"form-field\">");
-        html.append("<label for=\"").append(field.getName()).append("\">");
-        html.append(field.getLabel());
-        if (field.isRequired()) {
-            html.append("<span class=\"required\">*</span>");
+    public String generateFieldHtml(FormField field) {
+        return FormRenderPlan.FieldPlan.compile(field).render(field.getDefaultValue());
+    }
+
+    /**
+     * 渲染计划缓存统计
+     */
+    public Map<String, Object> getStats() {
+        long hits = planHits.sum();
+        long compiles = planCompiles.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (plans) {
+            stats.put("cachedPlans", plans.size());
         }
-        html.append("</label>");
-        
-        if ("select".equals(field.getType())) {
-            html.append("<select id=\"").append(field.getName()).append("\" name=\"").append(field.getName()).append("\"");
-            if (field.isRequired()) {
-                html.append(" required");
-            }
-            html.append(">");
-            if (field.getOptions() != null) {
-                for (String option : field.getOptions()) {
-                    html.append("<option value=\"").append(option).append("\"");
-                    if (option.equals(field.getDefaultValue())) {
-                        html.append(" selected");
-                    }
-                    html.append(">").append(option).append("</option>");
+        stats.put("maxPlans", planCacheSize);
+        stats.put("planHits", hits);
+        stats.put("planCompiles", compiles);
+        stats.put("planHitRate", hits + compiles == 0 ? 0.0 : (double) hits / (hits + compiles));
+        return stats;
+    }
+
+    /**
+     * 取字段列表对应的渲染计划：同一列表对象且结构未变时复用，否则重新编译
+     */
+    FormRenderPlan planFor(List<FormField> fields) {
+        SchemaRef ref = new SchemaRef(fields);
+        FormRenderPlan plan;
+        synchronized (plans) {
+            plan = plans.get(ref);
+        }
+        if (plan != null && plan.matches(fields)) {
+            planHits.increment();
+            return plan;
+        }
+
+        plan = FormRenderPlan.compile(fields);
+        planCompiles.increment();
+        if (planCacheSize > 0) {
+            synchronized (plans) {
+                plans.put(ref, plan);
+                Iterator<FormRenderPlan> it = plans.values().iterator();
+                while (plans.size() > planCacheSize && it.hasNext()) {
+                    it.next();
+                    it.remove();
                 }
             }
-            html.append("</select>");
-        } else {
-            html.append("<input type=\"").append(field.getType()).append("\"");
-            html.append(" id=\"").append(field.getName()).append("\"");
-            html.append(" name=\"").append(field.getName()).append("\"");
-            if (field.getDefaultValue() != null && !field.getDefaultValue().isEmpty()) {
-                html.append(" value=\"").append(escapeHtml(field.getDefaultValue())).append("\"");
-            }
-            if (field.getPlaceholder() != null && !field.getPlaceholder().isEmpty()) {
-                html.append(" placeholder=\"").append(escapeHtml(field.getPlaceholder())).append("\"");
-            }
-            if (field.isRequired()) {
-                html.append(" required");
-            }
-            html.append(">");
         }
-        
-        html.append("</div>");
-        return html.toString();
+        return plan;
     }
 
-    private String escapeHtml(String text) {
-        if (text == null) {
-            return "";
+    /**
+     * 按对象身份比较的字段列表引用
+     */
+    private static final class SchemaRef {
+        private final List<FormField> fields;
+
+        private SchemaRef(List<FormField> fields) {
+            this.fields = fields;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof SchemaRef && ((SchemaRef) other).fields == fields;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(fields);
         }
-        return text.replace("&", "&amp;")
-                  .replace("<", "&lt;")
-                  .replace(">", "&gt;")
-                  .replace("\"", "&quot;")
-                  .replace("'", "&#39;");
     }
 }
-
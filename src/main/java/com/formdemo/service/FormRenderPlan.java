@@ -0,0 +1,305 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import com.formdemo.model.FormSchema;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 预编译的表单渲染计划
+ * 按表单结构（字段名、标签、类型、可选项、必填、占位提示）一次性拼好每个字段的静态HTML片段，
+ * 渲染时只需按顺序写入片段并替换字段值，所有内容写入同一个预估好容量的缓冲区。
+ * 字段值不属于结构，每次渲染时从表单数据或字段当前值读取。计划创建后不可变，可被多个线程共享。
+ * 同时提供不含值的表单结构及其内容哈希，供浏览器端渲染（schema 模式）和缓存使用。
+ */
+final class FormRenderPlan {
+
+    private static final String FORM_HEAD_1 = "<div class=\"form-container\" data-form-id=\"";
+    private static final String FORM_HEAD_2 = "\"><form id=\"form-";
+    private static final String FORM_HEAD_3 = "\" class=\"dynamic-form\">";
+    private static final String FORM_TAIL = "<div class=\"form-actions\">"
+        + "<button type=\"submit\" class=\"btn-submit\">提交</button>"
+        + "<button type=\"button\" class=\"btn-reset\" onclick=\"this.form.reset()\">重置</button>"
+        + "</div></form></div>";
+
+    private final FieldPlan[] fields;
+    private final int staticLength;
+    private final List<FormField> schema;
+    private final String schemaHash;
+
+    private FormRenderPlan(FieldPlan[] fields) {
+        this.fields = fields;
+        List<FormField> structure = new ArrayList<>(fields.length);
+        for (FieldPlan field : fields) {
+            structure.add(field.toSchemaField());
+        }
+        this.schema = Collections.unmodifiableList(structure);
+        this.schemaHash = hashOf(fields);
+        int length = FORM_HEAD_1.length() + FORM_HEAD_2.length() + FORM_HEAD_3.length() + FORM_TAIL.length();
+        for (FieldPlan field : fields) {
+            length += field.staticLength;
+        }
+        this.staticLength = length;
+    }
+
+    static FormRenderPlan compile(List<FormField> fields) {
+        FieldPlan[] plans = new FieldPlan[fields.size()];
+        for (int i = 0; i < plans.length; i++) {
+            plans[i] = FieldPlan.compile(fields.get(i));
+        }
+        return new FormRenderPlan(plans);
+    }
+
+    /**
+     * 计划是否仍与字段列表的结构一致（逐字段比较，不分配对象）
+     */
+    boolean matches(List<FormField> fields) {
+        if (fields.size() != this.fields.length) {
+            return false;
+        }
+        for (int i = 0; i < this.fields.length; i++) {
+            if (!this.fields[i].matches(fields.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 渲染完整表单：表单数据中有值的字段使用该值，否则使用字段的当前值
+     * @param fields 与编译时结构相同的字段列表
+     */
+    String render(String formId, List<FormField> fields, Map<String, Object> formData) {
+        String[] values = new String[this.fields.length];
+        int capacity = staticLength + 2 * formId.length();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valueOf(fields.get(i), formData);
+            if (values[i] != null) {
+                // 转义会略微增长，按 1/8 预留
+                capacity += values[i].length() + (values[i].length() >> 3) + 8;
+            }
+        }
+
+        StringBuilder html = new StringBuilder(capacity);
+        html.append(FORM_HEAD_1).append(formId).append(FORM_HEAD_2).append(formId).append(FORM_HEAD_3);
+        for (int i = 0; i < values.length; i++) {
+            this.fields[i].render(html, values[i]);
+        }
+        html.append(FORM_TAIL);
+        return html.toString();
+    }
+
+    /**
+     * 全部字段的当前值（字段名 -> 值），取值规则与 render 相同
+     */
+    Map<String, String> values(List<FormField> fields, Map<String, Object> formData) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < this.fields.length; i++) {
+            String value = valueOf(fields.get(i), formData);
+            values.put(this.fields[i].name, value != null ? value : "");
+        }
+        return values;
+    }
+
+    /**
+     * 不含值的表单结构（只读，勿修改其中的字段）
+     */
+    List<FormField> getSchema() {
+        return schema;
+    }
+
+    /**
+     * 表单结构的内容哈希：结构相同的表单（如同一模板）哈希相同
+     */
+    String getSchemaHash() {
+        return schemaHash;
+    }
+
+    int fieldCount() {
+        return fields.length;
+    }
+
+    private static String hashOf(FieldPlan[] fields) {
+        StringBuilder canonical = new StringBuilder(256);
+        for (FieldPlan field : fields) {
+            canonical.append(field.name).append('\u0001').append(field.label).append('\u0001')
+                     .append(field.type).append('\u0001').append(field.placeholder).append('\u0001')
+                     .append(field.required).append('\u0001');
+            if (field.options != null) {
+                for (String option : field.options) {
+                    canonical.append(option).append('\u0002');
+                }
+            }
+            canonical.append('\u0003');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String valueOf(FormField field, Map<String, Object> formData) {
+        return FormSchema.valueOf(field, formData);
+    }
+
+    /**
+     * 单次遍历的HTML转义，直接写入目标缓冲区；无需转义的连续片段整段追加
+     */
+    static void appendEscaped(StringBuilder out, String text) {
+        if (text == null) {
+            return;
+        }
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity;
+            switch (text.charAt(i)) {
+                case '&' -> entity = "&amp;";
+                case '<' -> entity = "&lt;";
+                case '>' -> entity = "&gt;";
+                case '"' -> entity = "&quot;";
+                case '\'' -> entity = "&#39;";
+                default -> {
+                    continue;
+                }
+            }
+            out.append(text, start, i).append(entity);
+            start = i + 1;
+        }
+        out.append(text, start, text.length());
+    }
+
+    /**
+     * 单个字段的渲染计划
+     * 输入框：head + [ value="值"] + tail；下拉框：head + 各选项（值相等时加 selected）+ tail
+     */
+    static final class FieldPlan {
+
+        private final String name;
+        private final String label;
+        private final String type;
+        private final List<String> options;
+        private final boolean required;
+        private final String placeholder;
+
+        private final boolean select;
+        private final String head;
+        private final String[] optionOpen;
+        private final String[] optionClose;
+        private final String tail;
+        private final int staticLength;
+
+        private FieldPlan(FormField field) {
+            this.name = field.getName();
+            this.label = field.getLabel();
+            this.type = field.getType();
+            this.options = field.getOptions() != null
+                ? Collections.unmodifiableList(new ArrayList<>(field.getOptions())) : null;
+            this.required = field.isRequired();
+            this.placeholder = field.getPlaceholder();
+            this.select = "select".equals(type);
+
+            StringBuilder start = new StringBuilder(128);
+            start.append("<div class=\"form-field\"><label for=\"").append(name).append("\">").append(label);
+            if (required) {
+                start.append("<span class=\"required\">*</span>");
+            }
+            start.append("</label>");
+
+            int length;
+            if (select) {
+                start.append("<select id=\"").append(name).append("\" name=\"").append(name).append('"');
+                if (required) {
+                    start.append(" required");
+                }
+                start.append('>');
+                int count = options != null ? options.size() : 0;
+                this.optionOpen = new String[count];
+                this.optionClose = new String[count];
+                length = 0;
+                for (int i = 0; i < count; i++) {
+                    String option = options.get(i);
+                    optionOpen[i] = "<option value=\"" + option + "\"";
+                    optionClose[i] = ">" + option + "</option>";
+                    length += optionOpen[i].length() + optionClose[i].length() + " selected".length();
+                }
+                this.tail = "</select></div>";
+            } else {
+                start.append("<input type=\"").append(type).append('"')
+                     .append(" id=\"").append(name).append('"')
+                     .append(" name=\"").append(name).append('"');
+                this.optionOpen = null;
+                this.optionClose = null;
+                StringBuilder end = new StringBuilder(64);
+                if (placeholder != null && !placeholder.isEmpty()) {
+                    end.append(" placeholder=\"");
+                    appendEscaped(end, placeholder);
+                    end.append('"');
+                }
+                if (required) {
+                    end.append(" required");
+                }
+                end.append("></div>");
+                this.tail = end.toString();
+                length = " value=\"\"".length();
+            }
+            this.head = start.toString();
+            this.staticLength = length + head.length() + tail.length();
+        }
+
+        static FieldPlan compile(FormField field) {
+            return new FieldPlan(field);
+        }
+
+        FormField toSchemaField() {
+            return new FormField(name, label, type, null, options, required, placeholder);
+        }
+
+        boolean matches(FormField field) {
+            return required == field.isRequired()
+                && Objects.equals(name, field.getName())
+                && Objects.equals(label, field.getLabel())
+                && Objects.equals(type, field.getType())
+                && Objects.equals(placeholder, field.getPlaceholder())
+                && Objects.equals(options, field.getOptions());
+        }
+
+        void render(StringBuilder html, String value) {
+            html.append(head);
+            if (select) {
+                for (int i = 0; i < optionOpen.length; i++) {
+                    html.append(optionOpen[i]);
+                    if (Objects.equals(options.get(i), value)) {
+                        html.append(" selected");
+                    }
+                    html.append(optionClose[i]);
+                }
+            } else if (value != null && !value.isEmpty()) {
+                html.append(" value=\"");
+                appendEscaped(html, value);
+                html.append('"');
+            }
+            html.append(tail);
+        }
+
+        String render(String value) {
+            StringBuilder html = new StringBuilder(staticLength + (value != null ? value.length() + 8 : 0));
+            render(html, value);
+            return html.toString();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.model.FormField;
+import com.formdemo.model.FormSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 业务表单模板库
+ * 模板从配置的资源文件（默认 classpath:form-templates.json）加载，格式为"业务类型 -> 字段列表"。
+ * 启动时校验每个模板，驻留为共享的 FormSchema 并预编译渲染计划；已知业务类型的 create_form
+ * 直接使用模板，不再由LLM生成字段列表，同一业务类型每次得到完全相同的表单结构。
+ * 与关键词词典一样通过原子引用整体替换，可在运行时重新加载。
+ */
+@Service
+public class FormTemplateRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(FormTemplateRegistry.class);
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private final FormGeneratorService formGeneratorService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // 模板持有驻留结构的强引用，结构不会从驻留池中回收
+    private final AtomicReference<Map<String, FormSchema>> templates = new AtomicReference<>(Map.of());
+
+    private final LongAdder servedLocally = new LongAdder();
+    private final LongAdder valueExtractions = new LongAdder();
+
+    public FormTemplateRegistry(ResourceLoader resourceLoader,
+                                @Value("${assistant.form-templates.location:classpath:form-templates.json}") String location,
+                                FormGeneratorService formGeneratorService) {
+        this.resourceLoader = resourceLoader;
+        this.location = location;
+        this.formGeneratorService = formGeneratorService;
+        reload();
+    }
+
+    /**
+     * 业务类型对应的模板，没有模板时返回 null
+     */
+    public FormSchema find(String businessType) {
+        return businessType != null ? templates.get().get(businessType) : null;
+    }
+
+    /**
+     * 已加载模板的业务类型
+     */
+    public Set<String> getBusinessTypes() {
+        return templates.get().keySet();
+    }
+
+    /**
+     * 记录一次按模板在本地创建表单
+     * @param extractedValues 是否调用了LLM提取消息中的字段值
+     */
+    public void recordServed(boolean extractedValues) {
+        servedLocally.increment();
+        if (extractedValues) {
+            valueExtractions.increment();
+        }
+    }
+
+    /**
+     * 从配置的资源文件重新加载模板；加载或校验失败时保留当前模板并抛出异常
+     */
+    public Map<String, FormSchema> reload() {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            Map<String, List<FormField>> definitions = objectMapper.readValue(in,
+                new TypeReference<LinkedHashMap<String, List<FormField>>>() {});
+            Map<String, FormSchema> compiled = replace(definitions);
+            log.info("Loaded form templates from {}: {}", location, compiled.keySet());
+            return compiled;
+        } catch (IOException e) {
+            throw new IllegalStateException("加载表单模板失败: " + location, e);
+        }
+    }
+
+    /**
+     * 校验、驻留并预编译模板后原子替换当前模板
+     */
+    public Map<String, FormSchema> replace(Map<String, List<FormField>> definitions) {
+        Map<String, FormSchema> compiled = new LinkedHashMap<>();
+        for (Map.Entry<String, List<FormField>> entry : definitions.entrySet()) {
+            validate(entry.getKey(), entry.getValue());
+            FormSchema schema = FormSchema.intern(entry.getValue());
+            formGeneratorService.planFor(schema.getFields());
+            compiled.put(entry.getKey(), schema);
+        }
+        Map<String, FormSchema> snapshot = Collections.unmodifiableMap(compiled);
+        templates.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 模板统计：已加载的模板（业务类型 -> 字段数）、本地创建次数及其中调用LLM提取字段值的次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Integer> loaded = new LinkedHashMap<>();
+        templates.get().forEach((type, schema) -> loaded.put(type, schema.size()));
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("templates", loaded);
+        stats.put("servedLocally", servedLocally.sum());
+        stats.put("valueExtractions", valueExtractions.sum());
+        return stats;
+    }
+
+    private static void validate(String businessType, List<FormField> fields) {
+        if (fields == null || fields.isEmpty()) {
+            throw new IllegalStateException("表单模板 " + businessType + " 没有字段");
+        }
+        Set<String> names = new HashSet<>();
+        for (FormField field : fields) {
+            if (field.getName() == null || field.getName().isBlank()) {
+                throw new IllegalStateException("表单模板 " + businessType + " 存在未命名的字段");
+            }
+            if (!names.add(field.getName())) {
+                throw new IllegalStateException("表单模板 " + businessType + " 字段重复: " + field.getName());
+            }
+            if ("select".equals(field.getType()) && (field.getOptions() == null || field.getOptions().isEmpty())) {
+                throw new IllegalStateException("表单模板 " + businessType + " 的下拉字段缺少可选项: " + field.getName());
+            }
+        }
+    }
+}
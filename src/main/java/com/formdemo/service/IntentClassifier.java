@@ -0,0 +1,169 @@
+package com.formdemo.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于规则的本地意图分类器
+ * 在调用LLM之前运行：对于明确的业务意图（且当前没有表单）直接判定为 create_form，
+ * 对于明显不含任何业务意图的消息直接判定为 chat，其余情况交给LLM处理。
+ */
+@Service
+public class IntentClassifier {
+
+    public static final String HOTEL = "HOTEL";
+    public static final String FLIGHT = "FLIGHT";
+    public static final String LEAVE = "LEAVE";
+    public static final String EXPENSE = "EXPENSE";
+
+    private static final String NEGATION = "NEGATION";
+    private static final String FILL = "FILL";
+
+    /**
+     * 否定/取消类表达：包含时意图不明确，交给LLM判断
+     * 填写类表达：包含时可能是 fill_form，交给LLM判断
+     */
+    private static final KeywordAutomaton MARKERS = KeywordAutomaton.compile(Map.of(
+        NEGATION, List.of("不要", "不用", "不想", "不需要", "没必要", "不必", "别", "取消", "don't", "cancel"),
+        FILL, List.of("填", "改", "修改", "设为", "设置", "写上", "换成")
+    ));
+
+    /**
+     * 不携带字段值的语气、请求类用字
+     */
+    private static final String FILLER_CHARS = "我要想帮给请申办理一下个张份的吧呢啊了嗯哦您你需麻烦";
+
+    private final BusinessKeywordMatcher keywordMatcher;
+
+    private final LongAdder localCreateForm = new LongAdder();
+    private final LongAdder localChat = new LongAdder();
+    private final LongAdder delegated = new LongAdder();
+
+    public IntentClassifier(BusinessKeywordMatcher keywordMatcher) {
+        this.keywordMatcher = keywordMatcher;
+    }
+
+    /**
+     * 对用户消息进行本地分类
+     * @param message 用户消息
+     * @param hasCurrentForm 会话中是否已有表单
+     * @return 分类结果，未能确定时 isResolved() 为 false
+     */
+    public Classification classify(String message, boolean hasCurrentForm) {
+        if (message == null || message.trim().isEmpty()) {
+            localChat.increment();
+            return Classification.chat();
+        }
+
+        // 已有表单时，消息可能是填写内容，交给LLM处理
+        if (hasCurrentForm) {
+            delegated.increment();
+            return Classification.ambiguous();
+        }
+
+        Set<String> businessTypes = matchBusinessTypes(message);
+        Set<String> markers = MARKERS.findCategories(message);
+
+        // 只命中英文关键词（如 "please leave me alone"）时不在本地判定，交给LLM
+        if (businessTypes.size() == 1 && !markers.contains(NEGATION)
+            && keywordMatcher.matchConfident(message).equals(businessTypes)) {
+            localCreateForm.increment();
+            return Classification.createForm(businessTypes.iterator().next());
+        }
+
+        if (businessTypes.isEmpty() && !markers.contains(FILL)) {
+            localChat.increment();
+            return Classification.chat();
+        }
+
+        delegated.increment();
+        return Classification.ambiguous();
+    }
+
+    /**
+     * 验证是否为有效的业务意图
+     * 只支持：订酒店、定机票、请假、报销发票
+     */
+    public boolean isBusinessIntent(String message) {
+        return !matchBusinessTypes(message).isEmpty();
+    }
+
+    /**
+     * 消息除业务关键词和语气、请求类用字外是否还有其他内容（如日期、地点、天数），
+     * 用于判断按模板创建表单时是否需要让LLM提取字段值
+     */
+    public boolean mentionsValues(String message) {
+        String rest = keywordMatcher.getAutomaton().removeKeywords(message);
+        int remaining = 0;
+        for (int i = 0; i < rest.length(); i++) {
+            char c = rest.charAt(i);
+            if (Character.isLetterOrDigit(c) && FILLER_CHARS.indexOf(c) < 0) {
+                remaining++;
+            }
+        }
+        return remaining >= 2;
+    }
+
+    /**
+     * 返回消息中命中的业务类型（HOTEL/FLIGHT/LEAVE/EXPENSE 等，取决于关键词词典）
+     */
+    public Set<String> matchBusinessTypes(String message) {
+        return keywordMatcher.match(message);
+    }
+
+    /**
+     * 本地分类统计：本地判定的 create_form / chat 次数以及转交LLM的次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localCreateForm", localCreateForm.sum());
+        stats.put("localChat", localChat.sum());
+        stats.put("delegatedToLlm", delegated.sum());
+        return stats;
+    }
+
+    /**
+     * 本地分类结果
+     */
+    public static final class Classification {
+        private final String intent;
+        private final String businessType;
+
+        private Classification(String intent, String businessType) {
+            this.intent = intent;
+            this.businessType = businessType;
+        }
+
+        static Classification createForm(String businessType) {
+            return new Classification("create_form", businessType);
+        }
+
+        static Classification chat() {
+            return new Classification("chat", null);
+        }
+
+        static Classification ambiguous() {
+            return new Classification(null, null);
+        }
+
+        /**
+         * 是否已在本地得出结论（否则需要调用LLM）
+         */
+        public boolean isResolved() {
+            return intent != null;
+        }
+
+        public String getIntent() {
+            return intent;
+        }
+
+        public String getBusinessType() {
+            return businessType;
+        }
+    }
+}
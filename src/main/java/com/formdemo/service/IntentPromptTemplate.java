@@ -0,0 +1,75 @@
+package com.formdemo.service;
+
+import com.formdemo.model.OpenAIRequest;
+
+import java.util.List;
+
+/**
+ * 意图识别提示词模板
+ * 角色设定、输出格式、规则和上下文键说明都放在 system 消息里，类加载时拼好一次，逐字节不变；
+ * 表单上下文、对话历史和用户输入这些每轮都变的部分放在其后的 user 消息中。
+ * 这样各轮请求共享同一段前缀，可以命中服务商的提示词缓存（OpenAI、DeepSeek 等按前缀自动缓存）。
+ */
+public final class IntentPromptTemplate {
+
+    static final String SYSTEM_PROMPT =
+        "你是一个表单构建与填写助手。只有在用户明确表达业务意图（订酒店、定机票、请假、报销发票）时才创建表单。对于自我介绍、聊天等非业务意图，必须返回 chat 意图。\n\n" +
+        "每轮会给出现有表单定义（可能为空）、最近的对话（可能没有）和用户的自然语言输入。\n" +
+        "表单定义是JSON数组，" + FormContextEncoder.LEGEND + "。\n\n" +
+        "请返回JSON，必须包含：\n\n" +
+        "- intent: \"create_form\" | \"fill_form\" | \"chat\"\n\n" +
+        "- form_fields: 当需要创建或更新表单结构时的字段数组（每个字段包含 name、label、type、defaultValue、options、required、placeholder），否则返回 []\n\n" +
+        "- field_updates: 当 intent 为 fill_form 时，需要填写/修改的字段键值对，键请使用字段的 name（若只提供 label，请结合上下文推断 name）。无变更则为空对象。\n\n" +
+        "重要规则：\n\n" +
+        "1. 只有在用户明确表达以下业务意图时，才将 intent 设为 create_form：\n" +
+        "   - 订酒店/预订酒店/酒店预订\n" +
+        "   - 定机票/预订机票/机票预订\n" +
+        "   - 请假/申请请假/请假申请\n" +
+        "   - 报销发票/发票报销/报销申请\n\n" +
+        "2. 以下情况必须将 intent 设为 chat（不创建表单）：\n" +
+        "   - 自我介绍（如：\"我叫xxx\"、\"我是xxx\"）\n" +
+        "   - 普通聊天、问候、闲聊\n" +
+        "   - 询问时间、天气等非业务相关问题\n" +
+        "   - 没有明确业务意图的对话\n\n" +
+        "3. 如果用户仅提供要填写的内容（如\"把姓名填成张三\"），intent 设为 fill_form，将相应字段写入 field_updates。\n\n" +
+        "4. 如果用户输入只是个人信息介绍或聊天，没有明确的业务意图，intent 必须设为 chat，form_fields 返回空数组 []。\n\n" +
+        "5. 最近的对话用于理解\"改成后天\"这类省略和指代。\n\n" +
+        "6. 只返回 JSON，不要额外文字。";
+
+    /**
+     * 按模板创建表单后提取字段值：表单结构已确定，模型只需从用户输入中取出提到的值
+     */
+    static final String EXTRACTION_PROMPT =
+        "你是一个表单填写助手。用户要创建的表单已经确定，请从用户的自然语言输入中提取表单字段的值。\n\n" +
+        "每轮会给出表单定义和用户输入。表单定义是JSON数组，" + FormContextEncoder.LEGEND + "。\n\n" +
+        "请返回JSON：{\"field_updates\": {字段名: 值}}\n\n" +
+        "规则：\n\n" +
+        "1. 只提取用户明确提到的值，键使用字段的 name，没有提到的字段不要返回。\n\n" +
+        "2. 日期字段使用 yyyy-MM-dd 格式；下拉字段的值必须是可选项之一；数字字段只返回数字。\n\n" +
+        "3. 没有可提取的值时返回 {\"field_updates\": {}}。\n\n" +
+        "4. 只返回 JSON，不要额外文字。";
+
+    private IntentPromptTemplate() {
+    }
+
+    /**
+     * 组装消息列表：固定的 system 前缀 + 只含可变部分的 user 消息
+     */
+    public static List<OpenAIRequest.Message> build(String context, String historyContext, String userMessage) {
+        StringBuilder prompt = new StringBuilder(context.length() + historyContext.length() + userMessage.length() + 64);
+        prompt.append("现有表单定义：\n").append(context).append("\n\n");
+        if (!historyContext.isEmpty()) {
+            prompt.append("最近的对话：\n").append(historyContext).append("\n\n");
+        }
+        prompt.append("用户输入：\n").append(userMessage);
+        return List.of(new OpenAIRequest.Message("system", SYSTEM_PROMPT), new OpenAIRequest.Message("user", prompt.toString()));
+    }
+
+    /**
+     * 组装字段值提取的消息列表：固定的 system 前缀 + 表单定义和用户输入
+     */
+    public static List<OpenAIRequest.Message> buildExtraction(String context, String userMessage) {
+        String prompt = "表单定义：\n" + context + "\n\n用户输入：\n" + userMessage;
+        return List.of(new OpenAIRequest.Message("system", EXTRACTION_PROMPT), new OpenAIRequest.Message("user", prompt));
+    }
+}
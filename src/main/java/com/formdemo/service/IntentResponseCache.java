@@ -0,0 +1,195 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import com.formdemo.model.LLMIntentResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * LLM意图识别结果缓存
+ * 以"规范化后的用户消息 + 表单上下文哈希"为键，缓存解析后的 LLMIntentResponse。
+ * 容量有界（按最近访问顺序LRU淘汰），并带有过期时间（TTL）。
+ * 写入和命中时都做深拷贝，调用方修改返回值不会污染缓存。
+ */
+@Service
+public class IntentResponseCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // accessOrder=true：按访问顺序排列，最久未访问的在队首
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @Autowired
+    public IntentResponseCache(@Value("${assistant.intent-cache.max-size:1000}") int maxSize,
+                               @Value("${assistant.intent-cache.ttl-seconds:600}") long ttlSeconds) {
+        this(maxSize, TimeUnit.SECONDS.toNanos(ttlSeconds), System::nanoTime);
+    }
+
+    IntentResponseCache(int maxSize, long ttlNanos, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+    }
+
+    /**
+     * 构建缓存键：规范化消息（去首尾空白、合并空白）+ 表单上下文的SHA-256摘要
+     * 不转小写：邮箱、姓名、单号等字段值只差大小写时提取结果不同，不能共用缓存
+     */
+    public static String buildKey(String userMessage, String formContext) {
+        String normalized = userMessage == null ? "" : userMessage.trim().replaceAll("\\s+", " ");
+        return normalized + "#" + sha256(formContext == null ? "" : formContext);
+    }
+
+    /**
+     * 查询缓存，命中时返回深拷贝；未命中或已过期返回 null
+     */
+    public LLMIntentResponse get(String key) {
+        if (maxSize <= 0) {
+            misses.increment();
+            return null;
+        }
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copyOf(entry.response);
+    }
+
+    /**
+     * 写入缓存，超过容量时淘汰最久未访问的条目
+     */
+    public void put(String key, LLMIntentResponse response) {
+        if (maxSize <= 0 || response == null) {
+            return;
+        }
+        CacheEntry entry = new CacheEntry(copyOf(response), clock.getAsLong());
+        synchronized (entries) {
+            entries.put(key, entry);
+            Iterator<CacheEntry> it = entries.values().iterator();
+            while (entries.size() > maxSize && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 缓存统计信息：命中、未命中、淘汰、过期次数以及当前条目数
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    private boolean isExpired(CacheEntry entry) {
+        return ttlNanos > 0 && clock.getAsLong() - entry.createdAt >= ttlNanos;
+    }
+
+    /**
+     * 深拷贝意图响应（表单字段和字段更新都会被复制）
+     */
+    static LLMIntentResponse copyOf(LLMIntentResponse source) {
+        LLMIntentResponse copy = new LLMIntentResponse();
+        copy.setIntent(source.getIntent());
+
+        if (source.getFormFields() != null) {
+            List<FormField> fields = new ArrayList<>(source.getFormFields().size());
+            for (FormField field : source.getFormFields()) {
+                fields.add(new FormField(
+                    field.getName(),
+                    field.getLabel(),
+                    field.getType(),
+                    field.getDefaultValue(),
+                    field.getOptions() != null ? new ArrayList<>(field.getOptions()) : null,
+                    field.isRequired(),
+                    field.getPlaceholder()
+                ));
+            }
+            copy.setFormFields(fields);
+        }
+
+        if (source.getFieldUpdates() != null) {
+            copy.setFieldUpdates(new HashMap<>(source.getFieldUpdates()));
+        }
+        return copy;
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class CacheEntry {
+        private final LLMIntentResponse response;
+        private final long createdAt;
+
+        private CacheEntry(LLMIntentResponse response, long createdAt) {
+            this.response = response;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.formdemo.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * 多模式关键词自动机（Aho-Corasick）
+ * 将"类别 -> 关键词列表"的词典一次性编译，之后对消息只做一次线性扫描即可得到命中的所有类别，
+ * 扫描开销与关键词数量无关。匹配不区分大小写。编译后的实例不可变，可在多线程间共享。
+ */
+public final class KeywordAutomaton {
+
+    private static final int MAX_CATEGORIES = 64;
+
+    private final List<String> categories;
+    private final int keywordCount;
+
+    // 每个状态的转移：按字符排序的边及其目标状态
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    // 每个状态（含失败链上的后缀）所命中类别的位掩码
+    private final long[] outputs;
+    // 每个状态（含失败链上的后缀）命中的最长关键词长度，未命中为 0
+    private final int[] matchLengths;
+
+    private KeywordAutomaton(List<String> categories, int keywordCount, char[][] edgeChars,
+                             int[][] edgeTargets, int[] failure, long[] outputs, int[] matchLengths) {
+        this.categories = categories;
+        this.keywordCount = keywordCount;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.failure = failure;
+        this.outputs = outputs;
+        this.matchLengths = matchLengths;
+    }
+
+    /**
+     * 编译词典
+     * @param dictionary 类别 -> 关键词列表（最多64个类别）
+     */
+    public static KeywordAutomaton compile(Map<String, ? extends Collection<String>> dictionary) {
+        if (dictionary.size() > MAX_CATEGORIES) {
+            throw new IllegalArgumentException("最多支持 " + MAX_CATEGORIES + " 个关键词类别，实际为 " + dictionary.size());
+        }
+
+        // 1. 构建字典树
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Long> terminal = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        trie.add(new HashMap<>());
+        terminal.add(0L);
+        depths.add(0);
+
+        List<String> categories = new ArrayList<>(dictionary.keySet());
+        int keywordCount = 0;
+        for (int categoryIndex = 0; categoryIndex < categories.size(); categoryIndex++) {
+            Collection<String> keywords = dictionary.get(categories.get(categoryIndex));
+            if (keywords == null) {
+                continue;
+            }
+            for (String keyword : keywords) {
+                if (keyword == null || keyword.isEmpty()) {
+                    continue;
+                }
+                int state = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = Character.toLowerCase(keyword.charAt(i));
+                    Integer next = trie.get(state).get(c);
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new HashMap<>());
+                        terminal.add(0L);
+                        depths.add(i + 1);
+                        trie.get(state).put(c, next);
+                    }
+                    state = next;
+                }
+                terminal.set(state, terminal.get(state) | (1L << categoryIndex));
+                keywordCount++;
+            }
+        }
+
+        // 2. 转为紧凑数组
+        int size = trie.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        long[] outputs = new long[size];
+        int[] matchLengths = new int[size];
+        for (int state = 0; state < size; state++) {
+            Map<Character, Integer> edges = trie.get(state);
+            char[] chars = new char[edges.size()];
+            int i = 0;
+            for (Character c : edges.keySet()) {
+                chars[i++] = c;
+            }
+            Arrays.sort(chars);
+            int[] targets = new int[chars.length];
+            for (int j = 0; j < chars.length; j++) {
+                targets[j] = edges.get(chars[j]);
+            }
+            edgeChars[state] = chars;
+            edgeTargets[state] = targets;
+            outputs[state] = terminal.get(state);
+            matchLengths[state] = outputs[state] != 0 ? depths.get(state) : 0;
+        }
+
+        // 3. BFS 计算失败指针，并沿失败链合并输出
+        int[] failure = new int[size];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int target : edgeTargets[0]) {
+            failure[target] = 0;
+            queue.add(target);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int j = 0; j < edgeChars[state].length; j++) {
+                char c = edgeChars[state][j];
+                int child = edgeTargets[state][j];
+                int fallback = failure[state];
+                int next = step(edgeChars, edgeTargets, fallback, c);
+                while (next < 0 && fallback != 0) {
+                    fallback = failure[fallback];
+                    next = step(edgeChars, edgeTargets, fallback, c);
+                }
+                failure[child] = next < 0 || next == child ? 0 : next;
+                outputs[child] |= outputs[failure[child]];
+                if (matchLengths[child] == 0) {
+                    matchLengths[child] = matchLengths[failure[child]];
+                }
+                queue.add(child);
+            }
+        }
+
+        return new KeywordAutomaton(Collections.unmodifiableList(categories), keywordCount,
+                                    edgeChars, edgeTargets, failure, outputs, matchLengths);
+    }
+
+    /**
+     * 单次扫描文本，返回命中的类别（按词典中的类别顺序）
+     */
+    public Set<String> findCategories(CharSequence text) {
+        long matched = scan(text);
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i < categories.size(); i++) {
+            if ((matched & (1L << i)) != 0) {
+                result.add(categories.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 文本是否命中任意关键词
+     */
+    public boolean containsAny(CharSequence text) {
+        return scan(text) != 0;
+    }
+
+    /**
+     * 去掉文本中命中的所有关键词（重叠的关键词一并去掉），返回剩余内容
+     */
+    public String removeKeywords(CharSequence text) {
+        if (text == null) {
+            return "";
+        }
+        boolean[] covered = new boolean[text.length()];
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = step(edgeChars, edgeTargets, state, c);
+            while (next < 0 && state != 0) {
+                state = failure[state];
+                next = step(edgeChars, edgeTargets, state, c);
+            }
+            state = next < 0 ? 0 : next;
+            for (int j = i - matchLengths[state] + 1; j <= i; j++) {
+                covered[j] = true;
+            }
+        }
+        StringBuilder rest = new StringBuilder(text.length());
+        for (int i = 0; i < covered.length; i++) {
+            if (!covered[i]) {
+                rest.append(text.charAt(i));
+            }
+        }
+        return rest.toString();
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    private long scan(CharSequence text) {
+        if (text == null) {
+            return 0L;
+        }
+        long allCategories = categories.size() == MAX_CATEGORIES ? -1L : (1L << categories.size()) - 1;
+        long matched = 0L;
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = step(edgeChars, edgeTargets, state, c);
+            while (next < 0 && state != 0) {
+                state = failure[state];
+                next = step(edgeChars, edgeTargets, state, c);
+            }
+            state = next < 0 ? 0 : next;
+            matched |= outputs[state];
+            if (matched == allCategories) {
+                break;
+            }
+        }
+        return matched;
+    }
+
+    private static int step(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+        int index = Arrays.binarySearch(edgeChars[state], c);
+        return index >= 0 ? edgeTargets[state][index] : -1;
+    }
+}
@@ -0,0 +1,101 @@
+package com.formdemo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图
+ * 桶边界按约 1.25 倍递增（1µs ~ 约 2 小时），记录开销为一次二分查找加一次 LongAdder 累加，
+ * 可在热路径上使用。百分位为所在桶的上界，相对误差不超过 25%。
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_UPPER_MICROS;
+
+    static {
+        List<Long> bounds = new ArrayList<>();
+        double bound = 1;
+        while (bound < 8_000_000_000.0) {
+            long rounded = Math.round(bound);
+            if (bounds.isEmpty() || bounds.get(bounds.size() - 1) != rounded) {
+                bounds.add(rounded);
+            }
+            bound *= 1.25;
+        }
+        BUCKET_UPPER_MICROS = new long[bounds.size()];
+        for (int i = 0; i < bounds.size(); i++) {
+            BUCKET_UPPER_MICROS[i] = bounds.get(i);
+        }
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_UPPER_MICROS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1_000);
+    }
+
+    public void recordMicros(long micros) {
+        long value = Math.max(0, micros);
+        int index = Arrays.binarySearch(BUCKET_UPPER_MICROS, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        buckets[index].increment();
+        count.increment();
+        totalMicros.add(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 百分位延迟（微秒），无数据时返回 0
+     * @param percentile 0~100
+     */
+    public long percentileMicros(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= Math.max(1, rank)) {
+                return i < BUCKET_UPPER_MICROS.length ? Math.min(BUCKET_UPPER_MICROS[i], maxMicros.get()) : maxMicros.get();
+            }
+        }
+        return maxMicros.get();
+    }
+
+    /**
+     * 统计快照（毫秒）：次数、平均值、p50/p95/p99、最大值
+     */
+    public Map<String, Object> snapshot() {
+        long total = count.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", total);
+        stats.put("meanMillis", total == 0 ? 0.0 : totalMicros.sum() / 1000.0 / total);
+        stats.put("p50Millis", percentileMicros(50) / 1000.0);
+        stats.put("p95Millis", percentileMicros(95) / 1000.0);
+        stats.put("p99Millis", percentileMicros(99) / 1000.0);
+        stats.put("maxMillis", maxMicros.get() / 1000.0);
+        return stats;
+    }
+}
@@ -0,0 +1,122 @@
+package com.formdemo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LLM HTTP 调用的并发限制：全局最多 maxRequests 个、每个服务商主机最多 maxRequestsPerHost 个进行中的调用
+ * OkHttp 的 Dispatcher 只限制 enqueue() 发起的异步调用，客户端使用的同步 execute() 不受其约束，
+ * 因此在调用线程（虚拟线程）上用公平信号量排队。许可一直持有到响应体读完（包括流式输出）。
+ * 限制配置为 0 表示不限制。
+ */
+public class LlmConcurrencyLimiter {
+
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final Semaphore global;
+    private final ConcurrentHashMap<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder delayed = new LongAdder();
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+    public LlmConcurrencyLimiter(int maxRequests, int maxRequestsPerHost) {
+        this.maxRequests = maxRequests;
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.global = maxRequests > 0 ? new Semaphore(maxRequests, true) : null;
+    }
+
+    /**
+     * 获取一次调用的许可，达到上限时阻塞排队；先占用主机许可再占用全局许可，热点主机的排队不占用全局名额
+     * @param host 服务商主机名
+     */
+    public Permit acquire(String host) throws InterruptedException {
+        Semaphore hostPermits = maxRequestsPerHost > 0
+            ? hosts.computeIfAbsent(host, h -> new Semaphore(maxRequestsPerHost, true)) : null;
+        long start = System.nanoTime();
+        boolean waited = acquire(hostPermits);
+        try {
+            waited |= acquire(global);
+        } catch (InterruptedException e) {
+            if (hostPermits != null) {
+                hostPermits.release();
+            }
+            throw e;
+        }
+        if (waited) {
+            delayed.increment();
+        }
+        queueLatency.recordNanos(System.nanoTime() - start);
+        running.incrementAndGet();
+        return new Permit(hostPermits);
+    }
+
+    public int runningCalls() {
+        return running.get();
+    }
+
+    public int queuedCalls() {
+        return queued.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxRequests", maxRequests);
+        stats.put("maxRequestsPerHost", maxRequestsPerHost);
+        stats.put("runningCalls", running.get());
+        stats.put("queuedCalls", queued.get());
+        stats.put("delayedCalls", delayed.sum());
+        stats.put("queueLatency", queueLatency.snapshot());
+        return stats;
+    }
+
+    /**
+     * 获取一个许可，返回是否需要排队等待
+     */
+    private boolean acquire(Semaphore semaphore) throws InterruptedException {
+        // 带超时的 tryAcquire 遵守公平性，不会插队到排队的调用前面
+        if (semaphore == null || semaphore.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        queued.incrementAndGet();
+        try {
+            semaphore.acquire();
+        } finally {
+            queued.decrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * 调用结束（响应体读完或失败）时关闭，归还许可；重复关闭无影响
+     */
+    public final class Permit implements AutoCloseable {
+        private final Semaphore hostPermits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore hostPermits) {
+            this.hostPermits = hostPermits;
+        }
+
+        @Override
+        public void close() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            running.decrementAndGet();
+            if (global != null) {
+                global.release();
+            }
+            if (hostPermits != null) {
+                hostPermits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.formdemo.service;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.InetAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LLM HTTP 客户端的连接级指标
+ * 作为 OkHttp 的 EventListener 工厂，每次调用创建一个监听器记录各阶段耗时：
+ * 获取连接的等待时间（不含DNS解析、建连和TLS握手）、新建连接和TLS握手次数及耗时、首字节时间、整体调用耗时；
+ * 同时读取连接池和并发限制的实时状态（活跃/空闲连接、进行中和排队的调用）。
+ */
+public class LlmHttpMetrics implements EventListener.Factory {
+
+    private final ConnectionPool connectionPool;
+    private final LlmConcurrencyLimiter concurrencyLimiter;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectionsReused = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder handshakes = new LongAdder();
+    private final LongAdder http2Connections = new LongAdder();
+
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final LatencyHistogram handshakeLatency = new LatencyHistogram();
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+    private final LatencyHistogram callLatency = new LatencyHistogram();
+
+    public LlmHttpMetrics(ConnectionPool connectionPool, LlmConcurrencyLimiter concurrencyLimiter) {
+        this.connectionPool = connectionPool;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallListener();
+    }
+
+    public Map<String, Object> getStats() {
+        int total = connectionPool.connectionCount();
+        int idle = connectionPool.idleConnectionCount();
+
+        Map<String, Object> pool = new LinkedHashMap<>();
+        pool.put("activeConnections", total - idle);
+        pool.put("idleConnections", idle);
+        pool.put("runningCalls", concurrencyLimiter.runningCalls());
+        pool.put("queuedCalls", concurrencyLimiter.queuedCalls());
+
+        long opened = connectionsOpened.sum();
+        long reused = connectionsReused.sum();
+        Map<String, Object> connections = new LinkedHashMap<>();
+        connections.put("opened", opened);
+        connections.put("reused", reused);
+        connections.put("reuseRate", opened + reused == 0 ? 0.0 : (double) reused / (opened + reused));
+        connections.put("connectFailures", connectFailures.sum());
+        connections.put("tlsHandshakes", handshakes.sum());
+        connections.put("http2", http2Connections.sum());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.sum());
+        stats.put("failedCalls", failedCalls.sum());
+        stats.put("pool", pool);
+        stats.put("connections", connections);
+        stats.put("concurrency", concurrencyLimiter.getStats());
+        stats.put("acquireLatency", acquireLatency.snapshot());
+        stats.put("connectLatency", connectLatency.snapshot());
+        stats.put("handshakeLatency", handshakeLatency.snapshot());
+        stats.put("timeToFirstByte", timeToFirstByte.snapshot());
+        stats.put("callLatency", callLatency.snapshot());
+        return stats;
+    }
+
+    /**
+     * 单次调用的监听器（OkHttp 保证同一调用的事件按顺序回调）
+     */
+    private final class CallListener extends EventListener {
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long handshakeStart;
+        private long setupNanos;
+        private boolean connected;
+
+        @Override
+        public void callStart(Call call) {
+            callStart = System.nanoTime();
+            calls.increment();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+            setupNanos += System.nanoTime() - dnsStart;
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            handshakeStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            handshakes.increment();
+            handshakeLatency.recordNanos(System.nanoTime() - handshakeStart);
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            connected = true;
+            connectionsOpened.increment();
+            long connectNanos = System.nanoTime() - connectStart;
+            setupNanos += connectNanos;
+            connectLatency.recordNanos(connectNanos);
+            if (protocol == Protocol.HTTP_2) {
+                http2Connections.increment();
+            }
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol,
+                                  IOException e) {
+            connectFailures.increment();
+            setupNanos += System.nanoTime() - connectStart;
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            // 本次调用没有新建连接，说明复用了连接池中的连接
+            if (!connected) {
+                connectionsReused.increment();
+            }
+            // 建连（含TLS握手）和DNS解析的耗时单独统计，这里只计获取连接的等待
+            acquireLatency.recordNanos(Math.max(0, System.nanoTime() - callStart - setupNanos));
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            timeToFirstByte.recordNanos(System.nanoTime() - callStart);
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            callLatency.recordNanos(System.nanoTime() - callStart);
+        }
+
+        @Override
+        public void callFailed(Call call, IOException e) {
+            failedCalls.increment();
+            callLatency.recordNanos(System.nanoTime() - callStart);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.formdemo.service;
+
+import com.formdemo.exception.LlmProviderException;
+import com.formdemo.model.OpenAIRequest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 一个 OpenAI 兼容的LLM服务商：客户端 + 熔断器 + 延迟统计
+ */
+public class LlmProvider {
+
+    private final String name;
+    private final OpenAICompatibleClient client;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public LlmProvider(String name, OpenAICompatibleClient client, CircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.client = client;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public String complete(List<OpenAIRequest.Message> messages) {
+        return complete(messages, () -> false);
+    }
+
+    /**
+     * @param cancelled 调用方是否已放弃本次请求（如对冲请求中已有其他服务商返回）
+     */
+    public String complete(List<OpenAIRequest.Message> messages, BooleanSupplier cancelled) {
+        return call(() -> client.complete(messages), cancelled);
+    }
+
+    /**
+     * 流式调用；onDelta 抛出的异常（如SSE客户端断开）原样抛给调用方，不计为服务商故障
+     */
+    public String stream(List<OpenAIRequest.Message> messages, Consumer<String> onDelta) {
+        return call(() -> client.stream(messages, delta -> {
+            try {
+                onDelta.accept(delta);
+            } catch (RuntimeException e) {
+                throw new CallerException(e);
+            }
+        }), () -> false);
+    }
+
+    private String call(Supplier<String> request, BooleanSupplier cancelled) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new LlmProviderException("LLM 服务 " + name + " 已熔断", 503, false);
+        }
+        long start = System.nanoTime();
+        try {
+            String result = request.get();
+            latency.recordNanos(System.nanoTime() - start);
+            successes.increment();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (CallerException e) {
+            circuitBreaker.release();
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted() || cancelled.getAsBoolean()) {
+                // 对冲请求中落败被取消，不计为服务商故障；超时（SocketTimeoutException 等）仍计为失败
+                circuitBreaker.release();
+            } else {
+                failures.increment();
+                circuitBreaker.onFailure();
+            }
+            throw e;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isAvailable() {
+        return circuitBreaker.isAvailable();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("model", client.getModel());
+        stats.put("successes", successes.sum());
+        stats.put("failures", failures.sum());
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+        stats.put("latency", latency.snapshot());
+        return stats;
+    }
+
+    /**
+     * 调用方回调抛出的异常，用于和服务商、网络错误区分
+     */
+    private static final class CallerException extends RuntimeException {
+        CallerException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+}
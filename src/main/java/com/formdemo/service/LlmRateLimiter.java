@@ -0,0 +1,87 @@
+package com.formdemo.service;
+
+import com.formdemo.exception.RateLimitedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * LLM调用限流：全局令牌桶 + 每个会话一个令牌桶
+ * 在请求发往服务商之前拦截，避免突发流量触发服务商的限流或耗尽配额。
+ * 先检查全局令牌桶，通过后才扣减会话令牌桶；会话被限流时归还全局令牌，被拒绝的请求不消耗任何一方的额度。
+ * 速率配置为 0 表示不限制。
+ */
+@Component
+public class LlmRateLimiter {
+
+    private final TokenBucket globalBucket;
+    private final double sessionPermitsPerSecond;
+    private final int sessionBurst;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, TokenBucket> sessionBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder globalRejected = new LongAdder();
+    private final LongAdder sessionRejected = new LongAdder();
+
+    public LlmRateLimiter(@Value("${assistant.rate-limit.global-per-second:20}") double globalPerSecond,
+                          @Value("${assistant.rate-limit.global-burst:40}") int globalBurst,
+                          @Value("${assistant.rate-limit.session-per-minute:10}") double sessionPerMinute,
+                          @Value("${assistant.rate-limit.session-burst:5}") int sessionBurst) {
+        this(globalPerSecond, globalBurst, sessionPerMinute, sessionBurst, System::nanoTime);
+    }
+
+    LlmRateLimiter(double globalPerSecond, int globalBurst, double sessionPerMinute, int sessionBurst,
+                   LongSupplier clock) {
+        this.clock = clock;
+        this.globalBucket = globalPerSecond > 0 ? new TokenBucket(globalPerSecond, globalBurst, clock) : null;
+        this.sessionPermitsPerSecond = sessionPerMinute / 60.0;
+        this.sessionBurst = sessionBurst;
+    }
+
+    /**
+     * 为一次LLM调用申请许可，超出限制时抛出 RateLimitedException
+     */
+    public void acquire(String sessionId) {
+        if (globalBucket != null && !globalBucket.tryAcquire()) {
+            globalRejected.increment();
+            throw new RateLimitedException("当前使用人数较多，请稍后再试。", globalBucket.retryAfterMillis());
+        }
+        if (sessionId != null && sessionPermitsPerSecond > 0) {
+            TokenBucket bucket = sessionBuckets.computeIfAbsent(sessionId,
+                id -> new TokenBucket(sessionPermitsPerSecond, sessionBurst, clock));
+            if (!bucket.tryAcquire()) {
+                if (globalBucket != null) {
+                    globalBucket.release();
+                }
+                sessionRejected.increment();
+                throw new RateLimitedException("您发送得太快了，请稍后再试。", bucket.retryAfterMillis());
+            }
+        }
+        allowed.increment();
+    }
+
+    /**
+     * 清理已补满的会话令牌桶（对应会话近期没有LLM调用）
+     */
+    @Scheduled(fixedDelayString = "${assistant.session.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        sessionBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("allowed", allowed.sum());
+        stats.put("globalRejected", globalRejected.sum());
+        stats.put("sessionRejected", sessionRejected.sum());
+        stats.put("globalAvailable", globalBucket != null ? globalBucket.availablePermits() : -1);
+        stats.put("trackedSessions", sessionBuckets.size());
+        return stats;
+    }
+}
@@ -0,0 +1,226 @@
+package com.formdemo.service;
+
+import com.formdemo.exception.LlmProviderException;
+import com.formdemo.model.OpenAIRequest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 多服务商LLM路由
+ * 按近期延迟（p50）从低到高选择未熔断的服务商；主请求超过其 p95 延迟仍未返回时，
+ * 向下一个服务商发出对冲请求，取先成功的结果并取消另一个。请求失败时依次转移到下一个服务商。
+ * 未配置任何服务商时，普通调用和流式调用都使用默认客户端（api-url/api-model），
+ * 同样经过共享的HTTP连接池、并发限制和用量统计。
+ */
+public class LlmRouter {
+
+    private final List<LlmProvider> providers;
+    private final OpenAICompatibleClient defaultClient;
+    private final ExecutorService executor;
+    private final HedgePolicy hedgePolicy;
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public LlmRouter(List<LlmProvider> providers, OpenAICompatibleClient defaultClient,
+                     ExecutorService executor, HedgePolicy hedgePolicy) {
+        this.providers = List.copyOf(providers);
+        this.defaultClient = defaultClient;
+        this.executor = executor;
+        this.hedgePolicy = hedgePolicy;
+    }
+
+    /**
+     * 非流式调用，返回完整回复内容
+     */
+    public String complete(List<OpenAIRequest.Message> messages) {
+        if (providers.isEmpty()) {
+            return defaultClient.complete(messages);
+        }
+        List<LlmProvider> candidates = rankCandidates();
+
+        ExecutorCompletionService<String> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<String>, LlmProvider> started = new HashMap<>();
+        // 返回或放弃后仍未结束的请求会被取消，其失败不计入服务商的熔断统计
+        AtomicBoolean finished = new AtomicBoolean();
+        LlmProvider primary = candidates.get(0);
+        started.put(completion.submit(() -> primary.complete(messages, finished::get)), primary);
+        int next = 1;
+        int pending = 1;
+        boolean hedged = !hedgePolicy.isEnabled();
+        LlmProvider hedgeProvider = null;
+        RuntimeException lastError = null;
+
+        try {
+            while (pending > 0) {
+                Future<String> done;
+                if (!hedged && next < candidates.size()) {
+                    done = completion.poll(hedgeDelayMillis(candidates.get(next - 1)), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        // 主请求超过对冲延迟仍未返回，向下一个服务商发出对冲请求
+                        hedged = true;
+                        hedges.increment();
+                        LlmProvider backup = candidates.get(next++);
+                        hedgeProvider = backup;
+                        started.put(completion.submit(() -> backup.complete(messages, finished::get)), backup);
+                        pending++;
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+                pending--;
+
+                try {
+                    String result = done.get();
+                    if (started.get(done) == hedgeProvider) {
+                        hedgeWins.increment();
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    lastError = e.getCause() instanceof RuntimeException
+                        ? (RuntimeException) e.getCause()
+                        : new LlmProviderException("LLM 调用失败: " + e.getCause(), e.getCause());
+                    if (pending == 0 && next < candidates.size()) {
+                        failovers.increment();
+                        LlmProvider fallback = candidates.get(next++);
+                        started.put(completion.submit(() -> fallback.complete(messages, finished::get)), fallback);
+                        pending++;
+                    }
+                }
+            }
+            throw lastError;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmProviderException("LLM 调用被中断", e);
+        } finally {
+            finished.set(true);
+            for (Future<String> future : started.keySet()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 流式调用：选择最快的可用服务商；在收到第一段输出之前失败时转移到下一个服务商
+     */
+    public String stream(List<OpenAIRequest.Message> messages, Consumer<String> onDelta) {
+        if (providers.isEmpty()) {
+            return defaultClient.stream(messages, onDelta);
+        }
+        RuntimeException lastError = null;
+        for (LlmProvider provider : rankCandidates()) {
+            boolean[] emitted = {false};
+            try {
+                return provider.stream(messages, delta -> {
+                    emitted[0] = true;
+                    onDelta.accept(delta);
+                });
+            } catch (LlmProviderException e) {
+                if (emitted[0]) {
+                    throw e;
+                }
+                lastError = e;
+                failovers.increment();
+            }
+        }
+        throw lastError;
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> providerStats = new ArrayList<>();
+        for (LlmProvider provider : providers) {
+            providerStats.add(provider.getStats());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", providers.isEmpty() ? "default" : "routed");
+        stats.put("hedges", hedges.sum());
+        stats.put("hedgeWins", hedgeWins.sum());
+        stats.put("failovers", failovers.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("providers", providerStats);
+        return stats;
+    }
+
+    /**
+     * 未熔断的服务商，按 p50 延迟升序；样本不足的服务商排在前面以便尽快积累统计，相同时保持配置顺序
+     */
+    List<LlmProvider> rankCandidates() {
+        List<LlmProvider> candidates = new ArrayList<>();
+        for (LlmProvider provider : providers) {
+            if (provider.isAvailable()) {
+                candidates.add(provider);
+            }
+        }
+        if (candidates.isEmpty()) {
+            rejected.increment();
+            throw new LlmProviderException("所有 LLM 服务均已熔断，请稍后再试", 503, false);
+        }
+        candidates.sort(Comparator.comparingLong(this::latencyScore));
+        return candidates;
+    }
+
+    private long latencyScore(LlmProvider provider) {
+        LatencyHistogram latency = provider.getLatency();
+        return latency.getCount() < hedgePolicy.getMinSamples() ? 0 : latency.percentileMicros(50);
+    }
+
+    /**
+     * 对冲延迟：该服务商的 p95 延迟（不低于下限）；样本不足时使用默认值
+     */
+    long hedgeDelayMillis(LlmProvider provider) {
+        LatencyHistogram latency = provider.getLatency();
+        if (latency.getCount() < hedgePolicy.getMinSamples()) {
+            return hedgePolicy.getDefaultDelayMillis();
+        }
+        return Math.max(hedgePolicy.getMinDelayMillis(), latency.percentileMicros(95) / 1000);
+    }
+
+    /**
+     * 对冲请求策略
+     */
+    public static class HedgePolicy {
+        private final boolean enabled;
+        private final long minDelayMillis;
+        private final long defaultDelayMillis;
+        private final int minSamples;
+
+        public HedgePolicy(boolean enabled, long minDelayMillis, long defaultDelayMillis, int minSamples) {
+            this.enabled = enabled;
+            this.minDelayMillis = minDelayMillis;
+            this.defaultDelayMillis = defaultDelayMillis;
+            this.minSamples = minSamples;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public long getMinDelayMillis() {
+            return minDelayMillis;
+        }
+
+        public long getDefaultDelayMillis() {
+            return defaultDelayMillis;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.exception.RateLimitedException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LLM token 额度（按天、按月）
+ * 记录每次调用消耗的 token（优先使用服务商返回的实际用量，未返回时使用估算值），
+ * 用量达到 downgrade-ratio 时进入降级模式（提示词不再携带对话历史），
+ * 用完时拒绝新的LLM调用，直到下一个周期自动恢复。额度配置为 0 表示不限制。
+ * 配置了 state-file 时定期把当前周期的用量写入该文件，重启后继续累计；未配置时只是单个进程内的软限制。
+ * 多实例部署时每个实例各自计数。
+ */
+@Component
+public class LlmTokenBudget {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmTokenBudget.class);
+    private static final ObjectMapper STATE_MAPPER = new ObjectMapper();
+
+    private final long dailyLimit;
+    private final long monthlyLimit;
+    private final double downgradeRatio;
+    private final Clock clock;
+    private final Path stateFile;
+
+    private final AtomicReference<Usage> daily = new AtomicReference<>(new Usage(Long.MIN_VALUE));
+    private final AtomicReference<Usage> monthly = new AtomicReference<>(new Usage(Long.MIN_VALUE));
+    private final LongAdder rejected = new LongAdder();
+    private volatile boolean dirty;
+
+    @Autowired
+    public LlmTokenBudget(@Value("${assistant.budget.daily-tokens:0}") long dailyLimit,
+                          @Value("${assistant.budget.monthly-tokens:0}") long monthlyLimit,
+                          @Value("${assistant.budget.downgrade-ratio:0.8}") double downgradeRatio,
+                          @Value("${assistant.budget.state-file:}") String stateFile) {
+        this(dailyLimit, monthlyLimit, downgradeRatio, Clock.systemDefaultZone(),
+             stateFile.isBlank() ? null : Path.of(stateFile));
+    }
+
+    LlmTokenBudget(long dailyLimit, long monthlyLimit, double downgradeRatio, Clock clock) {
+        this(dailyLimit, monthlyLimit, downgradeRatio, clock, null);
+    }
+
+    LlmTokenBudget(long dailyLimit, long monthlyLimit, double downgradeRatio, Clock clock, Path stateFile) {
+        this.dailyLimit = dailyLimit;
+        this.monthlyLimit = monthlyLimit;
+        this.downgradeRatio = downgradeRatio;
+        this.clock = clock;
+        this.stateFile = stateFile;
+        restore();
+    }
+
+    /**
+     * 额度用完时抛出 RateLimitedException
+     */
+    public void ensureAvailable() {
+        if (dailyLimit > 0 && dailyUsed() >= dailyLimit) {
+            rejected.increment();
+            throw new RateLimitedException("今日 AI 调用额度已用完，明天将自动恢复。", millisUntilNextDay());
+        }
+        if (monthlyLimit > 0 && monthlyUsed() >= monthlyLimit) {
+            rejected.increment();
+            throw new RateLimitedException("本月 AI 调用额度已用完，下月将自动恢复。", millisUntilNextMonth());
+        }
+    }
+
+    /**
+     * 用量是否已达到降级阈值
+     */
+    public boolean shouldDowngrade() {
+        return (dailyLimit > 0 && dailyUsed() >= dailyLimit * downgradeRatio)
+            || (monthlyLimit > 0 && monthlyUsed() >= monthlyLimit * downgradeRatio);
+    }
+
+    public void record(long tokens) {
+        if (tokens <= 0) {
+            return;
+        }
+        LocalDate today = LocalDate.now(clock);
+        current(daily, today.toEpochDay()).tokens.add(tokens);
+        current(monthly, monthKey(today)).tokens.add(tokens);
+        dirty = true;
+    }
+
+    public long dailyUsed() {
+        return current(daily, LocalDate.now(clock).toEpochDay()).tokens.sum();
+    }
+
+    public long monthlyUsed() {
+        return current(monthly, monthKey(LocalDate.now(clock))).tokens.sum();
+    }
+
+    public Map<String, Object> getStats() {
+        long dayUsed = dailyUsed();
+        long monthUsed = monthlyUsed();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dailyLimit", dailyLimit);
+        stats.put("dailyUsed", dayUsed);
+        stats.put("dailyRemaining", dailyLimit > 0 ? Math.max(0, dailyLimit - dayUsed) : -1);
+        stats.put("monthlyLimit", monthlyLimit);
+        stats.put("monthlyUsed", monthUsed);
+        stats.put("monthlyRemaining", monthlyLimit > 0 ? Math.max(0, monthlyLimit - monthUsed) : -1);
+        stats.put("downgraded", shouldDowngrade());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * 把当前周期的用量写入 state-file（先写临时文件再原子替换），用量没有变化时跳过
+     */
+    @Scheduled(fixedDelayString = "${assistant.budget.flush-interval-ms:10000}")
+    public void flush() {
+        if (stateFile == null || !dirty) {
+            return;
+        }
+        dirty = false;
+        LocalDate today = LocalDate.now(clock);
+        Usage day = current(daily, today.toEpochDay());
+        Usage month = current(monthly, monthKey(today));
+        Map<String, Long> state = new LinkedHashMap<>();
+        state.put("day", day.periodKey);
+        state.put("dailyTokens", day.tokens.sum());
+        state.put("month", month.periodKey);
+        state.put("monthlyTokens", month.tokens.sum());
+        try {
+            Path parent = stateFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tempFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+            Files.write(tempFile, STATE_MAPPER.writeValueAsBytes(state));
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Failed to save token budget to {}: {}", stateFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    /**
+     * 从 state-file 恢复仍处于当前周期的用量，文件不存在或无法读取时从零开始
+     */
+    private void restore() {
+        if (stateFile == null || !Files.exists(stateFile)) {
+            return;
+        }
+        try {
+            Map<String, Long> state = STATE_MAPPER.readValue(stateFile.toFile(), new TypeReference<Map<String, Long>>() {});
+            LocalDate today = LocalDate.now(clock);
+            restore(daily, today.toEpochDay(), state.get("day"), state.get("dailyTokens"));
+            restore(monthly, monthKey(today), state.get("month"), state.get("monthlyTokens"));
+            log.info("Restored token budget from {}: daily={}, monthly={}", stateFile, dailyUsed(), monthlyUsed());
+        } catch (IOException e) {
+            log.warn("Failed to read token budget from {}, starting from zero: {}", stateFile, e.getMessage());
+        }
+    }
+
+    private static void restore(AtomicReference<Usage> ref, long periodKey, Long savedPeriod, Long savedTokens) {
+        if (savedPeriod != null && savedPeriod == periodKey && savedTokens != null) {
+            current(ref, periodKey).tokens.add(savedTokens);
+        }
+    }
+
+    /**
+     * 取当前周期的用量，周期变化时原子地切换到新的计数器
+     */
+    private static Usage current(AtomicReference<Usage> ref, long periodKey) {
+        while (true) {
+            Usage usage = ref.get();
+            if (usage.periodKey == periodKey) {
+                return usage;
+            }
+            Usage fresh = new Usage(periodKey);
+            if (ref.compareAndSet(usage, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static long monthKey(LocalDate date) {
+        return date.getYear() * 12L + date.getMonthValue();
+    }
+
+    private long millisUntilNextDay() {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        return Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay(now.getZone())).toMillis();
+    }
+
+    private long millisUntilNextMonth() {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        LocalDate firstOfNextMonth = now.toLocalDate().withDayOfMonth(1).plusMonths(1);
+        return Duration.between(now, firstOfNextMonth.atStartOfDay(now.getZone())).toMillis();
+    }
+
+    private static final class Usage {
+        private final long periodKey;
+        private final LongAdder tokens = new LongAdder();
+
+        private Usage(long periodKey) {
+            this.periodKey = periodKey;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.formdemo.service;
+
+import com.formdemo.model.OpenAIResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 服务商返回的实际 token 用量统计
+ * 汇总输入、输出 token 以及命中服务商提示词缓存的输入 token，
+ * 并把调用延迟按"是否命中缓存"分开记录，用于观察固定提示词前缀带来的收益。
+ * 由 OpenAICompatibleClient 记录，未配置多服务商时的默认调用路径同样经过它。
+ * 同时把每次调用的用量计入 token 额度：服务商返回了用量时按实际值，否则按估算值。
+ */
+public class LlmUsageStats {
+
+    private final LlmTokenBudget tokenBudget;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder callsWithoutUsage = new LongAdder();
+    private final LongAdder cacheHitCalls = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private final LongAdder cachedPromptTokens = new LongAdder();
+    private final LongAdder completionTokens = new LongAdder();
+    private final LatencyHistogram cacheHitLatency = new LatencyHistogram();
+    private final LatencyHistogram cacheMissLatency = new LatencyHistogram();
+
+    public LlmUsageStats() {
+        this(null);
+    }
+
+    /**
+     * @param tokenBudget 调用用量计入的 token 额度，为 null 时只做统计
+     */
+    public LlmUsageStats(LlmTokenBudget tokenBudget) {
+        this.tokenBudget = tokenBudget;
+    }
+
+    /**
+     * 记录一次调用；服务商未返回用量时 usage 为 null
+     */
+    public void record(OpenAIResponse.Usage usage, long latencyNanos) {
+        record(usage, latencyNanos, () -> 0);
+    }
+
+    /**
+     * 记录一次调用并计入 token 额度
+     * @param estimatedTokens 服务商未返回用量时计入额度的估算 token 数（仅在需要时计算）
+     */
+    public void record(OpenAIResponse.Usage usage, long latencyNanos, LongSupplier estimatedTokens) {
+        calls.increment();
+        if (usage == null) {
+            callsWithoutUsage.increment();
+            if (tokenBudget != null) {
+                tokenBudget.record(estimatedTokens.getAsLong());
+            }
+            return;
+        }
+        if (tokenBudget != null) {
+            tokenBudget.record(usage.getPromptTokens() + usage.getCompletionTokens());
+        }
+        long cached = usage.getCachedTokens();
+        promptTokens.add(usage.getPromptTokens());
+        cachedPromptTokens.add(cached);
+        completionTokens.add(usage.getCompletionTokens());
+        if (cached > 0) {
+            cacheHitCalls.increment();
+            cacheHitLatency.recordNanos(latencyNanos);
+        } else {
+            cacheMissLatency.recordNanos(latencyNanos);
+        }
+    }
+
+    /**
+     * 用量统计：token 数、缓存命中的输入 token 占比，以及命中/未命中缓存时的延迟
+     */
+    public Map<String, Object> getStats() {
+        long prompt = promptTokens.sum();
+        long cached = cachedPromptTokens.sum();
+        long reported = calls.sum() - callsWithoutUsage.sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.sum());
+        stats.put("callsWithoutUsage", callsWithoutUsage.sum());
+        stats.put("promptTokens", prompt);
+        stats.put("cachedPromptTokens", cached);
+        stats.put("completionTokens", completionTokens.sum());
+        stats.put("cachedTokenRatio", prompt == 0 ? 0.0 : (double) cached / prompt);
+        stats.put("cacheHitCallRate", reported == 0 ? 0.0 : (double) cacheHitCalls.sum() / reported);
+        stats.put("cacheHitLatency", cacheHitLatency.snapshot());
+        stats.put("cacheMissLatency", cacheMissLatency.snapshot());
+        return stats;
+    }
+}
@@ -1,196 +1,371 @@
 package com.formdemo.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.exception.LlmProviderException;
 import com.formdemo.exception.OpenAIException;
+import com.formdemo.exception.RateLimitedException;
 import com.formdemo.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class LocalIntentService {
 
-    private final OpenAIService openAIService;
+    private static final Logger log = LoggerFactory.getLogger(LocalIntentService.class);
+
+    private final LlmRouter llmRouter;
+    private final LlmRateLimiter rateLimiter;
+    private final LlmTokenBudget tokenBudget;
+    private final IntentResponseCache intentResponseCache;
+    private final ChatMetrics chatMetrics;
     private final ObjectMapper objectMapper;
+    private final int historyPromptTurns;
+    private final int historyTokenBudget;
+    // 完全相同的提示词同时只向LLM发送一次请求
+    private final SingleFlight<String, LLMIntentResponse> inFlightRequests = new SingleFlight<>();
+    private final PromptStats promptStats = new PromptStats();
     
-    /**
-     * 字段类型映射表：将中英文类型名称映射到标准HTML表单字段类型
-     */
-    private static final Map<String, String> FIELD_TYPE_MAP = new HashMap<>();
-    
-    static {
-        FIELD_TYPE_MAP.put("日期", "date");
-        FIELD_TYPE_MAP.put("date", "date");
-        FIELD_TYPE_MAP.put("时间", "datetime-local");
-        FIELD_TYPE_MAP.put("datetime", "datetime-local");
-        FIELD_TYPE_MAP.put("姓名", "text");
-        FIELD_TYPE_MAP.put("name", "text");
-        FIELD_TYPE_MAP.put("名字", "text");
-        FIELD_TYPE_MAP.put("生日", "date");
-        FIELD_TYPE_MAP.put("birthday", "birthday");
-        FIELD_TYPE_MAP.put("性别", "select");
-        FIELD_TYPE_MAP.put("gender", "select");
-        FIELD_TYPE_MAP.put("sex", "select");
-        FIELD_TYPE_MAP.put("邮箱", "email");
-        FIELD_TYPE_MAP.put("email", "email");
-        FIELD_TYPE_MAP.put("电话", "tel");
-        FIELD_TYPE_MAP.put("phone", "tel");
-        FIELD_TYPE_MAP.put("数字", "number");
-        FIELD_TYPE_MAP.put("number", "number");
-        FIELD_TYPE_MAP.put("文本", "text");
-        FIELD_TYPE_MAP.put("text", "text");
-        FIELD_TYPE_MAP.put("多行文本", "textarea");
-        FIELD_TYPE_MAP.put("textarea", "textarea");
-        FIELD_TYPE_MAP.put("密码", "password");
-        FIELD_TYPE_MAP.put("password", "password");
-        FIELD_TYPE_MAP.put("选择", "select");
-        FIELD_TYPE_MAP.put("select", "select");
-        FIELD_TYPE_MAP.put("复选框", "checkbox");
-        FIELD_TYPE_MAP.put("checkbox", "checkbox");
-        FIELD_TYPE_MAP.put("单选", "radio");
-        FIELD_TYPE_MAP.put("radio", "radio");
-    }
-
-    public LocalIntentService(OpenAIService openAIService) {
-        this.openAIService = openAIService;
+    public LocalIntentService(LlmRouter llmRouter, IntentResponseCache intentResponseCache,
+                              LlmRateLimiter rateLimiter, LlmTokenBudget tokenBudget, ChatMetrics chatMetrics,
+                              @Value("${assistant.history.prompt-turns:3}") int historyPromptTurns,
+                              @Value("${assistant.history.prompt-token-budget:400}") int historyTokenBudget) {
+        this.llmRouter = llmRouter;
+        this.intentResponseCache = intentResponseCache;
+        this.rateLimiter = rateLimiter;
+        this.tokenBudget = tokenBudget;
+        this.chatMetrics = chatMetrics;
         this.objectMapper = new ObjectMapper();
+        this.historyPromptTurns = historyPromptTurns;
+        this.historyTokenBudget = historyTokenBudget;
     }
 
     /**
      * 使用LLM进行意图识别
      * @param userMessage 用户消息
-     * @param currentFormFields 当前表单字段列表（可能为空）
+     * @param currentFormFields 当前表单字段列表（共享的表单结构，可能为空）
+     * @param formValues 会话的字段值（叠加在表单结构之上）
+     * @param history 会话的对话历史（可能为 null），最近几轮会按token预算放入提示词
+     * @param sessionId 会话ID，用于按会话限流
      * @return LLM意图识别响应
      */
-    public LLMIntentResponse recognizeIntentWithLLM(String userMessage, List<FormField> currentFormFields) {
+    public LLMIntentResponse recognizeIntentWithLLM(String userMessage, List<FormField> currentFormFields,
+                                                    Map<String, Object> formValues, ConversationHistory history,
+                                                    String sessionId) {
         try {
-            // 构建提示词
-            String context = buildFormContext(currentFormFields);
-            String prompt = buildIntentPrompt(context, userMessage);
+            // 构建提示词（额度接近用完时不带对话历史，减少token消耗）
+            long promptStart = System.nanoTime();
+            String context = buildFormContext(currentFormFields, formValues, userMessage);
+            String historyContext = tokenBudget.shouldDowngrade() ? "" : buildHistoryContext(history);
+            List<OpenAIRequest.Message> messages = buildMessages(context, historyContext, userMessage);
+            chatMetrics.recordStage(ChatMetrics.STAGE_PROMPT_BUILD, null, ChatMetrics.OUTCOME_SUCCESS, promptStart);
 
-            // 构建消息列表
-            List<OpenAIRequest.Message> messages = new ArrayList<>();
-            messages.add(new OpenAIRequest.Message("system", "你是一个表单构建与填写助手。只有在用户明确表达业务意图（订酒店、定机票、请假、报销发票）时才创建表单。对于自我介绍、聊天等非业务意图，必须返回 chat 意图。"));
-            messages.add(new OpenAIRequest.Message("user", prompt));
+            // 相同消息 + 相同表单上下文 + 相同对话历史直接返回缓存结果，避免重复调用LLM
+            String cacheKey = IntentResponseCache.buildKey(userMessage, context + "\n" + historyContext);
+            LLMIntentResponse cached = lookupCached(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
 
-            // 调用OpenAI API
-            String responseContent = openAIService.callOpenAI(messages);
-            
-            // 清理响应内容，移除可能的markdown代码块标记
-            String jsonContent = cleanJsonResponse(responseContent);
+            // 调用LLM（按路由选择服务商）；并发的相同提示词共享同一次调用，每个调用方拿到各自的副本。
+            // 限流按调用方各自的会话检查，在加入合并之前进行
+            acquireCallPermit(sessionId);
+            LLMIntentResponse intentResponse = inFlightRequests.execute(buildPromptKey(messages), () -> {
+                LLMIntentResponse parsed = callAndParse(messages, llmRouter::complete);
+                intentResponseCache.put(cacheKey, parsed);
+                return parsed;
+            });
             
-            // 解析为LLMIntentResponse
-            LLMIntentResponse intentResponse = objectMapper.readValue(jsonContent, LLMIntentResponse.class);
-            
-            return intentResponse;
+            return IntentResponseCache.copyOf(intentResponse);
             
+        } catch (RateLimitedException e) {
+            // 本地限流或额度用完，交给上层提示用户
+            throw e;
         } catch (OpenAIException e) {
             // 如果是配额不足错误，抛出特殊异常以便上层处理
             if (e.isQuotaExceeded()) {
                 throw e;
             }
             // 其他 OpenAI 错误，返回默认的 chat 意图
-            LLMIntentResponse fallback = new LLMIntentResponse();
-            fallback.setIntent("chat");
-            fallback.setFormFields(new ArrayList<>());
-            fallback.setFieldUpdates(new java.util.HashMap<>());
-            return fallback;
+            return createFallbackResponse(ChatMetrics.OUTCOME_LLM_ERROR);
+        } catch (LlmProviderException e) {
+            // 所有服务商均失败
+            if (e.isQuotaExceeded()) {
+                throw e;
+            }
+            return createFallbackResponse(ChatMetrics.OUTCOME_LLM_ERROR);
+        } catch (JsonProcessingException e) {
+            // 模型返回的内容不是合法的意图JSON
+            return createFallbackResponse(ChatMetrics.OUTCOME_PARSE_ERROR);
         } catch (Exception e) {
             // 返回默认的chat意图
-            LLMIntentResponse fallback = new LLMIntentResponse();
-            fallback.setIntent("chat");
-            fallback.setFormFields(new ArrayList<>());
-            fallback.setFieldUpdates(new java.util.HashMap<>());
-            return fallback;
+            return createFallbackResponse(ChatMetrics.OUTCOME_ERROR);
         }
     }
 
     /**
-     * 构建表单上下文描述
+     * 使用LLM流式进行意图识别
+     * 模型输出的每段增量文本回调 onToken；form_fields 中每个字段对象一闭合就回调 onFormField。
+     * 缓存命中时不会产生流式回调，直接返回结果。
      */
-    private String buildFormContext(List<FormField> formFields) {
-        if (formFields == null || formFields.isEmpty()) {
-            return "[]";
+    public LLMIntentResponse streamIntentWithLLM(String userMessage, List<FormField> currentFormFields,
+                                                 Map<String, Object> formValues, ConversationHistory history,
+                                                 String sessionId, Consumer<String> onToken,
+                                                 Consumer<FormField> onFormField) {
+        try {
+            long promptStart = System.nanoTime();
+            String context = buildFormContext(currentFormFields, formValues, userMessage);
+            String historyContext = tokenBudget.shouldDowngrade() ? "" : buildHistoryContext(history);
+            List<OpenAIRequest.Message> messages = buildMessages(context, historyContext, userMessage);
+            chatMetrics.recordStage(ChatMetrics.STAGE_PROMPT_BUILD, null, ChatMetrics.OUTCOME_SUCCESS, promptStart);
+
+            String cacheKey = IntentResponseCache.buildKey(userMessage, context + "\n" + historyContext);
+            LLMIntentResponse cached = lookupCached(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+
+            StreamingIntentParser parser = new StreamingIntentParser(fieldJson -> {
+                try {
+                    onFormField.accept(objectMapper.readValue(fieldJson, FormField.class));
+                } catch (JsonProcessingException e) {
+                    // 单个字段解析失败不影响整体，最终结果以完整JSON为准
+                }
+            });
+            acquireCallPermit(sessionId);
+            LLMIntentResponse intentResponse = callAndParse(messages, prompt -> llmRouter.stream(prompt, delta -> {
+                parser.feed(delta);
+                onToken.accept(delta);
+            }));
+            intentResponseCache.put(cacheKey, intentResponse);
+
+            return intentResponse;
+
+        } catch (RateLimitedException e) {
+            throw e;
+        } catch (LlmProviderException e) {
+            if (e.isQuotaExceeded()) {
+                throw e;
+            }
+            return createFallbackResponse(ChatMetrics.OUTCOME_LLM_ERROR);
+        } catch (UncheckedIOException e) {
+            // 客户端断开（推送失败），向上抛出以终止本次流式处理
+            throw e;
+        } catch (JsonProcessingException e) {
+            return createFallbackResponse(ChatMetrics.OUTCOME_PARSE_ERROR);
+        } catch (Exception e) {
+            return createFallbackResponse(ChatMetrics.OUTCOME_ERROR);
         }
-        
+    }
+
+    /**
+     * 使用LLM从用户消息中提取字段值（表单结构已由模板确定，不让模型生成字段）
+     * 字段值只是锦上添花：限流、额度用完或调用失败时返回空结果，不影响表单的创建。
+     * @param fields 模板的表单字段
+     * @return 字段名 -> 值，只包含表单中存在的字段
+     */
+    public Map<String, Object> extractFieldValues(String userMessage, List<FormField> fields, String sessionId) {
         try {
-            // 规范化字段类型
-            List<FormField> normalizedFields = new ArrayList<>();
-            for (FormField field : formFields) {
-                FormField normalizedField = new FormField(
-                    field.getName(),
-                    field.getLabel(),
-                    normalizeFieldType(field.getType()),
-                    field.getDefaultValue(),
-                    field.getOptions(),
-                    field.isRequired(),
-                    field.getPlaceholder()
-                );
-                normalizedFields.add(normalizedField);
+            String context = buildFormContext(fields, null, userMessage);
+            String cacheKey = IntentResponseCache.buildKey(userMessage, "extract\n" + context);
+            LLMIntentResponse extracted = intentResponseCache.get(cacheKey);
+            if (extracted == null) {
+                List<OpenAIRequest.Message> messages = IntentPromptTemplate.buildExtraction(context, userMessage);
+                acquireCallPermit(sessionId);
+                extracted = inFlightRequests.execute(buildPromptKey(messages), () -> {
+                    LLMIntentResponse parsed = callAndParse(messages, llmRouter::complete);
+                    intentResponseCache.put(cacheKey, parsed);
+                    return parsed;
+                });
             }
-            
-            // 使用ObjectMapper将表单字段转换为JSON格式用于上下文
-            return objectMapper.writeValueAsString(normalizedFields);
+
+            // 只读取结果，合并请求的调用方共享同一个对象也无妨
+            Map<String, Object> values = new HashMap<>();
+            if (extracted.getFieldUpdates() != null) {
+                for (FormField field : fields) {
+                    Object value = extracted.getFieldUpdates().get(field.getName());
+                    if (value != null) {
+                        values.put(field.getName(), value);
+                    }
+                }
+            }
+            return values;
         } catch (Exception e) {
-            return "[]";
+            log.warn("Field value extraction skipped for session {}: {}", sessionId, e.getMessage());
+            return new HashMap<>();
         }
     }
-    
+
     /**
-     * 规范化字段类型：根据映射表将类型名称转换为标准HTML表单字段类型
-     * @param type 原始类型名称
-     * @return 标准化后的类型名称
+     * 构建发送给LLM的消息列表：固定前缀在前，每轮变化的内容在后，便于命中服务商的提示词缓存
      */
-    private String normalizeFieldType(String type) {
-        if (type == null || type.trim().isEmpty()) {
-            return "text"; // 默认类型
+    private List<OpenAIRequest.Message> buildMessages(String context, String historyContext, String userMessage) {
+        return IntentPromptTemplate.build(context, historyContext, userMessage);
+    }
+
+    /**
+     * 发出LLM请求前检查限流和额度，不满足时抛出 RateLimitedException
+     */
+    private void acquireCallPermit(String sessionId) {
+        tokenBudget.ensureAvailable();
+        rateLimiter.acquire(sessionId);
+    }
+
+    /**
+     * 调用LLM并解析返回的JSON，分别记录网络调用（llm_call）和清理+解析（parse）阶段的耗时，
+     * 成功时以解析出的意图打标签。调用方需先通过 acquireCallPermit
+     * @param call 实际的LLM调用（普通或流式）
+     */
+    private LLMIntentResponse callAndParse(List<OpenAIRequest.Message> messages,
+                                           Function<List<OpenAIRequest.Message>, String> call) throws JsonProcessingException {
+        long callStart = System.nanoTime();
+        String responseContent;
+        try {
+            responseContent = call.apply(messages);
+        } catch (RuntimeException e) {
+            chatMetrics.recordStage(ChatMetrics.STAGE_LLM_CALL, null, ChatMetrics.outcomeOf(e), callStart);
+            throw e;
         }
-        
-        String normalizedType = type.trim();
-        
-        // 先尝试直接匹配（不区分大小写）
-        String mappedType = FIELD_TYPE_MAP.get(normalizedType);
-        if (mappedType != null) {
-            return mappedType;
+        long callNanos = System.nanoTime() - callStart;
+        recordPromptSize(messages);
+
+        long parseStart = System.nanoTime();
+        LLMIntentResponse parsed;
+        try {
+            parsed = parseIntentResponse(responseContent);
+        } catch (JsonProcessingException e) {
+            chatMetrics.recordStageNanos(ChatMetrics.STAGE_LLM_CALL, null, ChatMetrics.OUTCOME_SUCCESS, callNanos);
+            chatMetrics.recordStage(ChatMetrics.STAGE_PARSE, null, ChatMetrics.OUTCOME_PARSE_ERROR, parseStart);
+            throw e;
         }
-        
-        // 尝试小写匹配
-        mappedType = FIELD_TYPE_MAP.get(normalizedType.toLowerCase());
-        if (mappedType != null) {
-            return mappedType;
+        chatMetrics.recordStageNanos(ChatMetrics.STAGE_LLM_CALL, parsed.getIntent(), ChatMetrics.OUTCOME_SUCCESS, callNanos);
+        chatMetrics.recordStage(ChatMetrics.STAGE_PARSE, parsed.getIntent(), ChatMetrics.OUTCOME_SUCCESS, parseStart);
+        return parsed;
+    }
+
+    /**
+     * 查询意图缓存，命中时以 cached 结果记录 llm_call 阶段（与真实调用的耗时分开统计）
+     */
+    private LLMIntentResponse lookupCached(String cacheKey) {
+        long start = System.nanoTime();
+        LLMIntentResponse cached = intentResponseCache.get(cacheKey);
+        if (cached != null) {
+            chatMetrics.recordStage(ChatMetrics.STAGE_LLM_CALL, cached.getIntent(), ChatMetrics.OUTCOME_CACHED, start);
         }
-        
-        // 如果映射表中没有，返回原始类型（可能是已标准化的类型）
-        return normalizedType;
+        return cached;
+    }
+
+    /**
+     * 按估算的token数记录提示词大小（token 额度由 LlmUsageStats 按服务商返回的用量计入）
+     */
+    private void recordPromptSize(List<OpenAIRequest.Message> messages) {
+        long promptTokens = 0;
+        for (OpenAIRequest.Message message : messages) {
+            promptTokens += TokenEstimator.estimate(message.getContent());
+        }
+        promptStats.recordPrompt(promptTokens);
+    }
+
+    /**
+     * 请求合并的键：完整的提示词内容（角色 + 文本）
+     */
+    private String buildPromptKey(List<OpenAIRequest.Message> messages) {
+        StringBuilder key = new StringBuilder();
+        for (OpenAIRequest.Message message : messages) {
+            key.append(message.getRole()).append('\u0000').append(message.getContent()).append('\u0000');
+        }
+        return key.toString();
+    }
+
+    /**
+     * LLM请求合并、路由、限流及额度统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("coalescing", inFlightRequests.getStats());
+        stats.put("router", llmRouter.getStats());
+        stats.put("rateLimit", rateLimiter.getStats());
+        stats.put("budget", tokenBudget.getStats());
+        stats.put("promptSize", promptStats.getStats());
+        return stats;
+    }
+
+    /**
+     * 解析LLM返回内容为LLMIntentResponse
+     */
+    LLMIntentResponse parseIntentResponse(String responseContent) throws JsonProcessingException {
+        // 清理响应内容，移除可能的markdown代码块标记
+        String jsonContent = cleanJsonResponse(responseContent);
+        return objectMapper.readValue(jsonContent, LLMIntentResponse.class);
+    }
+
+    /**
+     * 默认的 chat 意图（LLM调用或解析失败时使用）
+     * @param reason 回退原因，计入 chat.fallback 指标
+     */
+    private LLMIntentResponse createFallbackResponse(String reason) {
+        chatMetrics.recordFallback(reason);
+        return new FallbackIntentResponse(reason);
     }
 
     /**
-     * 构建意图识别的提示词
+     * 构建表单上下文描述（紧凑编码），并抽样统计相对完整JSON编码节省的token数
+     * 直接读取共享的表单结构和会话字段值，不复制字段列表
      */
-    private String buildIntentPrompt(String context, String userMessage) {
-        return "现有表单定义（可能为空）：\n\n" + context + "\n\n" +
-               "用户的自然语言输入：\n\n" + userMessage + "\n\n" +
-               "请返回JSON，必须包含：\n\n" +
-               "- intent: \"create_form\" | \"fill_form\" | \"chat\"\n\n" +
-               "- form_fields: 当需要创建或更新表单结构时的字段数组（格式同前），否则返回 []\n\n" +
-               "- field_updates: 当 intent 为 fill_form 时，需要填写/修改的字段键值对，键请使用字段的 name（若只提供 label，请结合上下文推断 name）。无变更则为空对象。\n\n" +
-               "重要规则：\n\n" +
-               "1. 只有在用户明确表达以下业务意图时，才将 intent 设为 create_form：\n" +
-               "   - 订酒店/预订酒店/酒店预订\n" +
-               "   - 定机票/预订机票/机票预订\n" +
-               "   - 请假/申请请假/请假申请\n" +
-               "   - 报销发票/发票报销/报销申请\n\n" +
-               "2. 以下情况必须将 intent 设为 chat（不创建表单）：\n" +
-               "   - 自我介绍（如：\"我叫xxx\"、\"我是xxx\"）\n" +
-               "   - 普通聊天、问候、闲聊\n" +
-               "   - 询问时间、天气等非业务相关问题\n" +
-               "   - 没有明确业务意图的对话\n\n" +
-               "3. 如果用户仅提供要填写的内容（如\"把姓名填成张三\"），intent 设为 fill_form，将相应字段写入 field_updates。\n\n" +
-               "4. 如果用户输入只是个人信息介绍或聊天，没有明确的业务意图，intent 必须设为 chat，form_fields 返回空数组 []。\n\n" +
-               "5. 只返回 JSON，不要额外文字。";
+    String buildFormContext(List<FormField> formFields, Map<String, Object> formValues, String userMessage) {
+        if (formFields == null || formFields.isEmpty()) {
+            return "[]";
+        }
+        
+        try {
+            String compact = FormContextEncoder.encode(formFields, formValues, userMessage, objectMapper);
+            long compactTokens = TokenEstimator.estimate(compact);
+            long fullTokens = -1;
+            if (promptStats.sampleFullContext()) {
+                // 完整JSON编码只用于统计节省的token数，抽样计算
+                fullTokens = TokenEstimator.estimate(objectMapper.writeValueAsString(formFields))
+                    + (formValues == null || formValues.isEmpty() ? 0 : TokenEstimator.estimate(objectMapper.writeValueAsString(formValues)));
+            }
+            promptStats.recordContext(fullTokens, compactTokens);
+            log.debug("Form context: {} tokens, full JSON {} ({} fields)", compactTokens, fullTokens, formFields.size());
+            return compact;
+        } catch (Exception e) {
+            return "[]";
+        }
+    }
+    
+    /**
+     * 构建最近对话的上下文：从最新一轮往前取，最多 historyPromptTurns 轮且总token数不超过预算，
+     * 按时间顺序输出。未启用或没有历史时返回空字符串。
+     */
+    String buildHistoryContext(ConversationHistory history) {
+        if (history == null || historyPromptTurns <= 0 || historyTokenBudget <= 0) {
+            return "";
+        }
+        List<ConversationTurn> turns = history.recent(historyPromptTurns);
+        List<String> lines = new ArrayList<>();
+        int tokens = 0;
+        for (int i = turns.size() - 1; i >= 0; i--) {
+            ConversationTurn turn = turns.get(i);
+            String line = "用户: " + turn.getUserMessage() + "\n助手: " + turn.getAssistantReply();
+            tokens += TokenEstimator.estimate(line);
+            if (tokens > historyTokenBudget) {
+                break;
+            }
+            lines.add(0, line);
+        }
+        return String.join("\n", lines);
     }
 
     /**
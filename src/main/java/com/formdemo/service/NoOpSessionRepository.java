@@ -0,0 +1,42 @@
+package com.formdemo.service;
+
+import com.formdemo.model.ChatSession;
+
+import java.util.Map;
+
+/**
+ * 不做持久化：会话只保存在内存中（默认）
+ */
+public class NoOpSessionRepository implements SessionRepository {
+
+    @Override
+    public int recover() {
+        return 0;
+    }
+
+    @Override
+    public void save(ChatSession session) {
+    }
+
+    @Override
+    public ChatSession load(String sessionId) {
+        return null;
+    }
+
+    @Override
+    public void delete(String sessionId) {
+    }
+
+    @Override
+    public void maintain(long retainAfterMillis) {
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        return Map.of("type", "none");
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,227 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.exception.LlmProviderException;
+import com.formdemo.model.OpenAIRequest;
+import com.formdemo.model.OpenAIResponse;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * OpenAI 兼容 Chat Completions 接口客户端
+ * 支持普通调用，以及以 stream=true 方式调用并逐个回调模型输出的增量文本。
+ * 服务商返回的 token 用量（含提示词缓存命中数）会记录到 LlmUsageStats。
+ * 配置了 LlmConcurrencyLimiter 时，每次调用先获取并发许可，直到响应体读完才归还。
+ */
+public class OpenAICompatibleClient {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String DATA_PREFIX = "data:";
+    private static final String DONE = "[DONE]";
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final String model;
+    private final OkHttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final LlmUsageStats usageStats;
+    private final LlmConcurrencyLimiter concurrencyLimiter;
+    private final String host;
+
+    public OpenAICompatibleClient(String apiUrl, String apiKey, String model,
+                                  OkHttpClient httpClient, ObjectMapper objectMapper) {
+        this(apiUrl, apiKey, model, httpClient, objectMapper, null);
+    }
+
+    public OpenAICompatibleClient(String apiUrl, String apiKey, String model,
+                                  OkHttpClient httpClient, ObjectMapper objectMapper, LlmUsageStats usageStats) {
+        this(apiUrl, apiKey, model, httpClient, objectMapper, usageStats, null);
+    }
+
+    public OpenAICompatibleClient(String apiUrl, String apiKey, String model,
+                                  OkHttpClient httpClient, ObjectMapper objectMapper, LlmUsageStats usageStats,
+                                  LlmConcurrencyLimiter concurrencyLimiter) {
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.usageStats = usageStats;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.host = hostOf(apiUrl);
+    }
+
+    /**
+     * 非流式调用，返回完整的回复内容
+     */
+    public String complete(List<OpenAIRequest.Message> messages) {
+        Request request = buildRequest(messages, false);
+        long start = System.nanoTime();
+        try (LlmConcurrencyLimiter.Permit permit = acquirePermit();
+             Response response = httpClient.newCall(request).execute()) {
+            ResponseBody responseBody = response.body();
+            String body = responseBody != null ? responseBody.string() : "";
+            if (!response.isSuccessful()) {
+                throw toProviderException(response.code(), body);
+            }
+            OpenAIResponse parsed = objectMapper.readValue(body, OpenAIResponse.class);
+            if (parsed.getChoices() == null || parsed.getChoices().isEmpty()
+                || parsed.getChoices().get(0).getMessage() == null) {
+                throw new LlmProviderException("LLM 返回了空响应", response.code(), false);
+            }
+            String content = parsed.getChoices().get(0).getMessage().getContent();
+            recordUsage(parsed.getUsage(), start, messages, content);
+            return content;
+        } catch (IOException e) {
+            throw new LlmProviderException("无法连接到 LLM 服务 " + apiUrl + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmProviderException("LLM 请求在排队时被取消", e);
+        }
+    }
+
+    /**
+     * 流式调用：每收到一段增量文本就回调 onDelta，返回完整的回复内容
+     */
+    public String stream(List<OpenAIRequest.Message> messages, Consumer<String> onDelta) {
+        Request request = buildRequest(messages, true);
+
+        StringBuilder content = new StringBuilder();
+        OpenAIResponse.Usage usage = null;
+        long start = System.nanoTime();
+        try (LlmConcurrencyLimiter.Permit permit = acquirePermit();
+             Response response = httpClient.newCall(request).execute()) {
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful()) {
+                String errorBody = responseBody != null ? responseBody.string() : "";
+                throw toProviderException(response.code(), errorBody);
+            }
+            if (responseBody == null) {
+                throw new LlmProviderException("LLM 返回了空响应", response.code(), false);
+            }
+
+            BufferedSource source = responseBody.source();
+            while (!source.exhausted()) {
+                String line = source.readUtf8Line();
+                if (line == null) {
+                    break;
+                }
+                if (!line.startsWith(DATA_PREFIX)) {
+                    continue; // 空行、注释或 event: 行
+                }
+                String data = line.substring(DATA_PREFIX.length()).trim();
+                if (DONE.equals(data)) {
+                    break;
+                }
+                JsonNode chunk = objectMapper.readTree(data);
+                String delta = extractDelta(chunk);
+                if (delta != null && !delta.isEmpty()) {
+                    content.append(delta);
+                    onDelta.accept(delta);
+                }
+                // stream_options.include_usage：用量在最后一个（choices 为空的）数据块中返回
+                JsonNode usageNode = chunk.get("usage");
+                if (usageNode != null && usageNode.isObject()) {
+                    usage = objectMapper.treeToValue(usageNode, OpenAIResponse.Usage.class);
+                }
+            }
+            recordUsage(usage, start, messages, content);
+        } catch (IOException e) {
+            throw new LlmProviderException("无法连接到 LLM 服务 " + apiUrl + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LlmProviderException("LLM 请求在排队时被取消", e);
+        }
+        return content.toString();
+    }
+
+    /**
+     * 获取并发许可，未配置并发限制时返回 null
+     */
+    private LlmConcurrencyLimiter.Permit acquirePermit() throws InterruptedException {
+        return concurrencyLimiter != null ? concurrencyLimiter.acquire(host) : null;
+    }
+
+    private static String hostOf(String apiUrl) {
+        try {
+            String host = URI.create(apiUrl).getHost();
+            return host != null ? host : apiUrl;
+        } catch (IllegalArgumentException e) {
+            return apiUrl;
+        }
+    }
+
+    private Request buildRequest(List<OpenAIRequest.Message> messages, boolean stream) {
+        OpenAIRequest body = new OpenAIRequest(model, messages, 0.7);
+        if (stream) {
+            body.setStream(true);
+            body.setStreamOptions(new OpenAIRequest.StreamOptions(true));
+        }
+        try {
+            return new Request.Builder()
+                .url(apiUrl)
+                .header("Authorization", "Bearer " + apiKey)
+                .header("Accept", stream ? "text/event-stream" : "application/json")
+                .post(RequestBody.create(objectMapper.writeValueAsString(body), JSON))
+                .build();
+        } catch (IOException e) {
+            throw new LlmProviderException("构建请求失败: " + e.getMessage(), e);
+        }
+    }
+
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    /**
+     * 记录用量；服务商未返回用量时按提示词和回复内容估算 token 数计入额度
+     */
+    private void recordUsage(OpenAIResponse.Usage usage, long startNanos,
+                             List<OpenAIRequest.Message> messages, CharSequence content) {
+        if (usageStats != null) {
+            usageStats.record(usage, System.nanoTime() - startNanos, () -> estimateTokens(messages, content));
+        }
+    }
+
+    private static long estimateTokens(List<OpenAIRequest.Message> messages, CharSequence content) {
+        long tokens = TokenEstimator.estimate(content.toString());
+        for (OpenAIRequest.Message message : messages) {
+            tokens += TokenEstimator.estimate(message.getContent());
+        }
+        return tokens;
+    }
+
+    private static String extractDelta(JsonNode chunk) {
+        JsonNode choices = chunk.path("choices");
+        if (!choices.isArray() || choices.isEmpty()) {
+            return null;
+        }
+        JsonNode content = choices.get(0).path("delta").path("content");
+        return content.isTextual() ? content.asText() : null;
+    }
+
+    /**
+     * 402（余额不足）或 429 且包含 insufficient_quota 视为配额耗尽
+     */
+    static LlmProviderException toProviderException(int statusCode, String errorBody) {
+        boolean quotaExceeded = statusCode == 402
+            || (statusCode == 429 && errorBody != null && errorBody.contains("insufficient_quota"));
+        String detail = errorBody != null && errorBody.length() > 500 ? errorBody.substring(0, 500) + "..." : errorBody;
+        return new LlmProviderException("LLM API 返回错误 " + statusCode + ": " + detail, statusCode, quotaExceeded);
+    }
+}
@@ -0,0 +1,78 @@
+package com.formdemo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 提示词大小统计（估算token数）
+ * 每轮记录紧凑编码的表单上下文大小和实际发送的提示词大小；完整JSON编码只用于对比，
+ * 序列化开销不小，因此每 FULL_CONTEXT_SAMPLE_INTERVAL 轮抽样一次，节省比例按抽样轮次计算。
+ */
+public class PromptStats {
+
+    static final int FULL_CONTEXT_SAMPLE_INTERVAL = 16;
+
+    private final AtomicLong contextSequence = new AtomicLong();
+    private final LongAdder contexts = new LongAdder();
+    private final LongAdder compactContextTokens = new LongAdder();
+    private final LongAdder sampledContexts = new LongAdder();
+    private final LongAdder sampledFullContextTokens = new LongAdder();
+    private final LongAdder sampledCompactContextTokens = new LongAdder();
+    private final LongAdder prompts = new LongAdder();
+    private final LongAdder promptTokens = new LongAdder();
+    private volatile long lastFullContextTokens;
+    private volatile long lastCompactContextTokens;
+
+    /**
+     * 本轮是否需要计算完整JSON编码的大小（第一轮及之后每 FULL_CONTEXT_SAMPLE_INTERVAL 轮一次）
+     */
+    public boolean sampleFullContext() {
+        return contextSequence.getAndIncrement() % FULL_CONTEXT_SAMPLE_INTERVAL == 0;
+    }
+
+    /**
+     * 记录一轮表单上下文的大小
+     * @param fullTokens 完整JSON编码的大小，未抽样的轮次传 -1
+     */
+    public void recordContext(long fullTokens, long compactTokens) {
+        contexts.increment();
+        compactContextTokens.add(compactTokens);
+        lastCompactContextTokens = compactTokens;
+        if (fullTokens >= 0) {
+            sampledContexts.increment();
+            sampledFullContextTokens.add(fullTokens);
+            sampledCompactContextTokens.add(compactTokens);
+            lastFullContextTokens = fullTokens;
+        }
+    }
+
+    public void recordPrompt(long tokens) {
+        prompts.increment();
+        promptTokens.add(tokens);
+    }
+
+    public Map<String, Object> getStats() {
+        long contextCount = contexts.sum();
+        long sampledCount = sampledContexts.sum();
+        long sampledFull = sampledFullContextTokens.sum();
+        long promptCount = prompts.sum();
+
+        Map<String, Object> lastTurn = new LinkedHashMap<>();
+        // 完整编码的大小取最近一次抽样
+        lastTurn.put("fullContextTokens", lastFullContextTokens);
+        lastTurn.put("compactContextTokens", lastCompactContextTokens);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("turns", contextCount);
+        stats.put("sampledTurns", sampledCount);
+        stats.put("avgFullContextTokens", sampledCount == 0 ? 0 : sampledFull / sampledCount);
+        stats.put("avgCompactContextTokens", contextCount == 0 ? 0 : compactContextTokens.sum() / contextCount);
+        stats.put("contextSavedRatio", sampledFull == 0 ? 0.0 : 1.0 - (double) sampledCompactContextTokens.sum() / sampledFull);
+        stats.put("lastTurn", lastTurn);
+        stats.put("llmCalls", promptCount);
+        stats.put("avgPromptTokens", promptCount == 0 ? 0 : promptTokens.sum() / promptCount);
+        return stats;
+    }
+}
@@ -0,0 +1,70 @@
+package com.formdemo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 按会话串行执行的分段锁
+ * 同一会话的请求总是映射到同一把锁，按到达顺序依次处理；不同会话分散到不同的锁上并行执行，
+ * 不存在跨会话的全局锁。使用 ReentrantLock，等待锁的虚拟线程不会占用载体线程。
+ */
+@Component
+public class SessionLocks {
+
+    private final ReentrantLock[] stripes;
+    private final LongAdder contended = new LongAdder();
+
+    @Autowired
+    public SessionLocks(@Value("${assistant.session.lock-stripes:1024}") int stripeCount) {
+        // 取不小于 stripeCount 的2的幂，便于用位运算取模
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[Math.max(1, size)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    /**
+     * 持有会话锁执行任务
+     */
+    public <T> T execute(String sessionId, Supplier<T> task) {
+        ReentrantLock lock = lockFor(sessionId);
+        if (lock.isLocked()) {
+            contended.increment();
+        }
+        lock.lock();
+        try {
+            return task.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void execute(String sessionId, Runnable task) {
+        execute(sessionId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", stripes.length);
+        stats.put("contended", contended.sum());
+        return stats;
+    }
+
+    private ReentrantLock lockFor(String sessionId) {
+        int h = sessionId == null ? 0 : sessionId.hashCode();
+        // 扰动高位，避免相近的会话ID落在同一段
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,37 @@
+package com.formdemo.service;
+
+import com.formdemo.model.ChatSession;
+
+import java.util.Map;
+
+/**
+ * 会话持久化存储
+ * SessionStore 在内存中保存活跃会话，并通过该接口写穿到持久化存储；
+ * 内存中被淘汰的冷会话可在下一条消息到来时从这里重新加载，重启后同样可以恢复。
+ */
+public interface SessionRepository extends AutoCloseable {
+
+    /**
+     * 启动时恢复：重建索引，返回可恢复的会话数量
+     */
+    int recover();
+
+    void save(ChatSession session);
+
+    /**
+     * 加载会话，不存在时返回 null
+     */
+    ChatSession load(String sessionId);
+
+    void delete(String sessionId);
+
+    /**
+     * 后台维护：清理最近访问时间早于 retainAfterMillis 的会话并在需要时压缩存储
+     */
+    void maintain(long retainAfterMillis);
+
+    Map<String, Object> getStats();
+
+    @Override
+    void close();
+}
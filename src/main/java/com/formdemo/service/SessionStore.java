@@ -0,0 +1,274 @@
+package com.formdemo.service;
+
+import com.formdemo.model.ChatSession;
+import com.formdemo.model.ConversationHistory;
+import com.formdemo.model.ConversationTurn;
+import com.formdemo.model.FormSchema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 有界会话存储
+ * 会话按最近访问顺序保存，超过最大数量时淘汰最久未访问的会话；
+ * 后台定时清理空闲超过TTL的会话。同时维护每个会话的内存占用估算值（不含共享的表单结构）。
+ * 会话变更会写穿到 SessionRepository：被淘汰的冷会话只是移出堆内存，下一条消息到来时再从持久化存储加载，
+ * 应用重启后同样可以恢复。
+ */
+@Service
+public class SessionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionStore.class);
+
+    // 粗略的对象开销估算（64位JVM，压缩指针）
+    private static final int OBJECT_OVERHEAD = 16;
+    private static final int REFERENCE_SIZE = 4;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int MAP_ENTRY_OVERHEAD = 32;
+
+    private final int maxSessions;
+    private final long idleTtlMillis;
+    private final long retentionMillis;
+    private final SessionRepository repository;
+    private final LongSupplier clock;
+
+    // accessOrder=true：最久未访问的会话在队首
+    private final LinkedHashMap<String, ChatSession> sessions = new LinkedHashMap<>(64, 0.75f, true);
+    private final AtomicLong totalEstimatedBytes = new AtomicLong();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder idleEvictions = new LongAdder();
+    private final LongAdder loadedSessions = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram persistLatency = new LatencyHistogram();
+
+    @Autowired
+    public SessionStore(@Value("${assistant.session.max-sessions:10000}") int maxSessions,
+                        @Value("${assistant.session.idle-ttl-minutes:30}") long idleTtlMinutes,
+                        @Value("${assistant.session.persistence.retention-hours:168}") long retentionHours,
+                        SessionRepository repository) {
+        this(maxSessions, idleTtlMinutes * 60_000L, retentionHours * 3_600_000L, repository, System::currentTimeMillis);
+    }
+
+    SessionStore(int maxSessions, long idleTtlMillis, long retentionMillis,
+                 SessionRepository repository, LongSupplier clock) {
+        this.maxSessions = maxSessions;
+        this.idleTtlMillis = idleTtlMillis;
+        this.retentionMillis = retentionMillis;
+        this.repository = repository;
+        this.clock = clock;
+        // 启动时从持久化存储恢复索引，会话内容在首次访问时加载
+        repository.recover();
+    }
+
+    /**
+     * 获取会话，不存在时创建；同时刷新最近访问时间
+     */
+    public ChatSession getOrCreate(String sessionId) {
+        long now = clock.getAsLong();
+        synchronized (sessions) {
+            ChatSession session = sessions.get(sessionId);
+            if (session != null) {
+                session.setLastAccessedAt(now);
+                return session;
+            }
+        }
+
+        // 冷会话：从持久化存储加载（不持有全局锁，避免磁盘IO阻塞其他会话）
+        long start = System.nanoTime();
+        ChatSession loaded = repository.load(sessionId);
+        if (loaded != null) {
+            loadLatency.recordNanos(System.nanoTime() - start);
+            loaded.setEstimatedBytes(estimateBytes(loaded));
+        }
+
+        synchronized (sessions) {
+            // 并发加载同一会话时以先放入的为准
+            ChatSession session = sessions.get(sessionId);
+            if (session == null) {
+                if (loaded != null) {
+                    session = loaded;
+                    totalEstimatedBytes.addAndGet(loaded.getEstimatedBytes());
+                    loadedSessions.increment();
+                } else {
+                    session = new ChatSession(sessionId, now);
+                }
+                sessions.put(sessionId, session);
+                evictOverflow();
+            }
+            session.setLastAccessedAt(now);
+            return session;
+        }
+    }
+
+    /**
+     * 获取会话（不创建），不存在时返回 null
+     * 查找会调整访问顺序，因此同时刷新最近访问时间，保证按访问顺序排列的会话访问时间也是递增的（空闲清理依赖这一点）
+     */
+    public ChatSession get(String sessionId) {
+        long now = clock.getAsLong();
+        synchronized (sessions) {
+            ChatSession session = sessions.get(sessionId);
+            if (session != null) {
+                session.setLastAccessedAt(now);
+            }
+            return session;
+        }
+    }
+
+    /**
+     * 会话内容变更后调用：重新估算其内存占用，并写穿到持久化存储
+     */
+    public void update(ChatSession session) {
+        long start = System.nanoTime();
+        repository.save(session);
+        persistLatency.recordNanos(System.nanoTime() - start);
+
+        long bytes = estimateBytes(session);
+        long now = clock.getAsLong();
+        synchronized (sessions) {
+            long previous = session.getEstimatedBytes();
+            session.setEstimatedBytes(bytes);
+            // 已被淘汰的会话不再计入；查找会调整访问顺序，同时刷新访问时间
+            if (sessions.get(session.getSessionId()) == session) {
+                session.setLastAccessedAt(now);
+                totalEstimatedBytes.addAndGet(bytes - previous);
+            }
+        }
+    }
+
+    public void remove(String sessionId) {
+        synchronized (sessions) {
+            ChatSession removed = sessions.remove(sessionId);
+            if (removed != null) {
+                totalEstimatedBytes.addAndGet(-removed.getEstimatedBytes());
+            }
+        }
+        repository.delete(sessionId);
+    }
+
+    public int size() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    /**
+     * 定时清理空闲超过TTL的会话（启用持久化时即溢出到磁盘），并维护持久化存储
+     */
+    @Scheduled(fixedDelayString = "${assistant.session.sweep-interval-ms:60000}")
+    public void evictIdleSessions() {
+        long now = clock.getAsLong();
+        if (retentionMillis > 0) {
+            repository.maintain(now - retentionMillis);
+        }
+        if (idleTtlMillis <= 0) {
+            return;
+        }
+        long deadline = now - idleTtlMillis;
+        int evicted = 0;
+        synchronized (sessions) {
+            Iterator<ChatSession> it = sessions.values().iterator();
+            while (it.hasNext()) {
+                ChatSession session = it.next();
+                // 按访问顺序排列，遇到未过期的会话即可停止
+                if (session.getLastAccessedAt() > deadline) {
+                    break;
+                }
+                it.remove();
+                totalEstimatedBytes.addAndGet(-session.getEstimatedBytes());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            idleEvictions.add(evicted);
+            log.debug("Evicted {} idle sessions", evicted);
+        }
+    }
+
+    /**
+     * 会话统计：会话数、淘汰次数、估算的总内存占用
+     */
+    public Map<String, Object> getStats() {
+        int count = size();
+        long totalBytes = totalEstimatedBytes.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", count);
+        stats.put("maxSessions", maxSessions);
+        stats.put("idleTtlMillis", idleTtlMillis);
+        stats.put("sizeEvictions", sizeEvictions.sum());
+        stats.put("idleEvictions", idleEvictions.sum());
+        stats.put("estimatedBytes", totalBytes);
+        stats.put("avgBytesPerSession", count == 0 ? 0 : totalBytes / count);
+        stats.put("loadedFromStore", loadedSessions.sum());
+        stats.put("loadLatency", loadLatency.snapshot());
+        stats.put("persistLatency", persistLatency.snapshot());
+        stats.put("sharedFormSchemas", FormSchema.poolStats());
+        stats.put("persistence", repository.getStats());
+        return stats;
+    }
+
+    private void evictOverflow() {
+        Iterator<ChatSession> it = sessions.values().iterator();
+        while (sessions.size() > maxSessions && it.hasNext()) {
+            ChatSession eldest = it.next();
+            it.remove();
+            totalEstimatedBytes.addAndGet(-eldest.getEstimatedBytes());
+            sizeEvictions.increment();
+        }
+    }
+
+    /**
+     * 估算会话占用的堆内存字节数（近似值，用于容量规划）
+     */
+    static long estimateBytes(ChatSession session) {
+        long bytes = OBJECT_OVERHEAD + 9 * REFERENCE_SIZE + 4 * 8;
+        bytes += sizeOf(session.getSessionId()) + sizeOf(session.getUserName()) + sizeOf(session.getFormId());
+
+        ConversationHistory history = session.getHistory();
+        if (history != null) {
+            bytes += OBJECT_OVERHEAD + (long) history.getMaxTurns() * REFERENCE_SIZE;
+            for (ConversationTurn turn : history.getTurns()) {
+                bytes += OBJECT_OVERHEAD + 2 * REFERENCE_SIZE;
+                bytes += sizeOf(turn.getUserMessage()) + sizeOf(turn.getAssistantReply());
+            }
+        }
+
+        // 表单结构是跨会话共享的 FormSchema，只计入引用，不计入各会话
+        Map<String, Object> formData = session.getFormData();
+        if (formData != null) {
+            bytes += OBJECT_OVERHEAD + (long) formData.size() * MAP_ENTRY_OVERHEAD;
+            for (Map.Entry<String, Object> entry : formData.entrySet()) {
+                bytes += sizeOf(entry.getKey());
+                Object value = entry.getValue();
+                bytes += value instanceof String ? sizeOf((String) value) : OBJECT_OVERHEAD;
+            }
+        }
+        return bytes;
+    }
+
+    private static long sizeOf(String text) {
+        if (text == null) {
+            return 0;
+        }
+        // 紧凑字符串：纯Latin-1字符每个1字节，否则每个2字节
+        boolean latin1 = true;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                latin1 = false;
+                break;
+            }
+        }
+        return STRING_OVERHEAD + (long) text.length() * (latin1 ? 1 : 2);
+    }
+}
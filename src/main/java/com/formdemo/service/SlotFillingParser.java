@@ -0,0 +1,317 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地槽位填充解析器
+ * 对"把姓名填成张三"、"入住日期改为10月20日"、"人数2"、"set email to a@b.com" 这类简单的填写指令，
+ * 按当前表单的字段标签和字段名匹配字段，按常见的中英文赋值句式取出值，并按字段类型校验/规范化
+ * （日期转为 yyyy-MM-dd，数字只保留数字，下拉值必须是可选项之一），直接得到 field_updates。
+ * 任一子句无法唯一确定字段或值不符合字段类型时视为不确定，返回 null，交给LLM处理。
+ */
+@Service
+public class SlotFillingParser {
+
+    private static final Pattern CLAUSE_SEPARATOR = Pattern.compile("[，,；;。\\n]+");
+    private static final Pattern UNCERTAIN = Pattern.compile("[?？吗]|是不是|是否|不要|不用|别|取消|还是|或者|don't|cancel",
+                                                              Pattern.CASE_INSENSITIVE);
+
+    private static final String[] PREFIXES = {
+        "请帮我", "帮我", "麻烦", "请", "填写", "把", "将", "我的", "我", "set ", "change ", "update ", "please "
+    };
+    // 按长度从长到短排列，优先匹配较长的句式
+    private static final String[] ASSIGNMENTS = {
+        "填写为", "填写成", "修改为", "修改成", "设置为", "设置成", "更改为", "更改成",
+        "填成", "填为", "填写", "填上", "填入", "改成", "改为", "设为", "设成", "换成", "写成", "写为", "写上", "写入",
+        "选择", "选成", "选为",
+        "填", "选", "是", "为", "=", "：", ":", "to ", "is "
+    };
+    private static final String TRAILING_PARTICLES = "吧了啊呢哦呀";
+    private static final String NUMBER_UNITS = "人位个间晚天元块张";
+    private static final String CHINESE_DIGITS = "零一二两三四五六七八九";
+
+    private static final Pattern ISO_DATE = Pattern.compile("(\\d{4})[-/.年](\\d{1,2})[-/.月](\\d{1,2})[日号]?");
+    private static final Pattern MONTH_DAY = Pattern.compile("(\\d{1,2})(?:月|[-/])(\\d{1,2})[日号]?");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+
+    private final Clock clock;
+
+    private final LongAdder localFills = new LongAdder();
+    private final LongAdder llmFills = new LongAdder();
+    private final LongAdder notConfident = new LongAdder();
+
+    @Autowired
+    public SlotFillingParser() {
+        this(Clock.systemDefaultZone());
+    }
+
+    SlotFillingParser(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * 解析填写指令
+     * @param fields 当前表单字段
+     * @return 字段名 -> 规范化后的值；不确定时返回 null
+     */
+    public Map<String, Object> parse(String message, List<FormField> fields) {
+        if (message == null || message.isBlank() || fields == null || fields.isEmpty()
+            || UNCERTAIN.matcher(message).find()) {
+            notConfident.increment();
+            return null;
+        }
+
+        Map<String, FormField> aliases = aliasesOf(fields);
+        Map<String, Object> updates = new LinkedHashMap<>();
+        for (String clause : CLAUSE_SEPARATOR.split(message.trim())) {
+            if (clause.isBlank()) {
+                continue;
+            }
+            if (!parseClause(clause.trim(), aliases, updates)) {
+                notConfident.increment();
+                return null;
+            }
+        }
+        if (updates.isEmpty()) {
+            notConfident.increment();
+            return null;
+        }
+        localFills.increment();
+        return updates;
+    }
+
+    /**
+     * 记录一次由LLM完成的 fill_form（用于统计本地处理的比例）
+     */
+    public void recordLlmFill() {
+        llmFills.increment();
+    }
+
+    /**
+     * 统计：本地完成的 fill_form 次数、LLM完成的次数、本地占比及不确定而交给LLM的次数
+     */
+    public Map<String, Object> getStats() {
+        long local = localFills.sum();
+        long llm = llmFills.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localFills", local);
+        stats.put("llmFills", llm);
+        stats.put("localFillRatio", local + llm == 0 ? 0.0 : (double) local / (local + llm));
+        stats.put("notConfident", notConfident.sum());
+        return stats;
+    }
+
+    private boolean parseClause(String clause, Map<String, FormField> aliases, Map<String, Object> updates) {
+        String rest = stripPrefixes(clause);
+        String lower = rest.toLowerCase(Locale.ROOT);
+
+        // 取句首能匹配上的最长字段别名
+        String alias = null;
+        for (String candidate : aliases.keySet()) {
+            if (lower.startsWith(candidate) && (alias == null || candidate.length() > alias.length())) {
+                alias = candidate;
+            }
+        }
+        if (alias == null) {
+            return false;
+        }
+        FormField field = aliases.get(alias);
+        rest = rest.substring(alias.length()).trim();
+
+        boolean assigned = false;
+        String restLower = rest.toLowerCase(Locale.ROOT);
+        for (String assignment : ASSIGNMENTS) {
+            if (restLower.startsWith(assignment)) {
+                rest = rest.substring(assignment.length()).trim();
+                assigned = true;
+                break;
+            }
+        }
+
+        String value = normalize(field, stripValue(rest), assigned);
+        if (value == null || updates.containsKey(field.getName())) {
+            return false;
+        }
+        updates.put(field.getName(), value);
+        return true;
+    }
+
+    /**
+     * 按字段类型校验并规范化值；文本字段必须有明确的赋值用语（如"填成"），否则视为不确定
+     */
+    private String normalize(FormField field, String value, boolean assigned) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        String type = FormContextEncoder.normalizeType(field.getType());
+        switch (type) {
+            case "date":
+                return parseDate(value);
+            case "number":
+                return parseNumber(value);
+            case "select":
+                return matchOption(field.getOptions(), value);
+            default:
+                return assigned ? value : null;
+        }
+    }
+
+    private String parseDate(String value) {
+        LocalDate today = LocalDate.now(clock);
+        try {
+            switch (value) {
+                case "今天":
+                    return today.toString();
+                case "明天":
+                    return today.plusDays(1).toString();
+                case "后天":
+                    return today.plusDays(2).toString();
+                default:
+                    break;
+            }
+            Matcher iso = ISO_DATE.matcher(value);
+            if (iso.matches()) {
+                return LocalDate.of(Integer.parseInt(iso.group(1)), Integer.parseInt(iso.group(2)),
+                                    Integer.parseInt(iso.group(3))).toString();
+            }
+            Matcher monthDay = MONTH_DAY.matcher(value);
+            if (monthDay.matches()) {
+                // 未写年份时取今天及之后最近的一个该日期
+                LocalDate date = LocalDate.of(today.getYear(), Integer.parseInt(monthDay.group(1)),
+                                              Integer.parseInt(monthDay.group(2)));
+                return (date.isBefore(today) ? date.plusYears(1) : date).toString();
+            }
+        } catch (DateTimeException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static String parseNumber(String value) {
+        String number = value;
+        while (!number.isEmpty() && NUMBER_UNITS.indexOf(number.charAt(number.length() - 1)) >= 0) {
+            number = number.substring(0, number.length() - 1);
+        }
+        if (NUMBER.matcher(number).matches()) {
+            return number;
+        }
+        // 单个中文数字或"十"以内的组合（如"两"、"十"、"十二"）
+        if (number.length() == 1 && CHINESE_DIGITS.indexOf(number.charAt(0)) >= 0) {
+            return String.valueOf(chineseDigit(number.charAt(0)));
+        }
+        if (number.length() >= 1 && number.length() <= 3 && number.indexOf('十') >= 0) {
+            int tens = number.charAt(0) == '十' ? 1 : chineseDigit(number.charAt(0));
+            int ones = number.endsWith("十") ? 0 : chineseDigit(number.charAt(number.length() - 1));
+            if (tens >= 0 && ones >= 0 && (number.length() < 3 || number.charAt(1) == '十')) {
+                return String.valueOf(tens * 10 + ones);
+            }
+        }
+        return null;
+    }
+
+    private static int chineseDigit(char c) {
+        int index = CHINESE_DIGITS.indexOf(c);
+        if (index < 0) {
+            return -1;
+        }
+        // "两"与"二"相同
+        return index <= 2 ? index : index - 1;
+    }
+
+    /**
+     * 值必须与某个可选项相同（不区分大小写），或者唯一地包含于某个可选项中
+     */
+    private static String matchOption(List<String> options, String value) {
+        if (options == null) {
+            return null;
+        }
+        String match = null;
+        for (String option : options) {
+            if (option.equalsIgnoreCase(value)) {
+                return option;
+            }
+            if (option.contains(value)) {
+                if (match != null) {
+                    return null;
+                }
+                match = option;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * 字段别名（小写）：标签、字段名，以及在表单内唯一的中文标签后缀（如"入住人数"的"人数"）
+     */
+    private static Map<String, FormField> aliasesOf(List<FormField> fields) {
+        Map<String, FormField> aliases = new HashMap<>();
+        Map<String, FormField> suffixes = new HashMap<>();
+        Map<String, Integer> suffixCounts = new HashMap<>();
+        for (FormField field : fields) {
+            if (field.getName() != null && !field.getName().isEmpty()) {
+                aliases.put(field.getName().toLowerCase(Locale.ROOT), field);
+            }
+            String label = field.getLabel();
+            if (label == null || label.isEmpty()) {
+                continue;
+            }
+            aliases.put(label.toLowerCase(Locale.ROOT), field);
+            for (int i = 1; i + 2 <= label.length(); i++) {
+                String suffix = label.substring(i);
+                if (Character.isIdeographic(suffix.charAt(0))) {
+                    suffixes.put(suffix, field);
+                    suffixCounts.merge(suffix, 1, Integer::sum);
+                }
+            }
+        }
+        suffixes.forEach((suffix, field) -> {
+            if (suffixCounts.get(suffix) == 1) {
+                aliases.putIfAbsent(suffix, field);
+            }
+        });
+        return aliases;
+    }
+
+    private static String stripPrefixes(String clause) {
+        String rest = clause;
+        boolean stripped = true;
+        while (stripped) {
+            stripped = false;
+            String lower = rest.toLowerCase(Locale.ROOT);
+            for (String prefix : PREFIXES) {
+                if (lower.startsWith(prefix)) {
+                    rest = rest.substring(prefix.length()).trim();
+                    stripped = true;
+                    break;
+                }
+            }
+        }
+        return rest;
+    }
+
+    private static String stripValue(String value) {
+        String result = value.trim();
+        while (!result.isEmpty() && TRAILING_PARTICLES.indexOf(result.charAt(result.length() - 1)) >= 0) {
+            result = result.substring(0, result.length() - 1).trim();
+        }
+        if (result.length() >= 2 && "\"'“”‘’「」".indexOf(result.charAt(0)) >= 0
+            && "\"'“”‘’「」".indexOf(result.charAt(result.length() - 1)) >= 0) {
+            result = result.substring(1, result.length() - 1).trim();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.formdemo.service;
+
+import java.util.function.Consumer;
+
+/**
+ * 增量解析LLM流式返回的意图JSON
+ * 逐段喂入模型输出，当 form_fields 数组中的某个字段对象闭合时，立即回调该对象的JSON文本，
+ * 无需等待整个回复结束。只做词法层面的扫描（字符串、转义、括号深度），不构建完整语法树。
+ */
+public class StreamingIntentParser {
+
+    private static final String FORM_FIELDS_KEY = "form_fields";
+
+    private final Consumer<String> onFieldJson;
+    private final StringBuilder buffer = new StringBuilder();
+
+    private int position;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int stringStart = -1;
+    private String lastTopLevelString;
+    private int fieldsArrayDepth = -1;
+    private int fieldObjectStart = -1;
+
+    public StreamingIntentParser(Consumer<String> onFieldJson) {
+        this.onFieldJson = onFieldJson;
+    }
+
+    /**
+     * 追加一段模型输出并扫描新到达的字符
+     */
+    public void feed(String chunk) {
+        buffer.append(chunk);
+        for (; position < buffer.length(); position++) {
+            char c = buffer.charAt(position);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    if (depth == 1) {
+                        lastTopLevelString = buffer.substring(stringStart + 1, position);
+                    }
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"':
+                    inString = true;
+                    stringStart = position;
+                    break;
+                case '{':
+                    if (depth == fieldsArrayDepth) {
+                        fieldObjectStart = position;
+                    }
+                    depth++;
+                    break;
+                case '[':
+                    depth++;
+                    if (depth == 2 && FORM_FIELDS_KEY.equals(lastTopLevelString)) {
+                        fieldsArrayDepth = depth;
+                    }
+                    break;
+                case '}':
+                    depth--;
+                    if (depth == fieldsArrayDepth && fieldObjectStart >= 0) {
+                        onFieldJson.accept(buffer.substring(fieldObjectStart, position + 1));
+                        fieldObjectStart = -1;
+                    }
+                    break;
+                case ']':
+                    if (depth == fieldsArrayDepth) {
+                        fieldsArrayDepth = -1;
+                    }
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 目前为止收到的完整文本
+     */
+    public String getContent() {
+        return buffer.toString();
+    }
+}
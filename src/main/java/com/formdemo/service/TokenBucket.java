@@ -0,0 +1,87 @@
+package com.formdemo.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 无锁令牌桶（GCRA 算法）
+ * 只维护一个"理论到达时间"，每次获取令牌是一次读取加一次 CAS，不需要加锁，也没有后台补充线程。
+ * 桶满时可以一次性突发 capacity 个请求，之后按 permitsPerSecond 的速率恢复。
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier clock;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double permitsPerSecond, int capacity) {
+        this(permitsPerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int capacity, LongSupplier clock) {
+        if (permitsPerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and capacity must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * capacity;
+        this.clock = clock;
+        this.theoreticalArrival = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * 尝试获取一个令牌，不阻塞
+     */
+    public boolean tryAcquire() {
+        long now = clock.getAsLong();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long next = Math.max(tat, now) + intervalNanos;
+            if (next - now > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还一个刚获取的令牌（后续检查未通过、请求没有真正发出时调用）；桶已满时不做任何事
+     */
+    public void release() {
+        long now = clock.getAsLong();
+        while (true) {
+            long tat = theoreticalArrival.get();
+            if (tat <= now) {
+                return;
+            }
+            if (theoreticalArrival.compareAndSet(tat, Math.max(now, tat - intervalNanos))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 距离下一个令牌可用还需等待的毫秒数，当前有令牌时返回 0
+     */
+    public long retryAfterMillis() {
+        long wait = theoreticalArrival.get() + intervalNanos - toleranceNanos - clock.getAsLong();
+        return wait <= 0 ? 0 : (wait + 999_999) / 1_000_000;
+    }
+
+    /**
+     * 当前可用令牌数（近似值）
+     */
+    public long availablePermits() {
+        long backlog = Math.max(0, theoreticalArrival.get() - clock.getAsLong());
+        return (toleranceNanos - backlog) / intervalNanos;
+    }
+
+    /**
+     * 桶是否已经补满（长时间未使用），可以安全丢弃
+     */
+    public boolean isFull() {
+        return theoreticalArrival.get() <= clock.getAsLong();
+    }
+}
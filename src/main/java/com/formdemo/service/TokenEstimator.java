@@ -0,0 +1,29 @@
+package com.formdemo.service;
+
+/**
+ * 粗略估算文本的token数，用于控制提示词长度
+ * 中日韩字符按每字1个token计，其余字符按约4个字符1个token计。
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            // 汉字、中日韩标点及全角字符
+            if (Character.isIdeographic(c) || (c >= 0x3000 && c <= 0x30FF) || (c >= 0xFF00 && c <= 0xFFEF)) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return cjk + (other + 3) / 4;
+    }
+}
@@ -4,6 +4,9 @@ import com.formdemo.model.UserInfo;
 import org.springframework.stereotype.Service;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 public class UserInfoService {
@@ -13,32 +16,68 @@ public class UserInfoService {
      * 实际应用中这里会调用真实的API
      */
     public UserInfo getUserInfo(String userName) {
-        // 模拟API调用延迟
+        UserInfo userInfo = findUserInfo(userName);
+        return userInfo != null ? userInfo : defaultUserInfo();
+    }
+
+    /**
+     * 查询已登记用户的信息，未知用户返回 null（不返回默认用户信息，用于预填表单）
+     */
+    public UserInfo findUserInfo(String userName) {
+        simulateApiLatency();
+        return buildUserInfo(userName);
+    }
+
+    /**
+     * 批量查询用户信息：一次外部API调用返回多个用户（用户名 -> 用户信息），未知用户不在结果中
+     */
+    public Map<String, UserInfo> getUserInfos(Collection<String> userNames) {
+        simulateApiLatency();
+        Map<String, UserInfo> result = new LinkedHashMap<>();
+        for (String userName : userNames) {
+            UserInfo userInfo = buildUserInfo(userName);
+            if (userInfo != null) {
+                result.put(userName, userInfo);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 模拟API调用延迟
+     */
+    private void simulateApiLatency() {
         try {
             Thread.sleep(100);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+    }
 
+    private UserInfo buildUserInfo(String userName) {
         // 模拟返回用户信息
-        UserInfo userInfo = new UserInfo();
-        if(userName != null  && userName.equals("jeffery")){
-            userInfo.setName(userName);
-            userInfo.setPhone("138****8888");
-            userInfo.setEmail("user@example.com");
-            userInfo.setIdCard("110101199001011234");
-            userInfo.setPreferredTransportation(Arrays.asList("飞机", "高铁", "自驾", "大巴"));
-            userInfo.setDefaultCity("北京");
-        } else {
-            // 默认用户信息
-            userInfo.setName("张三");
-            userInfo.setPhone("138****8888");
-            userInfo.setEmail("user@example.com");
-            userInfo.setIdCard("110101199001011234");
-            userInfo.setPreferredTransportation(Arrays.asList("飞机", "高铁", "自驾", "大巴"));
-            userInfo.setDefaultCity("北京");
+        if (userName == null || !userName.equals("jeffery")) {
+            return null;
         }
+        UserInfo userInfo = new UserInfo();
+        userInfo.setName(userName);
+        userInfo.setPhone("138****8888");
+        userInfo.setEmail("user@example.com");
+        userInfo.setIdCard("110101199001011234");
+        userInfo.setPreferredTransportation(Arrays.asList("飞机", "高铁", "自驾", "大巴"));
+        userInfo.setDefaultCity("北京");
+        return userInfo;
+    }
 
+    private UserInfo defaultUserInfo() {
+        // 默认用户信息
+        UserInfo userInfo = new UserInfo();
+        userInfo.setName("张三");
+        userInfo.setPhone("138****8888");
+        userInfo.setEmail("user@example.com");
+        userInfo.setIdCard("110101199001011234");
+        userInfo.setPreferredTransportation(Arrays.asList("飞机", "高铁", "自驾", "大巴"));
+        userInfo.setDefaultCity("北京");
         return userInfo;
     }
 
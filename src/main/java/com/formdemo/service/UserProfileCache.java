@@ -0,0 +1,318 @@
+package com.formdemo.service;
+
+import com.formdemo.model.UserInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 用户资料缓存
+ * 外部用户信息接口每次调用约100ms。资料按用户名缓存 ttl，条目存活超过 refresh-ahead 比例后，
+ * 命中时在后台提前刷新，期间继续返回旧值，热点用户的资料不会因过期而在请求路径上重新加载。
+ * 同一用户的并发加载共享同一个 Future；批量查询时未命中的用户合并为一次外部调用。
+ * 会话开始时 prefetch 在虚拟线程上异步加载，与LLM调用并行，创建表单时资料通常已经就绪。
+ * 只缓存已登记用户的资料：未知用户（及未识别出用户名时）结果为 null，不缓存，也不会返回默认用户信息。
+ * 返回的 UserInfo 为共享实例，调用方不要修改。
+ */
+@Service
+public class UserProfileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileCache.class);
+
+    private final UserInfoService userInfoService;
+    private final Executor executor;
+    private final long ttlMillis;
+    private final long refreshAheadMillis;
+    private final int maxSize;
+    private final long prefillWaitMillis;
+    private final LongSupplier clock;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder bulkLoads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder prefillTimeouts = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private final LatencyHistogram refreshLatency = new LatencyHistogram();
+
+    @Autowired
+    public UserProfileCache(UserInfoService userInfoService, ExecutorService chatExecutor,
+                            @Value("${assistant.user-profile.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${assistant.user-profile.refresh-ahead-ratio:0.8}") double refreshAheadRatio,
+                            @Value("${assistant.user-profile.max-size:10000}") int maxSize,
+                            @Value("${assistant.user-profile.prefill-wait-ms:200}") long prefillWaitMillis) {
+        this(userInfoService, chatExecutor, ttlSeconds * 1000L, (long) (ttlSeconds * 1000L * refreshAheadRatio),
+             maxSize, prefillWaitMillis, System::currentTimeMillis);
+    }
+
+    UserProfileCache(UserInfoService userInfoService, Executor executor, long ttlMillis, long refreshAheadMillis,
+                     int maxSize, long prefillWaitMillis, LongSupplier clock) {
+        this.userInfoService = userInfoService;
+        this.executor = executor;
+        this.ttlMillis = ttlMillis;
+        this.refreshAheadMillis = refreshAheadMillis;
+        this.maxSize = maxSize;
+        this.prefillWaitMillis = prefillWaitMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * 获取用户资料，未命中时阻塞加载
+     * @param userName 用户名，为空或未知用户时返回 null
+     */
+    public UserInfo get(String userName) {
+        return prefetch(userName).join();
+    }
+
+    /**
+     * 异步获取用户资料：命中时返回已完成的 Future，否则立即在后台开始加载
+     */
+    public CompletableFuture<UserInfo> prefetch(String userName) {
+        String key = keyOf(userName);
+        if (key.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long now = clock.getAsLong();
+        Entry entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now)) {
+            hits.increment();
+            refreshAhead(key, entry, now);
+            return entry.future;
+        }
+        misses.increment();
+        return load(key, now).future;
+    }
+
+    /**
+     * 批量获取用户资料（用户名 -> 资料，未知用户为 null）；未命中的用户合并为一次外部调用
+     */
+    public Map<String, UserInfo> getAll(Collection<String> userNames) {
+        long now = clock.getAsLong();
+        Map<String, CompletableFuture<UserInfo>> futures = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        // 批量结果在登记完所有条目后才开始加载；与单个加载并发时以先登记的条目为准
+        CompletableFuture<Map<String, UserInfo>> batch = new CompletableFuture<>();
+        for (String userName : userNames) {
+            String key = keyOf(userName);
+            if (futures.containsKey(key)) {
+                continue;
+            }
+            if (key.isEmpty()) {
+                futures.put(key, CompletableFuture.completedFuture(null));
+                continue;
+            }
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(now)) {
+                hits.increment();
+                refreshAhead(key, entry, now);
+                futures.put(key, entry.future);
+                continue;
+            }
+            misses.increment();
+            Entry[] created = new Entry[1];
+            entry = entries.compute(key, (k, current) -> {
+                if (current != null && !current.isExpired(now)) {
+                    return current;
+                }
+                created[0] = new Entry(batch.thenApply(loaded -> loaded.get(k)), now);
+                return created[0];
+            });
+            if (created[0] != null) {
+                missing.add(key);
+                removeOnFailure(key, created[0]);
+            }
+            futures.put(key, entry.future);
+        }
+
+        if (!missing.isEmpty()) {
+            bulkLoads.increment();
+            try {
+                batch.completeAsync(() -> {
+                    long start = System.nanoTime();
+                    Map<String, UserInfo> loaded = userInfoService.getUserInfos(missing);
+                    loadLatency.recordNanos(System.nanoTime() - start);
+                    return loaded;
+                }, executor);
+            } catch (RuntimeException e) {
+                batch.completeExceptionally(e);
+                throw e;
+            }
+            evictIfFull(now);
+        }
+
+        Map<String, UserInfo> result = new LinkedHashMap<>();
+        for (String userName : userNames) {
+            result.put(userName, futures.get(keyOf(userName)).join());
+        }
+        return result;
+    }
+
+    /**
+     * 等待预取的资料，最多等待 prefill-wait-ms；超时或加载失败时返回 null（不预填，也不阻塞请求）
+     */
+    public UserInfo awaitPrefetched(CompletableFuture<UserInfo> prefetched) {
+        try {
+            return prefetched.get(prefillWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            prefillTimeouts.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 缓存统计：命中率、提前刷新次数及加载/刷新延迟
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("refreshAheadMillis", refreshAheadMillis);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("refreshes", refreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("bulkLoads", bulkLoads.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("prefillTimeouts", prefillTimeouts.sum());
+        stats.put("loadLatency", loadLatency.snapshot());
+        stats.put("refreshLatency", refreshLatency.snapshot());
+        return stats;
+    }
+
+    /**
+     * 加载单个用户；并发未命中时只有一个调用方真正发起加载，其余共享其 Future
+     */
+    private Entry load(String key, long now) {
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, current) -> {
+            if (current != null && !current.isExpired(now)) {
+                return current;
+            }
+            created[0] = new Entry(CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                UserInfo loaded = userInfoService.findUserInfo(k);
+                loadLatency.recordNanos(System.nanoTime() - start);
+                return loaded;
+            }, executor), now);
+            return created[0];
+        });
+        if (created[0] != null) {
+            removeOnFailure(key, created[0]);
+            evictIfFull(now);
+        }
+        return entry;
+    }
+
+    /**
+     * 条目存活超过 refresh-ahead 时间后，由第一个命中的调用方在后台刷新；刷新完成前继续使用旧值
+     */
+    private void refreshAhead(String key, Entry entry, long now) {
+        if (now - entry.loadedAt < refreshAheadMillis || !entry.future.isDone()
+            || entry.future.isCompletedExceptionally() || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    UserInfo refreshed = userInfoService.findUserInfo(key);
+                    if (refreshed == null) {
+                        // 用户已不存在
+                        entries.remove(key, entry);
+                    } else {
+                        entries.replace(key, entry, new Entry(CompletableFuture.completedFuture(refreshed), clock.getAsLong()));
+                    }
+                    refreshLatency.recordNanos(System.nanoTime() - start);
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    // 刷新失败时保留旧值直到过期，下一次命中再尝试
+                    refreshFailures.increment();
+                    entry.refreshing.set(false);
+                    log.warn("Failed to refresh user profile {}: {}", key, e.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    private void removeOnFailure(String key, Entry entry) {
+        entry.future.whenComplete((info, error) -> {
+            if (error != null || info == null) {
+                entries.remove(key, entry);
+            }
+        });
+    }
+
+    /**
+     * 超过容量时先清除过期条目，仍超出则按遍历顺序淘汰（近似淘汰，不维护访问顺序）
+     */
+    private void evictIfFull(long now) {
+        if (maxSize <= 0 || entries.size() <= maxSize) {
+            return;
+        }
+        entries.entrySet().removeIf(e -> e.getValue().isExpired(now) && evicted());
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private boolean evicted() {
+        evictions.increment();
+        return true;
+    }
+
+    private static String keyOf(String userName) {
+        return userName == null ? "" : userName.trim();
+    }
+
+    private final class Entry {
+        private final CompletableFuture<UserInfo> future;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(CompletableFuture<UserInfo> future, long loadedAt) {
+            this.future = future;
+            this.loadedAt = loadedAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - loadedAt >= ttlMillis;
+        }
+    }
+}
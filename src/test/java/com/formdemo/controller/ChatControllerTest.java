@@ -13,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -42,14 +43,15 @@ class ChatControllerTest {
         chatResponse.setHasForm(true);
         chatResponse.setFormHtml("<form>Test</form>");
         
-        when(chatService.processMessage(anyString(), anyString())).thenReturn(chatResponse);
+        when(chatService.processMessageAsync(anyString(), anyString(), any()))
+            .thenReturn(CompletableFuture.completedFuture(chatResponse));
         
-        ResponseEntity<ChatResponse> response = chatController.sendMessage(chatMessage);
+        ResponseEntity<ChatResponse> response = chatController.sendMessage(chatMessage).join();
         
         assertNotNull(response);
         assertEquals(200, response.getStatusCode().value());
         assertNotNull(response.getBody());
-        verify(chatService, times(1)).processMessage(anyString(), anyString());
+        verify(chatService, times(1)).processMessageAsync(anyString(), anyString(), any());
     }
 
     @Test
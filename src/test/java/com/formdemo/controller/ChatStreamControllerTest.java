@@ -0,0 +1,119 @@
+package com.formdemo.controller;
+
+import com.formdemo.exception.LlmProviderException;
+import com.formdemo.model.ChatResponse;
+import com.formdemo.model.FormField;
+import com.formdemo.service.ChatService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@ExtendWith(MockitoExtension.class)
+class ChatStreamControllerTest {
+
+    @Mock
+    private ChatService chatService;
+
+    private ExecutorService chatExecutor;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        chatExecutor = Executors.newSingleThreadExecutor();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ChatStreamController(chatService, chatExecutor, 5_000)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        chatExecutor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamMessage_SendsTokensThenFieldsThenDone() throws Exception {
+        ChatResponse chatResponse = new ChatResponse();
+        chatResponse.setResponseText("好的，我已经为您准备好了酒店预订表单");
+        chatResponse.setIntentType("create_form");
+        when(chatService.processMessageStreaming(eq("我要订酒店"), eq("test-session"), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                Consumer<String> onToken = invocation.getArgument(3);
+                BiConsumer<FormField, String> onFormField = invocation.getArgument(4);
+                onToken.accept("{\"intent\":");
+                onToken.accept("\"create_form\"}");
+                onFormField.accept(new FormField("name", "姓名", "text", "", null, true, "请输入姓名"), "<input name=\"name\">");
+                return chatResponse;
+            });
+
+        String body = stream("{\"message\":\"我要订酒店\",\"sessionId\":\"test-session\"}", null);
+
+        assertEquals(List.of("token", "token", "field", "done"), eventNames(body));
+        assertTrue(body.contains("data:{\"text\":\"\\\"create_form\\\"}\"}"));
+        assertTrue(body.contains("data:{\"name\":\"name\",\"html\":\"<input name=\\\"name\\\">\"}"));
+        assertTrue(body.contains("\"responseText\":\"好的，我已经为您准备好了酒店预订表单\""));
+    }
+
+    @Test
+    void testStreamMessage_FailureEndsStreamWithoutDone() throws Exception {
+        LlmProviderException failure = new LlmProviderException("LLM API 返回错误 500", 500, false);
+        when(chatService.processMessageStreaming(anyString(), eq("default"), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                Consumer<String> onToken = invocation.getArgument(3);
+                onToken.accept("{\"intent\":");
+                throw failure;
+            });
+
+        String body = stream("{\"message\":\"我要订酒店\"}", failure);
+
+        assertEquals(List.of("token"), eventNames(body));
+    }
+
+    /**
+     * 发起流式请求并等待事件流结束，返回响应正文
+     * @param expectedError 期望流以该异常结束，为 null 时期望正常结束
+     */
+    private String stream(String requestJson, Exception expectedError) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/chat/message/stream")
+                                               .contentType(MediaType.APPLICATION_JSON)
+                                               .content(requestJson))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        Object asyncResult = result.getAsyncResult(5_000);
+        if (expectedError != null) {
+            assertSame(expectedError, asyncResult);
+        } else {
+            assertNull(asyncResult);
+        }
+        return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> eventNames(String body) {
+        List<String> names = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (line.startsWith("event:")) {
+                names.add(line.substring("event:".length()));
+            }
+        }
+        return names;
+    }
+}
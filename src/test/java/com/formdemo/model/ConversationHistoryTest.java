@@ -0,0 +1,38 @@
+package com.formdemo.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversationHistoryTest {
+
+    @Test
+    void testAdd_OverwritesOldestTurnWhenFull() {
+        ConversationHistory history = new ConversationHistory(2);
+        history.add("1", "a");
+        history.add("2", "b");
+        history.add("3", "c");
+
+        assertEquals(2, history.size());
+        assertEquals(List.of("2", "b", "3", "c"), history.toMessages());
+        assertEquals("3", history.recent(1).get(0).getUserMessage());
+        assertEquals(2, history.recent(5).size());
+    }
+
+    @Test
+    void testJsonRoundTrip_PreservesOrder() throws Exception {
+        ConversationHistory history = new ConversationHistory();
+        history.add("订酒店", "好的");
+        history.add("改成后天", "已更新");
+        ObjectMapper mapper = new ObjectMapper();
+
+        String json = mapper.writeValueAsString(history);
+        ConversationHistory restored = mapper.readValue(json, ConversationHistory.class);
+
+        assertTrue(json.startsWith("["));
+        assertEquals(history.toMessages(), restored.toMessages());
+    }
+}
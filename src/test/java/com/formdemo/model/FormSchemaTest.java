@@ -0,0 +1,68 @@
+package com.formdemo.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormSchemaTest {
+
+    @Test
+    void testIntern_SameStructureSharesOneInstance() {
+        FormSchema first = FormSchema.intern(hotelFields());
+        FormSchema second = FormSchema.intern(hotelFields());
+
+        assertSame(first, second);
+        assertSame(first.getFields(), second.getFields());
+        assertNotSame(first, FormSchema.intern(List.of(new FormField("name", "姓名", "text", "", null, false, null))));
+        assertSame(FormSchema.EMPTY, FormSchema.intern(List.of()));
+    }
+
+    @Test
+    void testIntern_CopiesAndFreezesFields() {
+        List<FormField> source = hotelFields();
+        FormSchema schema = FormSchema.intern(source);
+
+        source.get(0).setLabel("被修改的标签");
+        assertEquals("姓名", schema.getFields().get(0).getLabel());
+        assertThrows(UnsupportedOperationException.class, () -> schema.getFields().get(0).setDefaultValue("张三"));
+        assertThrows(UnsupportedOperationException.class, () -> schema.getFields().get(1).getOptions().add("套房"));
+        assertThrows(UnsupportedOperationException.class, () -> schema.getFields().add(new FormField()));
+    }
+
+    @Test
+    void testValueOf_SessionValueOverridesInitialValue() {
+        FormField guests = new FormField("guests", "入住人数", "number", "1", null, true, null);
+
+        assertEquals("1", FormSchema.valueOf(guests, Map.of()));
+        assertEquals("3", FormSchema.valueOf(guests, Map.of("guests", 3)));
+        Map<String, Object> cleared = new HashMap<>();
+        cleared.put("guests", null);
+        assertEquals("", FormSchema.valueOf(guests, cleared));
+    }
+
+    @Test
+    void testChatSession_JsonRoundTripReinternsSchema() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ChatSession session = new ChatSession("s1", 1_000);
+        session.setFormSchema(FormSchema.intern(hotelFields()));
+        session.getFormData().put("name", "张三");
+
+        ChatSession loaded = objectMapper.readValue(objectMapper.writeValueAsString(session), ChatSession.class);
+
+        assertSame(session.getFormSchema(), loaded.getFormSchema());
+        assertEquals("张三", loaded.getFormData().get("name"));
+    }
+
+    private static List<FormField> hotelFields() {
+        List<FormField> fields = new ArrayList<>();
+        fields.add(new FormField("name", "姓名", "text", "", null, true, "请输入姓名"));
+        fields.add(new FormField("roomType", "房间类型", "select", "", new ArrayList<>(List.of("单人间", "双人间")), true, ""));
+        return fields;
+    }
+}
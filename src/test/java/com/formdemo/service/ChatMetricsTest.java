@@ -0,0 +1,29 @@
+package com.formdemo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMetricsTest {
+
+    @Test
+    void testIntentTag_MapsUnknownModelIntentsToOther() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChatMetrics metrics = new ChatMetrics(registry);
+
+        // 模型返回的意图名直接来自LLM输出，不能原样作为标签值
+        for (String intent : new String[] {"book_hotel", "Create_Form", "fill_form ", "chat"}) {
+            metrics.recordMessage(intent, ChatMetrics.OUTCOME_SUCCESS, System.nanoTime());
+            metrics.recordStage(ChatMetrics.STAGE_PARSE, intent, ChatMetrics.OUTCOME_SUCCESS, System.nanoTime());
+        }
+        metrics.recordMessage(null, ChatMetrics.OUTCOME_LLM_ERROR, System.nanoTime());
+
+        assertEquals(3L, registry.find("chat.message").tags("intent", "other").timer().count());
+        assertEquals(3L, registry.find("chat.stage").tags("intent", "other").timer().count());
+        assertEquals(1L, registry.find("chat.message").tags("intent", "chat").timer().count());
+        assertEquals(1L, registry.find("chat.message").tags("intent", ChatMetrics.INTENT_NONE).timer().count());
+        assertNull(registry.find("chat.message").tags("intent", "book_hotel").timer());
+        assertEquals("fill_form", ChatMetrics.intentTag("fill_form"));
+    }
+}
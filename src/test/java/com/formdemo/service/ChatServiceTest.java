@@ -0,0 +1,336 @@
+package com.formdemo.service;
+
+import com.formdemo.model.ChatResponse;
+import com.formdemo.model.ChatSession;
+import com.formdemo.model.ClientFormState;
+import com.formdemo.model.ConversationHistory;
+import com.formdemo.model.FallbackIntentResponse;
+import com.formdemo.model.FormField;
+import com.formdemo.model.LLMIntentResponse;
+import com.formdemo.model.UserInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatServiceTest {
+
+    private ExecutorService executor;
+    private SessionStore sessionStore;
+    private FakeLocalIntentService localIntentService;
+    private FakeUserInfoService userInfoService;
+    private SimpleMeterRegistry meterRegistry;
+    private ChatService chatService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        sessionStore = new SessionStore(10_000, 0, 0, new NoOpSessionRepository(), System::currentTimeMillis);
+        localIntentService = new FakeLocalIntentService();
+        IntentClassifier classifier = new IntentClassifier(
+            new BusinessKeywordMatcher(new DefaultResourceLoader(), "classpath:business-keywords.json"));
+        FormGeneratorService formGeneratorService = new FormGeneratorService();
+        FormTemplateRegistry templates = new FormTemplateRegistry(new DefaultResourceLoader(),
+            "classpath:form-templates.json", formGeneratorService);
+        userInfoService = new FakeUserInfoService();
+        meterRegistry = new SimpleMeterRegistry();
+        UserProfileCache profiles = new UserProfileCache(userInfoService, executor, 600_000, 480_000, 100, 1_000,
+                                                         System::currentTimeMillis);
+        chatService = new ChatService(localIntentService, formGeneratorService, classifier, templates,
+                                      new SlotFillingParser(), userInfoService, profiles, new ChatMetrics(meterRegistry), sessionStore, new SessionLocks(64), executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testProcessMessage_CreatesHotelFormLocally() {
+        ChatResponse response = chatService.processMessage("我要订酒店", "s1");
+
+        assertEquals("create_form", response.getIntentType());
+        assertTrue(response.isHasForm());
+        assertEquals(0, localIntentService.calls.get());
+    }
+
+    @Test
+    void testCreateForm_LeaveAndExpenseServedFromTemplate() {
+        ChatResponse leave = chatService.processMessage("我要请假", "t1");
+        ChatResponse expense = chatService.processMessage("申请报销", "t2");
+
+        assertEquals("create_form", leave.getIntentType());
+        assertTrue(leave.getFormHtml().contains("name=\"leaveType\""));
+        assertEquals("create_form", expense.getIntentType());
+        assertTrue(expense.getFormHtml().contains("name=\"invoiceNumber\""));
+        assertEquals(0, localIntentService.calls.get());
+        assertEquals(0, localIntentService.extractions.get());
+    }
+
+    @Test
+    void testCreateForm_ExtractsOnlyMentionedValuesWithLlm() {
+        ChatResponse response = chatService.processMessage("订酒店，去杭州", "t3");
+
+        assertEquals("create_form", response.getIntentType());
+        assertTrue(response.getFormHtml().contains("value=\"杭州\""));
+        assertEquals(Map.of("destination", "杭州"), sessionStore.get("t3").getFormData());
+        assertEquals(0, localIntentService.calls.get());
+        assertEquals(1, localIntentService.extractions.get());
+    }
+
+    @Test
+    void testCreateForm_PrefillsPrefetchedProfileWithoutOverridingExtractedValues() {
+        userInfoService.profile = new UserInfo("李雷", "139****0000", null, "110101199202021234", null, "上海");
+
+        chatService.processMessage("我叫李雷，订机票，去杭州", "t4");
+
+        Map<String, Object> formData = sessionStore.get("t4").getFormData();
+        assertEquals("李雷", formData.get("name"));
+        assertEquals("110101199202021234", formData.get("idCard"));
+        assertEquals("上海", formData.get("departure"));
+        assertEquals("杭州", formData.get("destination"));
+        assertFalse(formData.containsKey("email"));
+    }
+
+    @Test
+    void testCreateForm_DoesNotPrefillWhenUserIsUnknown() {
+        userInfoService.profile = new UserInfo("李雷", "139****0000", null, "110101199202021234", null, "上海");
+
+        chatService.processMessage("订机票，去杭州", "t5");
+
+        assertEquals(Map.of("destination", "杭州"), sessionStore.get("t5").getFormData());
+    }
+
+    @Test
+    void testFillForm_SendsPatchOnlyWhenClientVersionIsCurrent() {
+        ChatResponse created = chatService.processMessage("我要订酒店", "p1", ClientFormState.NONE);
+        long version = created.getFormVersion();
+        assertNotNull(created.getFormHtml());
+
+        ChatResponse patched = chatService.processMessage("填写 destination=杭州", "p1", htmlClient(version));
+        assertNull(patched.getFormHtml());
+        assertEquals(Map.of("destination", "杭州"), patched.getFormPatch());
+        assertEquals(Long.valueOf(version + 1), patched.getFormVersion());
+        assertEquals(created.getFormId(), patched.getFormId());
+
+        // 客户端版本已过期：下发完整HTML
+        ChatResponse stale = chatService.processMessage("填写 guests=2", "p1", htmlClient(version));
+        assertNull(stale.getFormPatch());
+        assertTrue(stale.getFormHtml().contains("value=\"杭州\""));
+        assertEquals(Long.valueOf(version + 2), stale.getFormVersion());
+
+        // 值没有变化时版本不变，补丁为空
+        ChatResponse unchanged = chatService.processMessage("填写 guests=2", "p1", htmlClient(version + 2));
+        assertEquals(Map.of(), unchanged.getFormPatch());
+        assertEquals(Long.valueOf(version + 2), unchanged.getFormVersion());
+    }
+
+    @Test
+    void testFillForm_SimpleCommandsParsedLocally() {
+        ChatResponse created = chatService.processMessage("我要订酒店", "l1");
+
+        ChatResponse filled = chatService.processMessage("把目的地填成杭州，人数2", "l1", htmlClient(created.getFormVersion()));
+        assertEquals("fill_form", filled.getIntentType());
+        assertEquals(Map.of("destination", "杭州", "guests", "2"), filled.getFormPatch());
+
+        // 无法确定字段时交给LLM（"日期"可能是入住日期或退房日期）
+        chatService.processMessage("日期改成明天", "l1");
+        assertEquals(1, localIntentService.calls.get());
+    }
+
+    @Test
+    void testProcessMessage_RecordsStageAndMessageTimers() {
+        chatService.processMessage("我要订酒店", "m1");
+        chatService.processMessage("把目的地填成杭州", "m1");
+        chatService.processMessage("日期改成明天", "m1");
+
+        assertEquals(1, meterRegistry.get("chat.message").tags("intent", "create_form", "outcome", "success").timer().count());
+        assertEquals(2, meterRegistry.get("chat.message").tags("intent", "fill_form", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("chat.stage").tags("stage", "template", "intent", "create_form").timer().count());
+        assertEquals(1, meterRegistry.get("chat.stage")
+            .tags("stage", "slot_filling", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("chat.stage")
+            .tags("stage", "slot_filling", "outcome", "not_confident").timer().count());
+        assertEquals(2, meterRegistry.get("chat.stage").tags("stage", "persist", "intent", "fill_form").timer().count());
+    }
+
+    @Test
+    void testProcessMessage_TagsLlmFallbackWithReason() {
+        chatService.processMessage("我要订酒店", "m2");
+        localIntentService.fallbackReason = ChatMetrics.OUTCOME_LLM_ERROR;
+
+        ChatResponse response = chatService.processMessage("日期改成明天", "m2");
+
+        assertEquals("chat", response.getIntentType());
+        assertEquals(1, meterRegistry.get("chat.message").tags("intent", "chat", "outcome", "llm_error").timer().count());
+        assertNull(meterRegistry.find("chat.message").tags("intent", "chat", "outcome", "success").timer());
+    }
+
+    @Test
+    void testFillForm_SessionsShareImmutableSchema() {
+        chatService.processMessage("我要订酒店", "a");
+        chatService.processMessage("我要订酒店", "b");
+        chatService.processMessage("填写 destination=杭州", "a");
+
+        ChatSession a = sessionStore.get("a");
+        ChatSession b = sessionStore.get("b");
+        assertSame(a.getFormSchema(), b.getFormSchema());
+        assertEquals("杭州", a.getFormData().get("destination"));
+        assertTrue(b.getFormData().isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> a.getFormFields().get(0).setDefaultValue("x"));
+    }
+
+    @Test
+    void testSchemaMode_ReturnsStructureUnlessCachedByBrowser() {
+        ChatResponse first = chatService.processMessage("我要订酒店", "b1",
+            new ClientFormState(null, ClientFormState.MODE_SCHEMA, List.of()));
+        assertNull(first.getFormHtml());
+        assertNotNull(first.getSchemaHash());
+        assertEquals("destination", first.getFormSchema().get(3).getName());
+        assertNull(first.getFormSchema().get(3).getDefaultValue());
+        assertEquals("1", first.getFormValues().get("guests"));
+
+        // 另一会话创建同一模板：浏览器已缓存该结构，只下发哈希和值
+        ChatResponse second = chatService.processMessage("我要订酒店", "b2",
+            new ClientFormState(null, ClientFormState.MODE_SCHEMA, List.of(first.getSchemaHash())));
+        assertEquals(first.getSchemaHash(), second.getSchemaHash());
+        assertNull(second.getFormSchema());
+        assertNotNull(second.getFormValues());
+    }
+
+    private static ClientFormState htmlClient(long formVersion) {
+        return new ClientFormState(formVersion, ClientFormState.MODE_HTML, List.of());
+    }
+
+    @Test
+    @Timeout(30)
+    void testConcurrentMessages_SameSessionAreSerialized() {
+        chatService.processMessage("我要订酒店", "hot");
+        int messages = 200;
+
+        List<CompletableFuture<ChatResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            futures.add(chatService.processMessageAsync("填写第" + i + "项", "hot"));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        ChatSession session = sessionStore.get("hot");
+        assertEquals(1, localIntentService.maxInFlightPerSession.get());
+        assertEquals(messages, session.getFormData().size());
+        assertEquals(ConversationHistory.DEFAULT_MAX_TURNS, session.getHistory().size());
+    }
+
+    @Test
+    @Timeout(30)
+    void testConcurrentMessages_DifferentSessionsRunInParallel() {
+        int sessions = 50;
+        int messagesPerSession = 20;
+        for (int s = 0; s < sessions; s++) {
+            chatService.processMessage("我要订酒店", "session-" + s);
+        }
+
+        List<CompletableFuture<ChatResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < messagesPerSession; i++) {
+            for (int s = 0; s < sessions; s++) {
+                futures.add(chatService.processMessageAsync("填写第" + i + "项", "session-" + s));
+            }
+        }
+        futures.forEach(CompletableFuture::join);
+
+        assertEquals(1, localIntentService.maxInFlightPerSession.get());
+        assertTrue(localIntentService.maxInFlightTotal.get() > 1, "不同会话应当并行处理");
+        for (int s = 0; s < sessions; s++) {
+            assertEquals(messagesPerSession, sessionStore.get("session-" + s).getFormData().size());
+        }
+    }
+
+    /**
+     * 模拟用户信息接口：默认返回空资料（不预填任何字段）
+     */
+    private static class FakeUserInfoService extends UserInfoService {
+        volatile UserInfo profile = new UserInfo();
+
+        @Override
+        public UserInfo findUserInfo(String userName) {
+            return profile;
+        }
+    }
+
+    /**
+     * 模拟LLM：把"填写第N项"识别为填写 item_N 字段（"填写 字段=值"填写指定字段），并记录每个会话的并发处理数；
+     * 按模板创建表单时从消息中提取目的地
+     */
+    private static class FakeLocalIntentService extends LocalIntentService {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger extractions = new AtomicInteger();
+        final AtomicInteger maxInFlightPerSession = new AtomicInteger();
+        final AtomicInteger maxInFlightTotal = new AtomicInteger();
+        private final AtomicInteger inFlightTotal = new AtomicInteger();
+        private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        volatile String fallbackReason;
+
+        FakeLocalIntentService() {
+            super(null, null, null, null, null, 0, 0);
+        }
+
+        @Override
+        public Map<String, Object> extractFieldValues(String userMessage, List<FormField> fields, String sessionId) {
+            extractions.incrementAndGet();
+            Map<String, Object> values = new HashMap<>();
+            if (userMessage.contains("杭州")) {
+                values.put("destination", "杭州");
+            }
+            return values;
+        }
+
+        @Override
+        public LLMIntentResponse recognizeIntentWithLLM(String userMessage, List<FormField> currentFormFields,
+                                                        Map<String, Object> formValues, ConversationHistory history,
+                                                        String sessionId) {
+            calls.incrementAndGet();
+            if (fallbackReason != null) {
+                return new FallbackIntentResponse(fallbackReason);
+            }
+            AtomicInteger sessionInFlight = inFlight.computeIfAbsent(sessionId, k -> new AtomicInteger());
+            maxInFlightPerSession.accumulateAndGet(sessionInFlight.incrementAndGet(), Math::max);
+            maxInFlightTotal.accumulateAndGet(inFlightTotal.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                sessionInFlight.decrementAndGet();
+                inFlightTotal.decrementAndGet();
+            }
+
+            Map<String, Object> updates = new HashMap<>();
+            int eq = userMessage.indexOf('=');
+            if (eq > 0) {
+                // "填写 name=王五"：直接填写指定字段
+                updates.put(userMessage.substring(userMessage.lastIndexOf(' ', eq) + 1, eq), userMessage.substring(eq + 1));
+            } else {
+                String item = userMessage.replaceAll("\\D+", "");
+                updates.put("item_" + item, item);
+            }
+            LLMIntentResponse response = new LLMIntentResponse();
+            response.setIntent("fill_form");
+            response.setFormFields(new ArrayList<>());
+            response.setFieldUpdates(updates);
+            return response;
+        }
+    }
+}
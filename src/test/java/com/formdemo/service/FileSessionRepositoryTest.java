@@ -0,0 +1,124 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.model.ChatSession;
+import com.formdemo.model.FormField;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSessionRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private FileSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void testSaveAndLoad_RoundTripsSessionState() {
+        repository.save(session("s1", 1_000));
+
+        ChatSession loaded = repository.load("s1");
+
+        assertNotNull(loaded);
+        assertEquals("form_1", loaded.getFormId());
+        assertEquals(List.of("预订酒店", "好的"), loaded.getHistory().toMessages());
+        assertEquals("hotel_name", loaded.getFormFields().get(0).getName());
+        assertEquals("如家", loaded.getFormData().get("hotel_name"));
+        assertNull(repository.load("missing"));
+    }
+
+    @Test
+    void testRecover_RestoresLatestVersionAfterRestart() {
+        repository.save(session("s1", 1_000));
+        ChatSession updated = session("s1", 2_000);
+        updated.getFormData().put("hotel_name", "汉庭");
+        repository.save(updated);
+        repository.save(session("s2", 1_500));
+        repository.delete("s2");
+        repository.close();
+
+        repository = open();
+
+        assertEquals(1, repository.getStats().get("recoveredSessions"));
+        assertEquals("汉庭", repository.load("s1").getFormData().get("hotel_name"));
+        assertNull(repository.load("s2"));
+    }
+
+    @Test
+    void testRecover_TruncatesPartialTrailingRecord() throws Exception {
+        repository.save(session("s1", 1_000));
+        repository.close();
+        Path logFile = directory.resolve("sessions.log");
+        long validLength = Files.size(logFile);
+        Files.write(logFile, "{\"op\":\"PUT\",\"id\":\"s2\",\"ses".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+
+        repository = open();
+
+        assertNotNull(repository.load("s1"));
+        assertNull(repository.load("s2"));
+        assertEquals(validLength, Files.size(logFile));
+
+        // 截断后继续追加的记录可正常恢复
+        repository.save(session("s3", 3_000));
+        repository.close();
+        repository = open();
+        assertNotNull(repository.load("s3"));
+    }
+
+    @Test
+    void testMaintain_CompactsGarbageAndDropsExpiredSessions() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            repository.save(session("hot", 10_000 + i));
+        }
+        repository.save(session("cold", 1_000));
+        long before = Files.size(directory.resolve("sessions.log"));
+
+        repository.maintain(5_000);
+
+        assertEquals(1L, repository.getStats().get("compactions"));
+        assertTrue(Files.size(directory.resolve("sessions.log")) < before);
+        assertNotNull(repository.load("hot"));
+        assertNull(repository.load("cold"));
+
+        repository.close();
+        repository = open();
+        assertEquals(1, repository.getStats().get("recoveredSessions"));
+        assertEquals(10_019L, repository.load("hot").getLastAccessedAt());
+    }
+
+    private FileSessionRepository open() {
+        FileSessionRepository repo = new FileSessionRepository(directory, 0, new ObjectMapper());
+        repo.recover();
+        return repo;
+    }
+
+    private static ChatSession session(String id, long lastAccessedAt) {
+        ChatSession session = new ChatSession(id, lastAccessedAt);
+        session.getHistory().add("预订酒店", "好的");
+        session.setFormId("form_1");
+        session.setFormFields(List.of(new FormField("hotel_name", "酒店名称", "text", "", null, true, "请输入酒店名称")));
+        session.getFormData().put("hotel_name", "如家");
+        return session;
+    }
+}
@@ -0,0 +1,66 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.model.FormField;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormContextEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<FormField> hotelFields = List.of(
+        new FormField("guest_name", "姓名", "text", "张三", null, true, "请输入姓名"),
+        new FormField("hotel_name", "酒店名称", "text", "", null, true, "请输入酒店名称"),
+        new FormField("check_in_date", "入住日期", "date", "", null, true, null),
+        new FormField("room_type", "房型", "select", "", Arrays.asList("大床房", "双床房"), false, null)
+    );
+
+    @Test
+    void testSelectRelevant_MatchesLabelWordsAndOptions() {
+        List<FormField> selected = FormContextEncoder.selectRelevant(hotelFields, Map.of(), "入住改成后天，要双床房");
+
+        assertEquals(List.of("check_in_date", "room_type"), selected.stream().map(FormField::getName).toList());
+    }
+
+    @Test
+    void testSelectRelevant_FallsBackToAllFields() {
+        assertEquals(hotelFields, FormContextEncoder.selectRelevant(hotelFields, Map.of(), "帮我填一下"));
+    }
+
+    @Test
+    void testEncode_UsesShortKeysAndOmitsEmptyValues() throws Exception {
+        String compact = FormContextEncoder.encode(hotelFields, Map.of(), "把酒店改成如家", objectMapper);
+
+        assertTrue(compact.startsWith("（表单共4个字段，仅列出与本条消息相关的1个）"));
+        assertTrue(compact.endsWith("[{\"n\":\"hotel_name\",\"l\":\"酒店名称\",\"t\":\"text\",\"r\":1}]"));
+
+        String full = objectMapper.writeValueAsString(hotelFields);
+        String allFields = FormContextEncoder.encode(hotelFields, Map.of(), "帮我填一下", objectMapper);
+        assertFalse(allFields.contains("placeholder"));
+        assertTrue(TokenEstimator.estimate(allFields) < TokenEstimator.estimate(full));
+    }
+
+    @Test
+    void testEncode_ReadsSessionValuesAndNormalizesTypes() {
+        List<FormField> fields = List.of(
+            new FormField("hotel_name", "酒店名称", "文本", "", null, true, null),
+            new FormField("check_in_date", "入住日期", "日期", "", null, true, null));
+
+        String compact = FormContextEncoder.encode(fields, Map.of("hotel_name", "如家"), "如家改成汉庭", objectMapper);
+
+        assertTrue(compact.endsWith("[{\"n\":\"hotel_name\",\"l\":\"酒店名称\",\"t\":\"text\",\"v\":\"如家\",\"r\":1}]"));
+        assertEquals(List.of("check_in_date"),
+            FormContextEncoder.selectRelevant(fields, Map.of(), "改到明天").stream().map(FormField::getName).toList());
+    }
+
+    @Test
+    void testEncode_EmptyForm() {
+        assertEquals("[]", FormContextEncoder.encode(List.of(), Map.of(), "你好", objectMapper));
+    }
+}
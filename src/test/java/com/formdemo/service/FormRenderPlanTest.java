@@ -0,0 +1,140 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormRenderPlanTest {
+
+    private static final String FORM_ID = "00000000-0000-0000-0000-000000000000";
+
+    private final List<FormField> hotelFields = new ArrayList<>(List.of(
+        new FormField("name", "姓名", "text", "张三", null, true, "请输入姓名"),
+        new FormField("destination", "目的地", "text", "", null, true, "例如 \"北京\" & 上海"),
+        new FormField("checkInDate", "入住日期", "date", "", null, true, "请选择入住日期"),
+        new FormField("roomType", "房间类型", "select", "", Arrays.asList("单人间", "双人间", "大床房"), true, ""),
+        new FormField("remark", "备注", "text", "", null, false, null)
+    ));
+
+    @Test
+    void testRender_MatchesLegacyOutput() {
+        Map<String, Object> formData = new HashMap<>();
+        formData.put("destination", "<北京>");
+        formData.put("roomType", "大床房");
+        formData.put("remark", null);
+
+        String html = FormRenderPlan.compile(hotelFields).render(FORM_ID, hotelFields, formData);
+
+        assertEquals(legacyRender(hotelFields, formData), html);
+        assertTrue(html.contains("value=\"&lt;北京&gt;\""));
+        assertTrue(html.contains("<option value=\"大床房\" selected>"));
+        assertTrue(html.contains("placeholder=\"例如 &quot;北京&quot; &amp; 上海\""));
+    }
+
+    @Test
+    void testAppendEscaped_SinglePass() {
+        StringBuilder out = new StringBuilder();
+        FormRenderPlan.appendEscaped(out, "a<b>&\"c'");
+        FormRenderPlan.appendEscaped(out, null);
+        FormRenderPlan.appendEscaped(out, "无需转义");
+
+        assertEquals("a&lt;b&gt;&amp;&quot;c&#39;无需转义", out.toString());
+    }
+
+    @Test
+    void testPlanFor_ReusesPlanUntilSchemaChanges() {
+        FormGeneratorService service = new FormGeneratorService();
+
+        FormRenderPlan first = service.planFor(hotelFields);
+        hotelFields.get(0).setDefaultValue("李四"); // 值变化不影响结构
+        assertSame(first, service.planFor(hotelFields));
+
+        hotelFields.get(0).setLabel("入住人");
+        FormRenderPlan recompiled = service.planFor(hotelFields);
+        assertNotSame(first, recompiled);
+        assertTrue(service.generateFormHtmlFromFields(hotelFields, null).contains("入住人"));
+
+        assertNotSame(recompiled, service.planFor(new ArrayList<>(hotelFields)));
+        assertEquals(2L, service.getStats().get("planHits"));
+        assertEquals(3L, service.getStats().get("planCompiles"));
+    }
+
+    /**
+     * 改造前 FormGeneratorService 的渲染方式：复制字段、每个字段一个 StringBuilder、链式 replace 转义
+     */
+    private static String legacyRender(List<FormField> fields, Map<String, Object> formData) {
+        StringBuilder html = new StringBuilder();
+        html.append("<div class=\"form-container\" data-form-id=\"").append(FORM_ID).append("\">");
+        html.append("<form id=\"form-").append(FORM_ID).append("\" class=\"dynamic-form\">");
+        for (FormField source : fields) {
+            FormField field = new FormField(source.getName(), source.getLabel(), source.getType(),
+                source.getDefaultValue(), source.getOptions(), source.isRequired(), source.getPlaceholder());
+            if (formData != null && formData.containsKey(field.getName())) {
+                Object value = formData.get(field.getName());
+                field.setDefaultValue(value != null ? value.toString() : "");
+            }
+            html.append(legacyFieldHtml(field));
+        }
+        html.append("<div class=\"form-actions\">");
+        html.append("<button type=\"submit\" class=\"btn-submit\">提交</button>");
+        html.append("<button type=\"button\" class=\"btn-reset\" onclick=\"this.form.reset()\">重置</button>");
+        html.append("</div>");
+        html.append("</form>");
+        html.append("</div>");
+        return html.toString();
+    }
+
+    private static String legacyFieldHtml(FormField field) {
+        StringBuilder html = new StringBuilder();
+        html.append("<div class=\"form-field\">");
+        html.append("<label for=\"").append(field.getName()).append("\">");
+        html.append(field.getLabel());
+        if (field.isRequired()) {
+            html.append("<span class=\"required\">*</span>");
+        }
+        html.append("</label>");
+        if ("select".equals(field.getType())) {
+            html.append("<select id=\"").append(field.getName()).append("\" name=\"").append(field.getName()).append("\"");
+            if (field.isRequired()) {
+                html.append(" required");
+            }
+            html.append(">");
+            for (String option : field.getOptions()) {
+                html.append("<option value=\"").append(option).append("\"");
+                if (option.equals(field.getDefaultValue())) {
+                    html.append(" selected");
+                }
+                html.append(">").append(option).append("</option>");
+            }
+            html.append("</select>");
+        } else {
+            html.append("<input type=\"").append(field.getType()).append("\"");
+            html.append(" id=\"").append(field.getName()).append("\"");
+            html.append(" name=\"").append(field.getName()).append("\"");
+            if (field.getDefaultValue() != null && !field.getDefaultValue().isEmpty()) {
+                html.append(" value=\"").append(legacyEscape(field.getDefaultValue())).append("\"");
+            }
+            if (field.getPlaceholder() != null && !field.getPlaceholder().isEmpty()) {
+                html.append(" placeholder=\"").append(legacyEscape(field.getPlaceholder())).append("\"");
+            }
+            if (field.isRequired()) {
+                html.append(" required");
+            }
+            html.append(">");
+        }
+        html.append("</div>");
+        return html.toString();
+    }
+
+    private static String legacyEscape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+                   .replace("\"", "&quot;").replace("'", "&#39;");
+    }
+}
@@ -0,0 +1,52 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import com.formdemo.model.FormSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormTemplateRegistryTest {
+
+    private final FormGeneratorService formGeneratorService = new FormGeneratorService();
+    private final FormTemplateRegistry registry = new FormTemplateRegistry(new DefaultResourceLoader(),
+        "classpath:form-templates.json", formGeneratorService);
+
+    @Test
+    void testLoad_CoversSupportedBusinessTypes() {
+        assertTrue(registry.getBusinessTypes().containsAll(Set.of("HOTEL", "FLIGHT", "LEAVE", "EXPENSE")));
+        assertEquals("leaveType", registry.find("LEAVE").getFields().get(2).getName());
+        assertEquals(List.of("飞机", "高铁", "自驾", "大巴"), registry.find("FLIGHT").getFields().get(7).getOptions());
+        assertNull(registry.find("UNKNOWN"));
+        assertNull(registry.find(null));
+    }
+
+    @Test
+    void testLoad_InternsSchemasAndPrecompilesPlans() {
+        FormSchema hotel = registry.find("HOTEL");
+        long compiles = (Long) formGeneratorService.getStats().get("planCompiles");
+
+        assertSame(hotel, FormSchema.intern(hotel.getFields()));
+        formGeneratorService.generateFormHtmlFromFields(hotel.getFields(), null);
+        assertEquals(compiles, formGeneratorService.getStats().get("planCompiles"));
+        assertEquals(1L, formGeneratorService.getStats().get("planHits"));
+    }
+
+    @Test
+    void testReplace_RejectsInvalidTemplateAndKeepsCurrent() {
+        Map<String, List<FormField>> duplicate = Map.of("LEAVE", List.of(
+            new FormField("days", "天数", "number", "", null, true, ""),
+            new FormField("days", "请假天数", "number", "", null, true, "")));
+
+        assertThrows(IllegalStateException.class, () -> registry.replace(duplicate));
+        assertThrows(IllegalStateException.class, () -> registry.replace(Map.of("LEAVE",
+            List.of(new FormField("leaveType", "请假类型", "select", "", null, true, "")))));
+        assertNotNull(registry.find("HOTEL"));
+        assertEquals(7, registry.find("LEAVE").size());
+    }
+}
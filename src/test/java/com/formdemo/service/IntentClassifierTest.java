@@ -0,0 +1,94 @@
+package com.formdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntentClassifierTest {
+
+    private final IntentClassifier classifier = new IntentClassifier(
+        new BusinessKeywordMatcher(new DefaultResourceLoader(), "classpath:business-keywords.json"));
+
+    @Test
+    void testClassify_ResolvesSingleBusinessTypeAsCreateForm() {
+        Map<String, String> cases = Map.of(
+            "我要订酒店", IntentClassifier.HOTEL,
+            "帮我订机票，去上海", IntentClassifier.FLIGHT,
+            "我想请年假", IntentClassifier.LEAVE,
+            "申请报销", IntentClassifier.EXPENSE,
+            "帮我 book hotel，订酒店", IntentClassifier.HOTEL
+        );
+        cases.forEach((message, businessType) -> {
+            IntentClassifier.Classification result = classifier.classify(message, false);
+            assertTrue(result.isResolved(), message);
+            assertEquals("create_form", result.getIntent(), message);
+            assertEquals(businessType, result.getBusinessType(), message);
+        });
+    }
+
+    @Test
+    void testClassify_ResolvesMessagesWithoutBusinessIntentAsChat() {
+        for (String message : Arrays.asList("你好", "今天天气怎么样", "谢谢", "演唱会怎么购票", "", "   ", null)) {
+            IntentClassifier.Classification result = classifier.classify(message, false);
+            assertTrue(result.isResolved(), String.valueOf(message));
+            assertEquals("chat", result.getIntent(), String.valueOf(message));
+            assertNull(result.getBusinessType(), String.valueOf(message));
+        }
+    }
+
+    @Test
+    void testClassify_DelegatesAmbiguousMessagesToLlm() {
+        List<String> cases = List.of(
+            "不要订酒店了",          // 否定
+            "取消请假",              // 否定
+            "我不需要订酒店",        // 否定
+            "没必要请假了",          // 否定
+            "please leave me alone", // 只命中英文关键词
+            "hotel california 这首歌",
+            "book hotel",
+            "订酒店还是订机票",      // 多个业务类型
+            "把名字改成张三",        // 没有表单时的填写表达
+            "目的地填杭州"
+        );
+        for (String message : cases) {
+            IntentClassifier.Classification result = classifier.classify(message, false);
+            assertFalse(result.isResolved(), message);
+            assertNull(result.getIntent(), message);
+        }
+    }
+
+    @Test
+    void testClassify_DelegatesEverythingNonEmptyWhenFormExists() {
+        for (String message : List.of("我要订酒店", "谢谢", "把名字改成张三")) {
+            assertFalse(classifier.classify(message, true).isResolved(), message);
+        }
+        assertEquals("chat", classifier.classify("", true).getIntent());
+    }
+
+    @Test
+    void testStats_CountsLocalAndDelegatedDecisions() {
+        classifier.classify("我要订酒店", false);
+        classifier.classify("你好", false);
+        classifier.classify("不要订酒店了", false);
+        classifier.classify("你好", true);
+
+        Map<String, Object> stats = classifier.getStats();
+        assertEquals(1L, stats.get("localCreateForm"));
+        assertEquals(1L, stats.get("localChat"));
+        assertEquals(2L, stats.get("delegatedToLlm"));
+    }
+
+    @Test
+    void testIsBusinessIntentAndMentionsValues() {
+        assertTrue(classifier.isBusinessIntent("帮我订机票"));
+        assertFalse(classifier.isBusinessIntent("你好"));
+
+        assertFalse(classifier.mentionsValues("我要订酒店"));
+        assertTrue(classifier.mentionsValues("我要订酒店，去杭州"));
+    }
+}
@@ -0,0 +1,36 @@
+package com.formdemo.service;
+
+import com.formdemo.model.OpenAIRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntentPromptTemplateTest {
+
+    @Test
+    void testBuild_SystemPrefixIsIdenticalAcrossTurns() {
+        List<OpenAIRequest.Message> first = IntentPromptTemplate.build("[]", "", "我要订酒店");
+        List<OpenAIRequest.Message> second = IntentPromptTemplate.build(
+            "[{\"n\":\"hotel_name\"}]", "用户：订酒店\n助手：好的", "酒店改成如家");
+
+        assertEquals("system", first.get(0).getRole());
+        assertEquals(first.get(0).getContent(), second.get(0).getContent());
+        assertTrue(first.get(0).getContent().contains(FormContextEncoder.LEGEND));
+    }
+
+    @Test
+    void testBuild_UserMessageHoldsOnlyVariableParts() {
+        String user = IntentPromptTemplate.build("[{\"n\":\"hotel_name\"}]", "用户：订酒店", "酒店改成如家")
+            .get(1).getContent();
+
+        assertTrue(user.contains("[{\"n\":\"hotel_name\"}]"));
+        assertTrue(user.contains("用户：订酒店"));
+        assertTrue(user.endsWith("酒店改成如家"));
+        assertFalse(user.contains("重要规则"));
+
+        String withoutHistory = IntentPromptTemplate.build("[]", "", "你好").get(1).getContent();
+        assertFalse(withoutHistory.contains("最近的对话"));
+    }
+}
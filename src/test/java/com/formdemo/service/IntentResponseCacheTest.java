@@ -0,0 +1,91 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import com.formdemo.model.LLMIntentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntentResponseCacheTest {
+
+    private AtomicLong now;
+    private IntentResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+        cache = new IntentResponseCache(2, TimeUnit.SECONDS.toNanos(60), now::get);
+    }
+
+    @Test
+    void testBuildKey_NormalizesMessage() {
+        assertEquals(IntentResponseCache.buildKey("  帮我订酒店 ", "[]"),
+                     IntentResponseCache.buildKey("帮我订酒店", "[]"));
+        assertEquals(IntentResponseCache.buildKey("Book  Hotel", "[]"),
+                     IntentResponseCache.buildKey("Book Hotel", "[]"));
+        // 字段值只差大小写时不能共用缓存
+        assertNotEquals(IntentResponseCache.buildKey("邮箱改成 Li@Example.com", "[]"),
+                        IntentResponseCache.buildKey("邮箱改成 li@example.com", "[]"));
+        assertNotEquals(IntentResponseCache.buildKey("帮我订酒店", "[]"),
+                        IntentResponseCache.buildKey("帮我订酒店", "[{\"name\":\"name\"}]"));
+    }
+
+    @Test
+    void testGet_ReturnsDefensiveCopy() {
+        cache.put("k", createResponse());
+
+        LLMIntentResponse first = cache.get("k");
+        assertNotNull(first);
+        first.getFormFields().get(0).setDefaultValue("张三");
+        first.getFieldUpdates().put("name", "李四");
+
+        LLMIntentResponse second = cache.get("k");
+        assertNotSame(first, second);
+        assertEquals("", second.getFormFields().get(0).getDefaultValue());
+        assertTrue(second.getFieldUpdates().isEmpty());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsed() {
+        cache.put("a", createResponse());
+        cache.put("b", createResponse());
+        cache.get("a");
+        cache.put("c", createResponse());
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void testGet_ExpiresAfterTtl() {
+        cache.put("k", createResponse());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        assertNull(cache.get("k"));
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("expirations"));
+        assertEquals(1L, stats.get("misses"));
+        assertEquals(0, stats.get("size"));
+    }
+
+    private LLMIntentResponse createResponse() {
+        List<FormField> fields = new ArrayList<>();
+        fields.add(new FormField("name", "姓名", "text", "", null, true, "请输入姓名"));
+
+        LLMIntentResponse response = new LLMIntentResponse();
+        response.setIntent("create_form");
+        response.setFormFields(fields);
+        response.setFieldUpdates(new HashMap<>());
+        return response;
+    }
+}
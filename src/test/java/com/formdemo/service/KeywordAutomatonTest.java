@@ -0,0 +1,77 @@
+package com.formdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordAutomatonTest {
+
+    @Test
+    void testFindCategories_OverlappingKeywords() {
+        Map<String, List<String>> dictionary = new LinkedHashMap<>();
+        dictionary.put("A", List.of("he", "hers"));
+        dictionary.put("B", List.of("she"));
+        dictionary.put("C", List.of("his"));
+        KeywordAutomaton automaton = KeywordAutomaton.compile(dictionary);
+
+        assertEquals(Set.of("A", "B"), automaton.findCategories("ushers"));
+        assertEquals(Set.of("C"), automaton.findCategories("this"));
+        assertTrue(automaton.findCategories("xyz").isEmpty());
+        assertEquals(4, automaton.getKeywordCount());
+    }
+
+    @Test
+    void testFindCategories_IgnoresCase() {
+        KeywordAutomaton automaton = KeywordAutomaton.compile(Map.of("HOTEL", List.of("Book Hotel", "订酒店")));
+
+        assertTrue(automaton.containsAny("please BOOK HOTEL for me"));
+        assertTrue(automaton.containsAny("帮我订酒店"));
+        assertFalse(automaton.containsAny("book"));
+        assertFalse(automaton.containsAny(null));
+    }
+
+    @Test
+    void testRemoveKeywords_KeepsUnmatchedText() {
+        Map<String, List<String>> dictionary = new LinkedHashMap<>();
+        dictionary.put("A", List.of("he", "hers"));
+        dictionary.put("B", List.of("she"));
+        dictionary.put("LEAVE", List.of("请假", "请年假"));
+        KeywordAutomaton automaton = KeywordAutomaton.compile(dictionary);
+
+        assertEquals("u!", automaton.removeKeywords("uSHERS!"));
+        assertEquals("我要，三天", automaton.removeKeywords("我要请年假，三天"));
+        assertEquals("", automaton.removeKeywords(null));
+    }
+
+    @Test
+    void testBusinessKeywordMatcher_LoadsDefaultDictionary() {
+        BusinessKeywordMatcher matcher = new BusinessKeywordMatcher(new DefaultResourceLoader(), "classpath:business-keywords.json");
+
+        assertEquals(Set.of(IntentClassifier.HOTEL), matcher.match("我要订酒店"));
+        assertEquals(Set.of(IntentClassifier.FLIGHT), matcher.match("帮我定一张机票，买机票"));
+        assertEquals(Set.of(IntentClassifier.LEAVE), matcher.match("我想请假"));
+        assertEquals(Set.of(IntentClassifier.EXPENSE), matcher.match("申请报销发票"));
+        assertTrue(matcher.match("我叫jeffery").isEmpty());
+    }
+
+    @Test
+    void testBusinessKeywordMatcher_ReplaceSwapsDictionary() {
+        BusinessKeywordMatcher matcher = new BusinessKeywordMatcher(new DefaultResourceLoader(), "classpath:business-keywords.json");
+        assertTrue(matcher.match("订火车票").isEmpty());
+
+        matcher.replace(Map.of("TRAIN", List.of("火车票", "高铁票", "train ticket")));
+
+        assertEquals(Set.of("TRAIN"), matcher.match("订火车票"));
+        assertTrue(matcher.match("我要订酒店").isEmpty());
+        // 英文关键词只参与 match，不参与 matchConfident
+        assertEquals(Set.of("TRAIN"), matcher.match("a train ticket"));
+        assertTrue(matcher.matchConfident("a train ticket").isEmpty());
+        assertEquals(Set.of("TRAIN"), matcher.matchConfident("订火车票"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.formdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmConcurrencyLimiterTest {
+
+    @Test
+    @Timeout(5)
+    void testAcquire_QueuesBeyondPerHostLimitUntilPermitClosed() throws Exception {
+        LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(10, 1);
+        LlmConcurrencyLimiter.Permit first = limiter.acquire("api.example.com");
+
+        // 其他主机不受影响
+        limiter.acquire("api.other.com").close();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try (LlmConcurrencyLimiter.Permit permit = limiter.acquire("api.example.com")) {
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS), "同一主机超过上限时应当排队");
+        assertEquals(1, limiter.queuedCalls());
+        assertEquals(1, limiter.runningCalls());
+
+        first.close();
+        first.close();
+        waiter.get(2, TimeUnit.SECONDS);
+        assertEquals(0, limiter.runningCalls());
+        assertEquals(0, limiter.queuedCalls());
+        assertEquals(1L, limiter.getStats().get("delayedCalls"));
+    }
+
+    @Test
+    @Timeout(5)
+    void testAcquire_InterruptedWaiterReleasesHostPermit() throws Exception {
+        LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(1, 2);
+        LlmConcurrencyLimiter.Permit held = limiter.acquire("a.example.com");
+
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire("b.example.com");
+                fail("全局上限已满，应当排队");
+            } catch (InterruptedException expected) {
+                // 排队时被取消
+            }
+        });
+        while (limiter.queuedCalls() == 0) {
+            Thread.sleep(5);
+        }
+        waiter.interrupt();
+        waiter.join();
+        held.close();
+
+        // 被取消的调用已归还 b 主机的许可
+        try (LlmConcurrencyLimiter.Permit first = limiter.acquire("b.example.com")) {
+            assertEquals(1, limiter.runningCalls());
+        }
+        assertEquals(0, limiter.queuedCalls());
+    }
+
+    @Test
+    void testAcquire_UnlimitedWhenLimitsAreZero() throws Exception {
+        LlmConcurrencyLimiter limiter = new LlmConcurrencyLimiter(0, 0);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("api.example.com");
+        }
+        assertEquals(100, limiter.runningCalls());
+        assertEquals(0L, limiter.getStats().get("delayedCalls"));
+    }
+}
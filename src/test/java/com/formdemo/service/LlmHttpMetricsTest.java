@@ -0,0 +1,49 @@
+package com.formdemo.service;
+
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmHttpMetricsTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testListener_CountsNewAndReusedConnections() {
+        LlmHttpMetrics metrics = new LlmHttpMetrics(new ConnectionPool(), new LlmConcurrencyLimiter(8, 4));
+
+        // 第一次调用：新建连接并完成TLS握手
+        EventListener first = metrics.create(null);
+        first.callStart(null);
+        first.connectStart(null, null, null);
+        first.secureConnectStart(null);
+        first.secureConnectEnd(null, null);
+        first.connectEnd(null, null, null, Protocol.HTTP_2);
+        first.connectionAcquired(null, null);
+        first.responseHeadersStart(null);
+        first.callEnd(null);
+
+        // 第二次调用：复用连接池中的连接
+        EventListener second = metrics.create(null);
+        second.callStart(null);
+        second.connectionAcquired(null, null);
+        second.callFailed(null, new IOException("reset"));
+
+        Map<String, Object> stats = metrics.getStats();
+        Map<String, Object> connections = (Map<String, Object>) stats.get("connections");
+        assertEquals(2L, stats.get("calls"));
+        assertEquals(1L, stats.get("failedCalls"));
+        assertEquals(1L, connections.get("opened"));
+        assertEquals(1L, connections.get("reused"));
+        assertEquals(1L, connections.get("tlsHandshakes"));
+        assertEquals(1L, connections.get("http2"));
+        assertEquals(0.5, connections.get("reuseRate"));
+        assertEquals(2L, ((Map<String, Object>) stats.get("callLatency")).get("count"));
+        assertEquals(1L, ((Map<String, Object>) stats.get("handshakeLatency")).get("count"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.formdemo.service;
+
+import com.formdemo.exception.RateLimitedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void testAcquire_SessionRejectionDoesNotConsumeGlobalPermit() {
+        // 全局：每秒1个、突发2个；会话：每分钟1个、突发1个
+        LlmRateLimiter limiter = new LlmRateLimiter(1, 2, 1, 1, now::get);
+
+        limiter.acquire("a");
+        assertThrows(RateLimitedException.class, () -> limiter.acquire("a"));
+
+        // 会话 a 被拒绝时归还了全局令牌，其他会话仍可使用
+        limiter.acquire("b");
+        assertEquals(1L, limiter.getStats().get("sessionRejected"));
+        assertEquals(0L, limiter.getStats().get("globalRejected"));
+        assertEquals(2L, limiter.getStats().get("allowed"));
+    }
+
+    @Test
+    void testAcquire_GlobalRejectionDoesNotChargeSession() {
+        LlmRateLimiter limiter = new LlmRateLimiter(1, 1, 1, 1, now::get);
+
+        limiter.acquire("a");
+        RateLimitedException rejected = assertThrows(RateLimitedException.class, () -> limiter.acquire("b"));
+        assertEquals(1000, rejected.getRetryAfterMillis());
+
+        // 全局令牌补充后，会话 b 的令牌桶仍是满的
+        now.addAndGet(SECOND);
+        limiter.acquire("b");
+        assertEquals(1L, limiter.getStats().get("globalRejected"));
+        assertEquals(0L, limiter.getStats().get("sessionRejected"));
+    }
+
+    @Test
+    void testAcquire_UnlimitedWhenRatesAreZero() {
+        LlmRateLimiter limiter = new LlmRateLimiter(0, 0, 0, 0, now::get);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire("a");
+        }
+        assertEquals(100L, limiter.getStats().get("allowed"));
+        assertEquals(0, limiter.getStats().get("trackedSessions"));
+    }
+}
@@ -0,0 +1,177 @@
+package com.formdemo.service;
+
+import com.formdemo.exception.LlmProviderException;
+import com.formdemo.model.OpenAIRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmRouterTest {
+
+    private static final List<OpenAIRequest.Message> MESSAGES = List.of(new OpenAIRequest.Message("user", "订酒店"));
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @Timeout(5)
+    void testComplete_HedgesWhenPrimaryIsSlow() {
+        FakeClient slow = new FakeClient("slow", 2_000, false);
+        FakeClient fast = new FakeClient("fast", 0, false);
+        LlmRouter router = router(50, provider("slow", slow), provider("fast", fast));
+
+        long start = System.nanoTime();
+        String result = router.complete(MESSAGES);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("fast", result);
+        assertTrue(elapsedMillis < 1_000, "对冲请求应当限制尾延迟: " + elapsedMillis + "ms");
+        assertEquals(1L, router.getStats().get("hedges"));
+        assertEquals(1L, router.getStats().get("hedgeWins"));
+    }
+
+    @Test
+    @Timeout(5)
+    void testComplete_FailsOverAndOpensCircuit() {
+        FakeClient broken = new FakeClient("broken", 0, true);
+        FakeClient healthy = new FakeClient("healthy", 0, false);
+        LlmProvider brokenProvider = provider("broken", broken);
+        LlmRouter router = router(10_000, brokenProvider, provider("healthy", healthy));
+
+        assertEquals("healthy", router.complete(MESSAGES));
+        assertEquals("healthy", router.complete(MESSAGES));
+        assertEquals(2L, router.getStats().get("failovers"));
+
+        // 连续失败两次后熔断，不再被选中
+        assertFalse(brokenProvider.isAvailable());
+        assertEquals("healthy", router.complete(MESSAGES));
+        assertEquals(2, broken.calls.get());
+    }
+
+    @Test
+    @Timeout(5)
+    void testComplete_TimeoutsOpenCircuit() {
+        // 读超时不是调用方取消，应当计为服务商故障
+        FakeClient timingOut = new FakeClient("timeout", 0,
+            new LlmProviderException("无法连接到 LLM 服务 http://localhost/timeout: timeout",
+                                     new SocketTimeoutException("timeout")));
+        LlmProvider timingOutProvider = provider("timeout", timingOut);
+        LlmRouter router = router(10_000, timingOutProvider, provider("healthy", new FakeClient("healthy", 0, false)));
+
+        assertEquals("healthy", router.complete(MESSAGES));
+        assertEquals("healthy", router.complete(MESSAGES));
+
+        assertFalse(timingOutProvider.isAvailable());
+        assertEquals(2L, timingOutProvider.getStats().get("failures"));
+    }
+
+    @Test
+    void testStream_CallbackFailureDoesNotOpenCircuit() {
+        LlmProvider provider = provider("healthy", new FakeClient("healthy", 0, false));
+        LlmRouter router = router(10_000, provider);
+        UncheckedIOException disconnected = new UncheckedIOException(new IOException("Broken pipe"));
+
+        // SSE 客户端断开时回调抛出的异常原样抛给调用方，不转移、不计为服务商故障
+        for (int i = 0; i < 3; i++) {
+            UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> router.stream(MESSAGES, delta -> {
+                throw disconnected;
+            }));
+            assertSame(disconnected, e);
+        }
+
+        assertTrue(provider.isAvailable());
+        assertEquals(0L, provider.getStats().get("failures"));
+        assertEquals(0L, router.getStats().get("failovers"));
+        assertEquals("healthy", router.stream(MESSAGES, delta -> { }));
+    }
+
+    @Test
+    void testComplete_UsesDefaultClientWhenNoProvidersConfigured() {
+        FakeClient defaultClient = new FakeClient("default", 0, false);
+        LlmRouter router = new LlmRouter(List.of(), defaultClient, executor,
+                                         new LlmRouter.HedgePolicy(true, 10, 10_000, 20));
+
+        assertEquals("default", router.complete(MESSAGES));
+        assertEquals("default", router.stream(MESSAGES, delta -> { }));
+        assertEquals(2, defaultClient.calls.get());
+        assertEquals("default", router.getStats().get("mode"));
+    }
+
+    @Test
+    void testComplete_ThrowsWhenAllProvidersFail() {
+        LlmRouter router = router(10_000, provider("a", new FakeClient("a", 0, true)),
+                                  provider("b", new FakeClient("b", 0, true)));
+
+        assertThrows(LlmProviderException.class, () -> router.complete(MESSAGES));
+    }
+
+    private LlmRouter router(long hedgeDelayMillis, LlmProvider... providers) {
+        return new LlmRouter(List.of(providers), null, executor,
+                             new LlmRouter.HedgePolicy(true, 10, hedgeDelayMillis, 20));
+    }
+
+    private static LlmProvider provider(String name, FakeClient client) {
+        return new LlmProvider(name, client, new CircuitBreaker(2, 60_000));
+    }
+
+    private static class FakeClient extends OpenAICompatibleClient {
+        final AtomicInteger calls = new AtomicInteger();
+        private final String reply;
+        private final long delayMillis;
+        private final RuntimeException failure;
+
+        FakeClient(String reply, long delayMillis, boolean fail) {
+            this(reply, delayMillis, fail ? new LlmProviderException("LLM API 返回错误 500", 500, false) : null);
+        }
+
+        FakeClient(String reply, long delayMillis, RuntimeException failure) {
+            super("http://localhost/" + reply, "key", reply, null, null);
+            this.reply = reply;
+            this.delayMillis = delayMillis;
+            this.failure = failure;
+        }
+
+        @Override
+        public String complete(List<OpenAIRequest.Message> messages) {
+            calls.incrementAndGet();
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new LlmProviderException("canceled", e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return reply;
+        }
+
+        @Override
+        public String stream(List<OpenAIRequest.Message> messages, Consumer<String> onDelta) {
+            String result = complete(messages);
+            onDelta.accept(result);
+            return result;
+        }
+    }
+}
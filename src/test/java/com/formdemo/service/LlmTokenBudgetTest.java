@@ -0,0 +1,129 @@
+package com.formdemo.service;
+
+import com.formdemo.exception.RateLimitedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmTokenBudgetTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBudget_DowngradesThenRejectsAndResetsNextDay() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-05-31T10:00:00Z"));
+        LlmTokenBudget budget = new LlmTokenBudget(1_000, 0, 0.8, clock);
+
+        budget.record(700);
+        assertFalse(budget.shouldDowngrade());
+        budget.ensureAvailable();
+
+        budget.record(200);
+        assertTrue(budget.shouldDowngrade());
+        assertEquals(100L, budget.getStats().get("dailyRemaining"));
+
+        budget.record(100);
+        RateLimitedException error = assertThrows(RateLimitedException.class, budget::ensureAvailable);
+        assertEquals(Duration.ofHours(14).toMillis(), error.getRetryAfterMillis());
+
+        clock.advance(Duration.ofDays(1));
+        budget.ensureAvailable();
+        assertEquals(0L, budget.dailyUsed());
+        assertFalse(budget.shouldDowngrade());
+    }
+
+    @Test
+    void testBudget_MonthlyLimitSpansDays() {
+        MutableClock clock = new MutableClock(Instant.parse("2024-05-01T00:00:00Z"));
+        LlmTokenBudget budget = new LlmTokenBudget(0, 500, 0.8, clock);
+
+        budget.record(300);
+        clock.advance(Duration.ofDays(1));
+        budget.record(200);
+
+        assertEquals(500L, budget.monthlyUsed());
+        assertThrows(RateLimitedException.class, budget::ensureAvailable);
+
+        clock.advance(Duration.ofDays(30));
+        budget.ensureAvailable();
+    }
+
+    @Test
+    void testBudget_RestoresCurrentPeriodAfterRestart() {
+        Path stateFile = directory.resolve("budget/llm-budget.json");
+        MutableClock clock = new MutableClock(Instant.parse("2024-05-30T10:00:00Z"));
+        LlmTokenBudget budget = new LlmTokenBudget(1_000, 5_000, 0.8, clock, stateFile);
+        budget.record(300);
+        budget.flush();
+
+        LlmTokenBudget restarted = new LlmTokenBudget(1_000, 5_000, 0.8, clock, stateFile);
+        assertEquals(300L, restarted.dailyUsed());
+        assertEquals(300L, restarted.monthlyUsed());
+
+        // 次日重启：日用量清零，月用量保留
+        restarted.record(200);
+        restarted.close();
+        clock.advance(Duration.ofDays(1));
+        LlmTokenBudget nextDay = new LlmTokenBudget(1_000, 5_000, 0.8, clock, stateFile);
+        assertEquals(0L, nextDay.dailyUsed());
+        assertEquals(500L, nextDay.monthlyUsed());
+
+        // 下月重启：两者都清零
+        clock.advance(Duration.ofDays(2));
+        LlmTokenBudget nextMonth = new LlmTokenBudget(1_000, 5_000, 0.8, clock, stateFile);
+        assertEquals(0L, nextMonth.dailyUsed());
+        assertEquals(0L, nextMonth.monthlyUsed());
+    }
+
+    @Test
+    void testBudget_UnreadableStateFileStartsFromZero() throws IOException {
+        Path stateFile = directory.resolve("llm-budget.json");
+        Files.writeString(stateFile, "{not json");
+        MutableClock clock = new MutableClock(Instant.parse("2024-05-30T10:00:00Z"));
+
+        LlmTokenBudget budget = new LlmTokenBudget(1_000, 0, 0.8, clock, stateFile);
+        assertEquals(0L, budget.dailyUsed());
+
+        budget.record(100);
+        budget.flush();
+        assertEquals(100L, new LlmTokenBudget(1_000, 0, 0.8, clock, stateFile).dailyUsed());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
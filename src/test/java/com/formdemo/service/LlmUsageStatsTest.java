@@ -0,0 +1,73 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.model.OpenAIResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LlmUsageStatsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testUsage_ReadsOpenAIAndDeepSeekCachedTokens() throws Exception {
+        OpenAIResponse.Usage openAI = objectMapper.readValue(
+            "{\"prompt_tokens\":1200,\"completion_tokens\":30,\"total_tokens\":1230,"
+                + "\"prompt_tokens_details\":{\"cached_tokens\":1024}}", OpenAIResponse.Usage.class);
+        OpenAIResponse.Usage deepSeek = objectMapper.readValue(
+            "{\"prompt_tokens\":800,\"completion_tokens\":20,\"total_tokens\":820,"
+                + "\"prompt_cache_hit_tokens\":640,\"prompt_cache_miss_tokens\":160}", OpenAIResponse.Usage.class);
+        OpenAIResponse.Usage plain = objectMapper.readValue(
+            "{\"prompt_tokens\":100,\"completion_tokens\":10,\"total_tokens\":110}", OpenAIResponse.Usage.class);
+
+        assertEquals(1024, openAI.getCachedTokens());
+        assertEquals(640, deepSeek.getCachedTokens());
+        assertEquals(0, plain.getCachedTokens());
+    }
+
+    @Test
+    void testRecord_SplitsLatencyByCacheHit() throws Exception {
+        LlmUsageStats stats = new LlmUsageStats();
+        OpenAIResponse.Usage hit = objectMapper.readValue(
+            "{\"prompt_tokens\":1000,\"completion_tokens\":50,\"prompt_tokens_details\":{\"cached_tokens\":750}}",
+            OpenAIResponse.Usage.class);
+        OpenAIResponse.Usage miss = objectMapper.readValue(
+            "{\"prompt_tokens\":1000,\"completion_tokens\":50}", OpenAIResponse.Usage.class);
+
+        stats.record(hit, 200_000_000L);
+        stats.record(miss, 600_000_000L);
+        stats.record(null, 100_000_000L);
+
+        Map<String, Object> snapshot = stats.getStats();
+        assertEquals(3L, snapshot.get("calls"));
+        assertEquals(1L, snapshot.get("callsWithoutUsage"));
+        assertEquals(2000L, snapshot.get("promptTokens"));
+        assertEquals(750L, snapshot.get("cachedPromptTokens"));
+        assertEquals(0.375, (double) snapshot.get("cachedTokenRatio"), 1e-9);
+        assertEquals(0.5, (double) snapshot.get("cacheHitCallRate"), 1e-9);
+        assertEquals(1L, ((Map<?, ?>) snapshot.get("cacheHitLatency")).get("count"));
+        assertEquals(1L, ((Map<?, ?>) snapshot.get("cacheMissLatency")).get("count"));
+    }
+
+    @Test
+    void testRecord_ChargesBudgetWithReportedUsageOrEstimate() throws Exception {
+        LlmTokenBudget budget = new LlmTokenBudget(0, 0, 0.8, Clock.systemUTC());
+        LlmUsageStats stats = new LlmUsageStats(budget);
+        OpenAIResponse.Usage usage = objectMapper.readValue(
+            "{\"prompt_tokens\":1000,\"completion_tokens\":50}", OpenAIResponse.Usage.class);
+
+        // 有实际用量时不使用估算值
+        stats.record(usage, 1_000_000L, () -> {
+            throw new AssertionError("不应估算");
+        });
+        assertEquals(1050L, budget.dailyUsed());
+
+        stats.record(null, 1_000_000L, () -> 30);
+        assertEquals(1080L, budget.dailyUsed());
+        assertEquals(1080L, budget.monthlyUsed());
+    }
+}
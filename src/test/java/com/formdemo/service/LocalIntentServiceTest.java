@@ -0,0 +1,35 @@
+package com.formdemo.service;
+
+import com.formdemo.model.ConversationHistory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalIntentServiceTest {
+
+    @Test
+    void testBuildHistoryContext_KeepsNewestTurnsWithinBudget() {
+        LocalIntentService service = new LocalIntentService(null, null, null, null, null, 3, 30);
+        ConversationHistory history = new ConversationHistory();
+        history.add("我要订酒店", "好的，我已经为您创建了表单");
+        history.add("入住日期填明天", "好的，我已经更新了表单数据。");
+        history.add("改成后天", "好的，我已经更新了表单数据。");
+
+        String context = service.buildHistoryContext(history);
+
+        assertTrue(context.contains("改成后天"));
+        assertFalse(context.contains("我要订酒店"));
+        assertTrue(TokenEstimator.estimate(context) <= 30);
+    }
+
+    @Test
+    void testBuildHistoryContext_DisabledOrEmpty() {
+        ConversationHistory history = new ConversationHistory();
+        assertEquals("", new LocalIntentService(null, null, null, null, null, 3, 400).buildHistoryContext(history));
+
+        history.add("我要订酒店", "好的");
+        assertEquals("", new LocalIntentService(null, null, null, null, null, 0, 400).buildHistoryContext(history));
+        assertEquals("用户: 我要订酒店\n助手: 好的",
+                     new LocalIntentService(null, null, null, null, null, 3, 400).buildHistoryContext(history));
+    }
+}
@@ -0,0 +1,168 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.formdemo.exception.LlmProviderException;
+import com.formdemo.model.OpenAIRequest;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用 JDK 自带的 HttpServer 模拟服务商，验证流式（SSE）响应的解析和用量记录
+ */
+class OpenAICompatibleClientTest {
+
+    private static final List<OpenAIRequest.Message> MESSAGES = List.of(new OpenAIRequest.Message("user", "我要订酒店"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private HttpServer server;
+    private volatile JsonNode lastRequest;
+    private LlmUsageStats usageStats;
+    private LlmConcurrencyLimiter concurrencyLimiter;
+    private OpenAICompatibleClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        usageStats = new LlmUsageStats();
+        concurrencyLimiter = new LlmConcurrencyLimiter(4, 2);
+        OkHttpClient httpClient = new OkHttpClient.Builder().readTimeout(5, TimeUnit.SECONDS).build();
+        client = new OpenAICompatibleClient("http://127.0.0.1:" + server.getAddress().getPort() + "/v1/chat/completions",
+                                            "test-key", "test-model", httpClient, objectMapper, usageStats, concurrencyLimiter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStream_ReassemblesChunksSplitAcrossWritesAndStopsAtDone() {
+        String split = event(delta("{\"intent\":"));
+        serve(200, List.of(
+            event("{\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\"}}]}"),
+            // 一个数据块被拆成两次写出，另有注释行（心跳）
+            split.substring(0, 20), split.substring(20),
+            ": keep-alive\n\n",
+            event(delta("\"chat\"}")),
+            // 用量在最后一个 choices 为空的数据块中
+            event("{\"choices\":[],\"usage\":{\"prompt_tokens\":120,\"completion_tokens\":8,\"total_tokens\":128}}"),
+            event("[DONE]"),
+            event(delta("ignored"))));
+
+        List<String> deltas = new ArrayList<>();
+        String content = client.stream(MESSAGES, deltas::add);
+
+        assertEquals(List.of("{\"intent\":", "\"chat\"}"), deltas);
+        assertEquals("{\"intent\":\"chat\"}", content);
+        assertTrue(lastRequest.path("stream").asBoolean());
+        assertTrue(lastRequest.path("stream_options").path("include_usage").asBoolean());
+
+        Map<String, Object> usage = usageStats.getStats();
+        assertEquals(1L, usage.get("calls"));
+        assertEquals(0L, usage.get("callsWithoutUsage"));
+        assertEquals(120L, usage.get("promptTokens"));
+        assertEquals(8L, usage.get("completionTokens"));
+        assertEquals(0, concurrencyLimiter.runningCalls());
+        assertEquals(1L, ((Map<String, Object>) concurrencyLimiter.getStats().get("queueLatency")).get("count"));
+    }
+
+    @Test
+    void testStream_EndOfBodyWithoutDoneOrUsage() {
+        serve(200, List.of(event(delta("你好")), event(delta("！"))));
+
+        List<String> deltas = new ArrayList<>();
+        String content = client.stream(MESSAGES, deltas::add);
+
+        assertEquals(List.of("你好", "！"), deltas);
+        assertEquals("你好！", content);
+        assertEquals(1L, usageStats.getStats().get("callsWithoutUsage"));
+        assertEquals(0, concurrencyLimiter.runningCalls());
+    }
+
+    @Test
+    void testStream_ErrorStatusThrowsWithoutCallingBack() {
+        serve(429, List.of("{\"error\":{\"message\":\"You exceeded your current quota\",\"code\":\"insufficient_quota\"}}"));
+
+        List<String> deltas = new ArrayList<>();
+        LlmProviderException e = assertThrows(LlmProviderException.class, () -> client.stream(MESSAGES, deltas::add));
+
+        assertEquals(429, e.getStatusCode());
+        assertTrue(e.isQuotaExceeded());
+        assertTrue(deltas.isEmpty());
+        assertEquals(0L, usageStats.getStats().get("calls"));
+        assertEquals(0, concurrencyLimiter.runningCalls());
+
+        serve(500, List.of("{\"error\":{\"message\":\"server error\"}}"));
+        e = assertThrows(LlmProviderException.class, () -> client.stream(MESSAGES, deltas::add));
+        assertEquals(500, e.getStatusCode());
+        assertFalse(e.isQuotaExceeded());
+    }
+
+    @Test
+    void testComplete_RecordsCachedPromptTokens() {
+        serve(200, List.of("{\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"{}\"}}],"
+            + "\"usage\":{\"prompt_tokens\":1200,\"completion_tokens\":10,\"prompt_tokens_details\":{\"cached_tokens\":1024}}}"));
+
+        assertEquals("{}", client.complete(MESSAGES));
+
+        assertFalse(lastRequest.path("stream").asBoolean(false));
+        Map<String, Object> usage = usageStats.getStats();
+        assertEquals(1L, usage.get("calls"));
+        assertEquals(1200L, usage.get("promptTokens"));
+        assertEquals(1024L, usage.get("cachedPromptTokens"));
+        assertEquals(0, concurrencyLimiter.runningCalls());
+    }
+
+    /**
+     * 按顺序写出响应的各个片段，每个片段单独 flush
+     */
+    private void serve(int status, List<String> parts) {
+        try {
+            server.removeContext("/v1/chat/completions");
+        } catch (IllegalArgumentException e) {
+            // 第一次注册
+        }
+        server.createContext("/v1/chat/completions", exchange -> {
+            try (exchange; InputStream in = exchange.getRequestBody()) {
+                lastRequest = objectMapper.readTree(in);
+                exchange.getResponseHeaders().set("Content-Type", status == 200 && lastRequest.path("stream").asBoolean(false)
+                    ? "text/event-stream" : "application/json");
+                exchange.sendResponseHeaders(status, 0);
+                OutputStream out = exchange.getResponseBody();
+                for (String part : parts) {
+                    out.write(part.getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+    }
+
+    private String delta(String content) {
+        ObjectNode chunk = objectMapper.createObjectNode();
+        chunk.putArray("choices").addObject().put("index", 0).putObject("delta").put("content", content);
+        return chunk.toString();
+    }
+
+    private static String event(String data) {
+        return "data: " + data + "\n\n";
+    }
+}
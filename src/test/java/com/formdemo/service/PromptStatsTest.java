@@ -0,0 +1,45 @@
+package com.formdemo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptStatsTest {
+
+    @Test
+    void testSampleFullContext_FirstTurnThenEveryInterval() {
+        PromptStats stats = new PromptStats();
+        int sampled = 0;
+        for (int i = 0; i < PromptStats.FULL_CONTEXT_SAMPLE_INTERVAL * 3; i++) {
+            boolean sample = stats.sampleFullContext();
+            assertEquals(i % PromptStats.FULL_CONTEXT_SAMPLE_INTERVAL == 0, sample, "turn " + i);
+            if (sample) {
+                sampled++;
+            }
+        }
+        assertEquals(3, sampled);
+    }
+
+    @Test
+    void testGetStats_SavedRatioUsesOnlySampledTurns() {
+        PromptStats stats = new PromptStats();
+        stats.recordContext(100, 40);
+        stats.recordContext(-1, 10);
+        stats.recordContext(-1, 10);
+        stats.recordContext(200, 60);
+
+        Map<String, Object> snapshot = stats.getStats();
+        assertEquals(4L, snapshot.get("turns"));
+        assertEquals(2L, snapshot.get("sampledTurns"));
+        assertEquals(150L, snapshot.get("avgFullContextTokens"));
+        assertEquals(30L, snapshot.get("avgCompactContextTokens"));
+        assertEquals(1.0 - 100.0 / 300, (double) snapshot.get("contextSavedRatio"), 1e-9);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> lastTurn = (Map<String, Object>) snapshot.get("lastTurn");
+        assertEquals(200L, lastTurn.get("fullContextTokens"));
+        assertEquals(60L, lastTurn.get("compactContextTokens"));
+    }
+}
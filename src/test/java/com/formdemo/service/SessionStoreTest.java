@@ -0,0 +1,148 @@
+package com.formdemo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.formdemo.model.ChatSession;
+import com.formdemo.model.FormField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private AtomicLong now;
+    private SessionStore sessionStore;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000);
+        sessionStore = new SessionStore(2, 60_000, 0, new NoOpSessionRepository(), now::get);
+    }
+
+    @Test
+    void testGetOrCreate_EvictsLeastRecentlyUsedWhenFull() {
+        sessionStore.getOrCreate("a");
+        sessionStore.getOrCreate("b");
+        sessionStore.getOrCreate("a");
+        sessionStore.getOrCreate("c");
+
+        assertNotNull(sessionStore.get("a"));
+        assertNull(sessionStore.get("b"));
+        assertNotNull(sessionStore.get("c"));
+        assertEquals(1L, sessionStore.getStats().get("sizeEvictions"));
+    }
+
+    @Test
+    void testEvictIdleSessions_RemovesOnlyExpiredSessions() {
+        sessionStore.getOrCreate("old");
+        now.addAndGet(50_000);
+        sessionStore.getOrCreate("recent");
+        now.addAndGet(20_000);
+
+        sessionStore.evictIdleSessions();
+
+        assertNull(sessionStore.get("old"));
+        assertNotNull(sessionStore.get("recent"));
+        assertEquals(1L, sessionStore.getStats().get("idleEvictions"));
+    }
+
+    @Test
+    void testGet_RefreshesAccessTimeSoIdleSweepKeepsRecentlyReadSession() {
+        sessionStore.getOrCreate("a");
+        now.addAndGet(10_000);
+        sessionStore.getOrCreate("b");
+        now.addAndGet(40_000);
+        sessionStore.get("a");
+        now.addAndGet(25_000);
+
+        sessionStore.evictIdleSessions();
+
+        // b 空闲 65 秒被清理；a 在 25 秒前被读取过，即使排在 b 之后也不会被当作过期会话清理
+        assertNull(sessionStore.get("b"));
+        assertNotNull(sessionStore.get("a"));
+        assertEquals(1L, sessionStore.getStats().get("idleEvictions"));
+    }
+
+    @Test
+    void testUpdate_TracksEstimatedBytes() {
+        ChatSession session = sessionStore.getOrCreate("a");
+        session.getHistory().add("我要订酒店", "好的，我已经为您创建了表单");
+        session.setFormFields(List.of(new FormField("name", "姓名", "text", "", null, true, "请输入姓名")));
+        session.getFormData().put("name", "张三");
+        sessionStore.update(session);
+
+        long bytes = (Long) sessionStore.getStats().get("estimatedBytes");
+        assertTrue(bytes > 0);
+        assertEquals(bytes, session.getEstimatedBytes());
+
+        session.getHistory().add("把姓名填成李四", "好的，我已经更新了表单数据。");
+        sessionStore.update(session);
+        assertTrue((Long) sessionStore.getStats().get("estimatedBytes") > bytes);
+
+        sessionStore.remove("a");
+        Map<String, Object> stats = sessionStore.getStats();
+        assertEquals(0, stats.get("sessions"));
+        assertEquals(0L, stats.get("estimatedBytes"));
+    }
+
+    @Test
+    void testGetOrCreate_ReloadsEvictedSessionFromFileRepository() {
+        FileSessionRepository repository = new FileSessionRepository(directory, 0, new ObjectMapper());
+        try {
+            SessionStore store = new SessionStore(1, 60_000, 0, repository, now::get);
+            ChatSession session = store.getOrCreate("s1");
+            session.setFormId("form_1");
+            session.getHistory().add("我要订酒店", "好的，我已经为您创建了表单");
+            session.setFormFields(List.of(new FormField("name", "姓名", "text", "", null, true, "请输入姓名")));
+            session.getFormData().put("name", "张三");
+            store.update(session);
+
+            // 容量为 1，创建 s2 会把 s1 从内存中淘汰
+            store.getOrCreate("s2");
+            assertNull(store.get("s1"));
+
+            ChatSession reloaded = store.getOrCreate("s1");
+            assertNotSame(session, reloaded);
+            assertEquals("form_1", reloaded.getFormId());
+            assertEquals(List.of("我要订酒店", "好的，我已经为您创建了表单"), reloaded.getHistory().toMessages());
+            assertEquals("name", reloaded.getFormFields().get(0).getName());
+            assertEquals("张三", reloaded.getFormData().get("name"));
+            assertEquals(1L, store.getStats().get("loadedFromStore"));
+            assertEquals(reloaded.getEstimatedBytes(), store.getStats().get("estimatedBytes"));
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    void testGetOrCreate_ReloadsSessionAfterRestart() {
+        FileSessionRepository repository = new FileSessionRepository(directory, 0, new ObjectMapper());
+        SessionStore first = new SessionStore(2, 60_000, 0, repository, now::get);
+        ChatSession session = first.getOrCreate("s1");
+        session.getHistory().add("我要请假", "好的");
+        session.getFormData().put("days", "3");
+        first.update(session);
+        repository.close();
+
+        // 重启：新的仓库和会话存储从磁盘恢复索引，会话内容在首次访问时加载
+        repository = new FileSessionRepository(directory, 0, new ObjectMapper());
+        try {
+            SessionStore store = new SessionStore(2, 60_000, 0, repository, now::get);
+            ChatSession reloaded = store.getOrCreate("s1");
+            assertEquals(List.of("我要请假", "好的"), reloaded.getHistory().toMessages());
+            assertEquals("3", reloaded.getFormData().get("days"));
+            assertEquals(1L, store.getStats().get("loadedFromStore"));
+        } finally {
+            repository.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.formdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    @Timeout(10)
+    void testExecute_ConcurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 50;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("prompt", () -> {
+                    calls.incrementAndGet();
+                    release.await();
+                    return "result";
+                })));
+            }
+            // 等所有调用方都挂在同一个进行中的调用上
+            while ((Long) singleFlight.getStats().get("coalesced") < callers - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("result", result.get());
+            }
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+
+    @Test
+    void testExecute_PropagatesFailureAndDoesNotRetainResult() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> singleFlight.execute("prompt", () -> {
+                throw new IllegalStateException("quota");
+            }));
+        assertEquals("quota", error.getMessage());
+
+        // 调用结束后不保留结果，下一次请求重新执行
+        assertEquals("a", singleFlight.execute("prompt", () -> "a"));
+        assertEquals("b", singleFlight.execute("prompt", () -> "b"));
+        assertEquals(3L, singleFlight.getStats().get("executions"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.formdemo.service;
+
+import com.formdemo.model.FormField;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotFillingParserTest {
+
+    private final SlotFillingParser parser = new SlotFillingParser(
+        Clock.fixed(Instant.parse("2026-10-18T04:00:00Z"), ZoneId.of("Asia/Shanghai")));
+
+    private final List<FormField> hotelFields = List.of(
+        new FormField("name", "姓名", "text", "", null, true, "请输入姓名"),
+        new FormField("email", "邮箱", "text", "", null, false, "请输入邮箱"),
+        new FormField("checkInDate", "入住日期", "date", "", null, true, "请选择入住日期"),
+        new FormField("checkOutDate", "退房日期", "date", "", null, true, "请选择退房日期"),
+        new FormField("roomType", "房间类型", "select", "", List.of("单人间", "双人间", "大床房", "套房"), true, ""),
+        new FormField("guests", "入住人数", "number", "1", null, true, "请输入入住人数")
+    );
+
+    @Test
+    void testParse_CommonChineseCommands() {
+        assertEquals(Map.of("name", "张三"), parser.parse("把姓名填成张三", hotelFields));
+        assertEquals(Map.of("checkInDate", "2026-10-20"), parser.parse("入住日期改为10月20日", hotelFields));
+        assertEquals(Map.of("guests", "2"), parser.parse("人数2", hotelFields));
+        assertEquals(Map.of("guests", "3"), parser.parse("入住人数改成三人", hotelFields));
+        assertEquals(Map.of("roomType", "大床房"), parser.parse("房间类型换成大床房吧", hotelFields));
+        assertEquals(Map.of("checkOutDate", "2026-10-19"), parser.parse("退房日期设为明天", hotelFields));
+        assertEquals(Map.of("checkInDate", "2026-10-19"), parser.parse("入住日期选明天", hotelFields));
+    }
+
+    @Test
+    void testParse_TwoCharacterAssignmentsBeforeSingleCharacter() {
+        // "填写"、"填上" 不能只匹配到 "填"，否则 "写"、"上" 会被当作值的一部分
+        assertEquals(Map.of("name", "张三"), parser.parse("姓名填写张三", hotelFields));
+        assertEquals(Map.of("name", "张三"), parser.parse("姓名填上张三", hotelFields));
+        assertEquals(Map.of("name", "张三"), parser.parse("姓名填入张三", hotelFields));
+        assertEquals(Map.of("name", "张三"), parser.parse("姓名填写为张三", hotelFields));
+        assertEquals(Map.of("roomType", "套房"), parser.parse("房间类型选为套房", hotelFields));
+
+        List<FormField> leaveFields = List.of(new FormField("reason", "请假事由", "textarea", "", null, true, "请输入请假事由"));
+        assertEquals(Map.of("reason", "家里有事"), parser.parse("请假事由填写家里有事", leaveFields));
+    }
+
+    @Test
+    void testParse_MultipleClausesAndEnglish() {
+        Map<String, Object> updates = parser.parse("请帮我把姓名填成李四，邮箱是 li@example.com", hotelFields);
+        assertEquals(Map.of("name", "李四", "email", "li@example.com"), updates);
+
+        assertEquals(Map.of("email", "a@b.com"), parser.parse("set email to a@b.com", hotelFields));
+        assertEquals(Map.of("guests", "4"), parser.parse("guests=4", hotelFields));
+        assertEquals(Map.of("checkInDate", "2027-01-05"), parser.parse("入住日期：1月5日", hotelFields));
+    }
+
+    @Test
+    void testParse_NotConfidentFallsBackToLlm() {
+        assertNull(parser.parse("日期改成明天", hotelFields));         // 入住还是退房不确定
+        assertNull(parser.parse("姓名张三", hotelFields));             // 文本字段没有赋值用语
+        assertNull(parser.parse("房间类型换成总统套房", hotelFields));   // 不是可选项
+        assertNull(parser.parse("人数改成几个", hotelFields));
+        assertNull(parser.parse("姓名要改成张三吗", hotelFields));
+        assertNull(parser.parse("姓名是不是张三", hotelFields));
+        assertNull(parser.parse("邮箱是否 li@example.com", hotelFields));
+        assertNull(parser.parse("把姓名填成张三，顺便订个早餐", hotelFields));
+        assertNull(parser.parse("我叫张三", hotelFields));
+        assertNull(parser.parse("把姓名填成张三", List.of()));
+
+        assertEquals(0.0, parser.getStats().get("localFillRatio"));
+        assertEquals(10L, parser.getStats().get("notConfident"));
+    }
+
+    @Test
+    void testStats_ReportsLocalFillRatio() {
+        parser.parse("人数2", hotelFields);
+        parser.parse("人数3", hotelFields);
+        parser.parse("人数4", hotelFields);
+        parser.recordLlmFill();
+
+        assertEquals(3L, parser.getStats().get("localFills"));
+        assertEquals(0.75, parser.getStats().get("localFillRatio"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.formdemo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingIntentParserTest {
+
+    private static final String RESPONSE = "```json\n{\"intent\": \"create_form\", \"form_fields\": [" +
+        "{\"name\": \"name\", \"label\": \"姓名 {张}\", \"type\": \"text\"}," +
+        "{\"name\": \"roomType\", \"label\": \"房间\\\"类型\", \"type\": \"select\", \"options\": [\"单人间\", \"双人间\"]}" +
+        "], \"field_updates\": {\"name\": \"[x]\"}}\n```";
+
+    @Test
+    void testFeed_EmitsEachFieldWhenItCloses() {
+        List<String> fields = new ArrayList<>();
+        StreamingIntentParser parser = new StreamingIntentParser(fields::add);
+
+        // 逐字符喂入，模拟最细粒度的流式输出
+        for (int i = 0; i < RESPONSE.length(); i++) {
+            parser.feed(String.valueOf(RESPONSE.charAt(i)));
+            if (i < RESPONSE.indexOf("},{")) {
+                assertTrue(fields.isEmpty());
+            }
+        }
+
+        assertEquals(2, fields.size());
+        assertTrue(fields.get(0).startsWith("{\"name\": \"name\""));
+        assertTrue(fields.get(1).endsWith("[\"单人间\", \"双人间\"]}"));
+        assertEquals(RESPONSE, parser.getContent());
+    }
+
+    @Test
+    void testFeed_IgnoresObjectsOutsideFormFields() {
+        List<String> fields = new ArrayList<>();
+        StreamingIntentParser parser = new StreamingIntentParser(fields::add);
+
+        parser.feed("{\"intent\": \"fill_form\", \"form_fields\": [], ");
+        parser.feed("\"field_updates\": {\"guests\": \"2\"}}");
+
+        assertTrue(fields.isEmpty());
+    }
+}
@@ -0,0 +1,81 @@
+package com.formdemo.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void testTryAcquire_AllowsBurstThenRefillsAtRate() {
+        AtomicLong now = new AtomicLong(1_000_000_000L);
+        TokenBucket bucket = new TokenBucket(2, 3, now::get);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        assertEquals(500, bucket.retryAfterMillis());
+
+        now.addAndGet(500_000_000L);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        now.addAndGet(10_000_000_000L);
+        assertTrue(bucket.isFull());
+        assertEquals(3, bucket.availablePermits());
+    }
+
+    @Test
+    void testRelease_ReturnsPermitButNeverOverfills() {
+        AtomicLong now = new AtomicLong(1_000_000_000L);
+        TokenBucket bucket = new TokenBucket(1, 2, now::get);
+
+        bucket.release();
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+
+        bucket.release();
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    @Timeout(10)
+    void testTryAcquire_ConcurrentCallersNeverExceedCapacity() throws Exception {
+        AtomicLong now = new AtomicLong(0);
+        TokenBucket bucket = new TokenBucket(1, 100, now::get);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (bucket.tryAcquire()) {
+                        granted.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, granted.get());
+    }
+}
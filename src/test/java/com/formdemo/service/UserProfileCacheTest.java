@@ -0,0 +1,170 @@
+package com.formdemo.service;
+
+import com.formdemo.model.UserInfo;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProfileCacheTest {
+
+    private final CountingUserInfoService service = new CountingUserInfoService();
+    private final AtomicLong now = new AtomicLong(1_000);
+
+    @Test
+    void testGet_LoadsOnceThenHits() {
+        UserProfileCache cache = new UserProfileCache(service, Runnable::run, 1_000, 800, 100, 100, now::get);
+
+        assertEquals("jeffery", cache.get("jeffery").getName());
+        assertSame(cache.get("jeffery"), cache.get(" jeffery "));
+
+        assertEquals(1, service.singleCalls.get());
+        assertEquals(2L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void testGet_RefreshesAheadOfExpiryWhileServingCachedValue() {
+        UserProfileCache cache = new UserProfileCache(service, Runnable::run, 1_000, 800, 100, 100, now::get);
+        UserInfo first = cache.get("jeffery");
+
+        now.addAndGet(900);
+        assertSame(first, cache.get("jeffery"));
+        assertEquals(2, service.singleCalls.get());
+        assertEquals(1L, cache.getStats().get("refreshes"));
+
+        // 刷新后的条目重新计时，原过期时间之后仍然命中
+        now.addAndGet(500);
+        UserInfo refreshed = cache.get("jeffery");
+        assertNotSame(first, refreshed);
+        assertEquals(2, service.singleCalls.get());
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void testGet_ReloadsAfterExpiry() {
+        UserProfileCache cache = new UserProfileCache(service, Runnable::run, 1_000, 1_000, 100, 100, now::get);
+        cache.get("jeffery");
+
+        now.addAndGet(1_000);
+        cache.get("jeffery");
+
+        assertEquals(2, service.singleCalls.get());
+        assertEquals(2L, cache.getStats().get("misses"));
+        assertEquals(0L, cache.getStats().get("refreshes"));
+    }
+
+    @Test
+    void testGetAll_LoadsMissesInOneBulkCall() {
+        UserProfileCache cache = new UserProfileCache(service, Runnable::run, 1_000, 800, 100, 100, now::get);
+        cache.get("jeffery");
+
+        Map<String, UserInfo> profiles = cache.getAll(List.of("jeffery", "lucy", "lily", "lucy"));
+
+        assertEquals(List.of("jeffery", "lucy", "lily"), List.copyOf(profiles.keySet()));
+        assertEquals(1, service.bulkCalls.get());
+        assertEquals(List.of("lucy", "lily"), service.lastBulk);
+        assertSame(profiles.get("lucy"), cache.get("lucy"));
+        assertEquals(1, service.singleCalls.get());
+    }
+
+    @Test
+    void testGetAll_SharesPendingSingleLoad() {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            service.latencyMillis = 100;
+            UserProfileCache cache = new UserProfileCache(service, executor, 60_000, 48_000, 100, 5, now::get);
+            CompletableFuture<UserInfo> pending = cache.prefetch("lucy");
+
+            Map<String, UserInfo> profiles = cache.getAll(List.of("lucy", "lily"));
+
+            // 正在加载的用户不重复加载，也不会被批量结果覆盖
+            assertEquals(List.of("lily"), service.lastBulk);
+            assertSame(pending.join(), profiles.get("lucy"));
+            assertSame(profiles.get("lucy"), cache.get("lucy"));
+            assertEquals(1, service.singleCalls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGet_UnknownUserIsNotCachedOrDefaulted() {
+        UserProfileCache cache = new UserProfileCache(new UserInfoService(), Runnable::run, 1_000, 800, 100, 100, now::get);
+
+        assertNull(cache.get(null));
+        assertNull(cache.get("someone"));
+        assertNull(cache.getAll(List.of("someone")).get("someone"));
+        assertEquals("jeffery", cache.get("jeffery").getName());
+        assertEquals(1, cache.getStats().get("size"));
+    }
+
+    @Test
+    void testPrefetch_LoadsInBackgroundAndSharesPendingLoad() {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            service.latencyMillis = 100;
+            UserProfileCache cache = new UserProfileCache(service, executor, 60_000, 48_000, 100, 5, now::get);
+
+            long start = System.nanoTime();
+            CompletableFuture<UserInfo> prefetched = cache.prefetch("jeffery");
+            assertTrue(System.nanoTime() - start < 50_000_000L, "prefetch 不应阻塞调用方");
+            assertSame(prefetched, cache.prefetch("jeffery"));
+
+            // 资料未就绪时不等待太久
+            assertNull(cache.awaitPrefetched(prefetched));
+            assertEquals(1L, cache.getStats().get("prefillTimeouts"));
+
+            assertEquals("jeffery", prefetched.join().getName());
+            assertEquals(1, service.singleCalls.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 记录调用次数的用户信息接口，可设置模拟延迟
+     */
+    private static class CountingUserInfoService extends UserInfoService {
+        final AtomicInteger singleCalls = new AtomicInteger();
+        final AtomicInteger bulkCalls = new AtomicInteger();
+        volatile List<String> lastBulk;
+        volatile long latencyMillis;
+
+        @Override
+        public UserInfo findUserInfo(String userName) {
+            singleCalls.incrementAndGet();
+            sleep();
+            return new UserInfo(userName, null, null, null, null, null);
+        }
+
+        @Override
+        public Map<String, UserInfo> getUserInfos(Collection<String> userNames) {
+            bulkCalls.incrementAndGet();
+            lastBulk = List.copyOf(userNames);
+            sleep();
+            Map<String, UserInfo> result = new LinkedHashMap<>();
+            for (String userName : userNames) {
+                result.put(userName, new UserInfo(userName, null, null, null, null, null));
+            }
+            return result;
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}